@@ -0,0 +1,94 @@
+#!/usr/bin/env bash
+#
+# Compara a subida da aplicação: jar comum x build de produção (mvn -Pprod: AOT + CDS)
+#
+# Para cada variante, sobe a aplicação RUNS vezes e mede:
+# - tempo até a primeira requisição com sucesso (HTTP 200 em URL_PATH), contado a partir do "java"
+# - memória residente (RSS) do processo logo depois dessa requisição
+#
+# Uso (na raiz do projeto, Linux):
+#   scripts/startup-benchmark.sh             # 5 subidas por variante
+#   RUNS=10 PORT=18081 scripts/startup-benchmark.sh
+#   SKIP_BUILD=1 scripts/startup-benchmark.sh   # reaproveita os builds anteriores
+#   MVN=mvn scripts/startup-benchmark.sh        # Maven instalado em vez do wrapper
+#
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${RUNS:-5}"
+PORT="${PORT:-18080}"
+URL_PATH="${URL_PATH:-/api/games/info}"
+MVN="${MVN:-sh mvnw}"
+TIMEOUT_S="${TIMEOUT_S:-120}"
+OUT="target/startup-benchmark"
+JAR_NAME="steam-game-viewer-0.0.1-SNAPSHOT.jar"
+APP_ARGS="--server.port=${PORT} --steam.snapshot.enabled=false"
+
+if [[ -z "${SKIP_BUILD:-}" ]]; then
+    mkdir -p "$OUT"
+    echo "Build atual (jar comum)..."
+    $MVN -B -q package -DskipTests
+    cp "target/${JAR_NAME}" "$OUT/baseline.jar"
+
+    echo "Build de produção (-Pprod: AOT + CDS)..."
+    $MVN -B -q -Pprod package -DskipTests > "$OUT/prod-build.log" 2>&1
+fi
+
+# Sobe a aplicação, espera o primeiro 200 e imprime "<ms> <rss_kb>"
+measure() {
+    local log="$OUT/run.log"
+    local start end pid rss
+    start=$(date +%s%N)
+    "$@" $APP_ARGS > "$log" 2>&1 &
+    pid=$!
+
+    while true; do
+        if curl -s -o /dev/null -f "http://127.0.0.1:${PORT}${URL_PATH}"; then
+            break
+        fi
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "A aplicação parou antes de responder (ver $log)" >&2
+            exit 1
+        fi
+        if (( ($(date +%s%N) - start) / 1000000000 > TIMEOUT_S )); then
+            kill "$pid"
+            echo "Sem resposta em ${TIMEOUT_S}s (ver $log)" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    end=$(date +%s%N)
+    rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    echo "$(( (end - start) / 1000000 )) ${rss}"
+}
+
+# Roda uma variante RUNS vezes e mostra a mediana
+bench() {
+    local name="$1"
+    shift
+    local times=() rsss=() result
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure "$@")
+        times+=("${result% *}")
+        rsss+=("${result#* }")
+    done
+    local time_median rss_median
+    time_median=$(printf '%s\n' "${times[@]}" | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }')
+    rss_median=$(printf '%s\n' "${rsss[@]}" | sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }')
+    printf '%-28s primeira resposta %6d ms   RSS %6d MB   (%s)\n' \
+        "$name" "$time_median" "$((rss_median / 1024))" "$(IFS=,; echo "${times[*]}")"
+}
+
+echo
+echo "Mediana de ${RUNS} subidas, até o primeiro 200 em ${URL_PATH}:"
+bench "atual (java -jar)" \
+    java -jar "$OUT/baseline.jar"
+bench "prod (AOT + lazy)" \
+    env SPRING_PROFILES_ACTIVE=prod java -Dspring.aot.enabled=true -jar "target/app/${JAR_NAME}"
+bench "prod (AOT + lazy + CDS)" \
+    env SPRING_PROFILES_ACTIVE=prod java -XX:SharedArchiveFile=target/app/application.jsa -Dspring.aot.enabled=true \
+    -jar "target/app/${JAR_NAME}"
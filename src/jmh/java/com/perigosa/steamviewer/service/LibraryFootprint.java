@@ -0,0 +1,79 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perigosa.steamviewer.model.SteamApiResponse;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mede quanto heap cada biblioteca ocupa enquanto está no cache
+ *
+ * Carrega várias vezes a mesma resposta JSON (como se fossem usuários diferentes com
+ * jogos em comum) e compara o heap usado depois de um GC:
+ * - List<Game>: um Game por jogo, com appId em String e a URL do ícone montada
+ * - GameLibrary: arrays compactos e nomes compartilhados
+ *
+ * Uso: mvn -Pjmh test-compile exec:exec -Djmh.profilers= -Djmh.main=com.perigosa.steamviewer.service.LibraryFootprint
+ *      (opcional: -Djmh.args="quantidadeDeBibliotecas tamanho")
+ */
+public final class LibraryFootprint {
+
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    private LibraryFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int libraries = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        byte[] json = SyntheticLibraries.ownedGamesJson(size);
+
+        report("List<Game>", measure(libraries, () -> {
+            SteamApiResponse response = OBJECT_MAPPER.readValue(json, SteamApiResponse.class);
+            return SteamService.convertToGameList(response.getResponse().getGames());
+        }), libraries, size);
+        report("GameLibrary", measure(libraries,
+                () -> OwnedGamesParser.parse(new ByteArrayInputStream(json), SteamService.STEAM_MEDIA_URL)),
+                libraries, size);
+    }
+
+    /**
+     * Carrega as bibliotecas e mede o heap com elas vivas e depois de soltá-las
+     * A diferença é só o que as bibliotecas ocupam (sobras de outras medições não entram na conta)
+     */
+    private static long measure(int libraries, Loader loader) throws IOException {
+        List<Object> retained = new ArrayList<>(libraries);
+        for (int i = 0; i < libraries; i++) {
+            retained.add(loader.load());
+        }
+        long withLibraries = usedHeap();
+        retained.clear();
+        return withLibraries - usedHeap();
+    }
+
+    private interface Loader {
+        Object load() throws IOException;
+    }
+
+    private static void report(String label, long bytes, int libraries, int size) {
+        System.out.printf("%-12s %,d bibliotecas x %,d jogos: %,d bytes por biblioteca (%,d por jogo)%n",
+                label, libraries, size, bytes / libraries, bytes / ((long) libraries * size));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
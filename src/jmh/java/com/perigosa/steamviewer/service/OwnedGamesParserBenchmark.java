@@ -0,0 +1,63 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.SteamApiResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a leitura da resposta do GetOwnedGames:
+ * - databind: SteamApiResponse completo + convertToGameList (caminho antigo)
+ * - streaming: OwnedGamesParser gravando cada jogo direto na GameLibrary
+ *
+ * Rode com "-prof gc" para ver a alocação por requisição (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OwnedGamesParserBenchmark {
+
+    @Param({"1000", "10000", "20000"})
+    private int size;
+
+    // Mesmo ObjectMapper que o RestTemplate usava (ignora campos desconhecidos)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        json = SyntheticLibraries.ownedGamesJson(size);
+    }
+
+    @Benchmark
+    public List<Game> databind() throws IOException {
+        SteamApiResponse response = objectMapper.readValue(new ByteArrayInputStream(json), SteamApiResponse.class);
+        return SteamService.convertToGameList(response.getResponse().getGames());
+    }
+
+    @Benchmark
+    public GameLibrary streaming() throws IOException {
+        return OwnedGamesParser.parse(new ByteArrayInputStream(json), SteamService.STEAM_MEDIA_URL);
+    }
+}
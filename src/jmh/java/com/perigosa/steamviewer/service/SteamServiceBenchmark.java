@@ -0,0 +1,144 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.perigosa.steamviewer.controller.GameController.DashboardData;
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.SteamApiResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede as operações do SteamService sobre bibliotecas sintéticas de 100 a 100 mil jogos:
+ * conversão (a partir do JSON), ordenações, dashboard, estatísticas, categorias
+ * e serialização do DashboardData.
+ *
+ * Os métodos "library..." fazem o mesmo pelo caminho usado hoje nos endpoints
+ * (GameLibrary compacta), para comparar com os métodos sobre List&lt;Game&gt;.
+ * Os métodos "search..." medem a busca por nome (índice montado no setup, como no cache).
+ *
+ * O profile jmh já roda com "-prof gc": o relatório traz a alocação (gc.alloc.rate.norm)
+ * junto com o tempo de cada operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SteamServiceBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int size;
+
+    // Mesmo ObjectMapper que o RestTemplate usava (ignora campos desconhecidos)
+    private final ObjectMapper readMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    // Mesma configuração da API (spring.jackson.* no application.properties)
+    private final ObjectMapper writeMapper = Jackson2ObjectMapperBuilder.json()
+            .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
+
+    private final SteamService steamService = new SteamService(null, new SimpleMeterRegistry());
+
+    private byte[] json;
+    private List<Game> games;
+    private GameLibrary library;
+    private DashboardData dashboard;
+    private GameSearchIndex searchIndex;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = SyntheticLibraries.ownedGamesJson(size);
+        games = SyntheticLibraries.games(size);
+        library = OwnedGamesParser.parse(new ByteArrayInputStream(json), SteamService.STEAM_MEDIA_URL);
+        dashboard = steamService.calculateDashboard(games);
+        searchIndex = GameSearchIndex.build(library);
+    }
+
+    @Benchmark
+    public List<Game> convertToGameList() throws IOException {
+        SteamApiResponse response = readMapper.readValue(new ByteArrayInputStream(json), SteamApiResponse.class);
+        return SteamService.convertToGameList(response.getResponse().getGames());
+    }
+
+    @Benchmark
+    public List<Game> sortByName() {
+        return steamService.sortByName(games);
+    }
+
+    @Benchmark
+    public List<Game> sortByPlaytime() {
+        return steamService.sortByPlaytime(games);
+    }
+
+    @Benchmark
+    public DashboardData calculateDashboard() {
+        return steamService.calculateDashboard(games);
+    }
+
+    @Benchmark
+    public Map<String, Object> getDetailedStats() {
+        return steamService.getDetailedStats(games);
+    }
+
+    @Benchmark
+    public Map<String, List<Game>> categorizeGamesByPlaytime() {
+        return steamService.categorizeGamesByPlaytime(games);
+    }
+
+    @Benchmark
+    public byte[] serializeDashboard() throws IOException {
+        return writeMapper.writeValueAsBytes(dashboard);
+    }
+
+    @Benchmark
+    public int[] librarySortByName() {
+        return SortKey.NAME.computeOrder(library);
+    }
+
+    @Benchmark
+    public int[] librarySortByPlaytime() {
+        return SortKey.PLAYTIME.computeOrder(library);
+    }
+
+    @Benchmark
+    public DashboardData libraryDashboard() {
+        return steamService.calculateDashboard(library);
+    }
+
+    @Benchmark
+    public GameSearchIndex buildSearchIndex() {
+        return GameSearchIndex.build(library);
+    }
+
+    @Benchmark
+    public int[] searchPrefix() {
+        return searchIndex.search(library, "hollow kni", 20);
+    }
+
+    @Benchmark
+    public int[] searchTypo() {
+        return searchIndex.search(library, "fortrss", 20);
+    }
+}
@@ -0,0 +1,106 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.Game;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gera bibliotecas sintéticas (sempre iguais para o mesmo tamanho) para os benchmarks
+ *
+ * Usa uma semente fixa para que os resultados possam ser comparados entre execuções.
+ * A distribuição imita uma biblioteca real: muitos jogos nunca jogados e poucos com muitas horas.
+ */
+public final class SyntheticLibraries {
+
+    private static final long SEED = 42L;
+
+    private static final String[] WORDS = {
+            "Counter", "Strike", "Dota", "Portal", "Half", "Life", "Team", "Fortress", "Left", "Dead",
+            "Souls", "Ring", "Witcher", "Cyber", "Punk", "Star", "Valley", "Hollow", "Knight", "Terra",
+            "Craft", "Legends", "Empire", "Total", "War", "Civilization", "Factorio", "Rim", "World", "Hades"
+    };
+
+    private SyntheticLibraries() {
+    }
+
+    /**
+     * Resposta JSON do GetOwnedGames com a quantidade de jogos pedida
+     */
+    public static byte[] ownedGamesJson(int size) {
+        Random random = new Random(SEED);
+        StringBuilder json = new StringBuilder(size * 220);
+        json.append("{\"response\":{\"game_count\":").append(size).append(",\"games\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            int playtime = playtime(random);
+            json.append("{\"appid\":").append(appId(i))
+                    .append(",\"name\":\"").append(name(random)).append('"')
+                    .append(",\"playtime_forever\":").append(playtime)
+                    .append(",\"img_icon_url\":\"").append(iconHash(random)).append('"')
+                    .append(",\"has_community_visible_stats\":true")
+                    .append(",\"playtime_windows_forever\":").append(playtime)
+                    .append(",\"playtime_mac_forever\":0,\"playtime_linux_forever\":0,\"playtime_deck_forever\":0")
+                    .append(",\"rtime_last_played\":").append(1_600_000_000 + random.nextInt(100_000_000))
+                    .append(",\"content_descriptorids\":[2,5]")
+                    .append(",\"playtime_disconnected\":0}");
+        }
+        json.append("]}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Lista de jogos já convertida, com a mesma distribuição do JSON
+     */
+    public static List<Game> games(int size) {
+        Random random = new Random(SEED);
+        List<Game> games = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int appId = appId(i);
+            int playtime = playtime(random);
+            String name = name(random);
+            games.add(new Game(String.valueOf(appId), name, playtime,
+                    SteamService.buildImageUrl(appId, iconHash(random))));
+        }
+        return games;
+    }
+
+    private static int appId(int index) {
+        return 10 + index * 10;
+    }
+
+    private static int playtime(Random random) {
+        // ~40% nunca jogados, o resto com cauda longa
+        if (random.nextInt(10) < 4) {
+            return 0;
+        }
+        return (int) Math.min(200_000, Math.exp(random.nextDouble() * 11));
+    }
+
+    private static String name(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder name = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                name.append(' ');
+            }
+            name.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextBoolean()) {
+            name.append(' ').append(1 + random.nextInt(5));
+        }
+        return name.toString();
+    }
+
+    private static String iconHash(Random random) {
+        StringBuilder hash = new StringBuilder(40);
+        for (int i = 0; i < 40; i++) {
+            hash.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hash.toString();
+    }
+}
@@ -0,0 +1,75 @@
+package com.perigosa.steamviewer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuração dos executores usados para buscar várias bibliotecas em paralelo
+ * e para as cargas do modo de execução assíncrono
+ *
+ * As chamadas para a Steam API passam a maior parte do tempo esperando a rede,
+ * então usamos virtual threads quando o Java em execução suporta (Java 21+).
+ * Em versões anteriores, um número fixo de threads comuns com fila.
+ * Nos dois casos o número de chamadas simultâneas é limitado pela configuração
+ * (no lote, por um semáforo dentro das tarefas; no modo assíncrono, pelo UpstreamGuard).
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Executor para o "fan-out" de chamadas à Steam API (ex: endpoint de lote)
+     *
+     * Com virtual threads cada SteamID tem a sua thread e o limite de chamadas simultâneas
+     * fica num semáforo dentro das tarefas (LibraryBatchService).
+     * Sem elas, um número fixo de threads comuns (steam.batch.concurrency) com fila:
+     * os SteamIDs que esperam a vez ficam na fila em vez de cada um prender uma thread.
+     * O envio continua sem bloquear quem envia (a thread da requisição).
+     */
+    @Bean
+    public AsyncTaskExecutor steamFanOutExecutor(@Value("${steam.batch.concurrency:16}") int concurrency) {
+        SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("steam-fanout-");
+        try {
+            virtualExecutor.setVirtualThreads(true);
+            return virtualExecutor;
+        } catch (UnsupportedOperationException e) {
+            // Java < 21: threads comuns em número fixo, com fila
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("steam-fanout-");
+            executor.setCorePoolSize(concurrency);
+            executor.setMaxPoolSize(concurrency);
+            executor.setDaemon(true);
+            return executor;
+        }
+    }
+
+    /**
+     * Executor das cargas de biblioteca no modo de execução assíncrono (steam.execution.mode=async)
+     *
+     * Só as cargas que precisam ir na Steam API rodam aqui; a thread da requisição (Tomcat)
+     * fica livre enquanto isso. Com virtual threads cada carga tem a sua thread; sem elas,
+     * um número fixo de threads comuns (o limite real de chamadas simultâneas continua
+     * sendo o do UpstreamGuard e do pool de conexões, então mais threads não adiantam).
+     */
+    @Bean
+    public TaskExecutor steamRequestExecutor(
+            @Value("${steam.execution.upstream-threads:64}") int threads) {
+        SimpleAsyncTaskExecutor virtualExecutor = new SimpleAsyncTaskExecutor("steam-request-");
+        try {
+            virtualExecutor.setVirtualThreads(true);
+            return virtualExecutor;
+        } catch (UnsupportedOperationException e) {
+            // Java < 21: threads comuns em número fixo, com fila
+            ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+            executor.setThreadNamePrefix("steam-request-");
+            executor.setCorePoolSize(threads);
+            executor.setMaxPoolSize(threads);
+            executor.setDaemon(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.perigosa.steamviewer.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Configuração do cliente HTTP usado para chamar a Steam API
+ *
+ * Usa o HttpClient do próprio Java, que mantém um pool de conexões reaproveitadas
+ * (keep-alive) e negocia HTTP/2 quando o servidor suporta. Assim, chamadas seguidas
+ * não pagam o handshake TLS de novo.
+ *
+ * Os tempos máximos vêm do application.properties, para que uma resposta lenta
+ * da Steam não prenda a thread da requisição indefinidamente.
+ */
+@Configuration
+public class SteamHttpClientConfig {
+
+    /**
+     * Interceptor com limite de requisições em andamento por host, gzip e métricas
+     */
+    @Bean
+    public UpstreamHttpInterceptor upstreamHttpInterceptor(
+            @Value("${steam.http.max-in-flight-per-host:32}") int maxInFlightPerHost,
+            @Value("${steam.http.in-flight-wait-ms:2000}") long acquireTimeoutMillis) {
+        return new UpstreamHttpInterceptor(maxInFlightPerHost, acquireTimeoutMillis);
+    }
+
+    /**
+     * Limite de taxa, circuit breaker e concorrência adaptativa das chamadas para a Steam API
+     */
+    @Bean
+    public UpstreamGuard upstreamGuard(
+            @Value("${steam.guard.rate-per-second:10}") double ratePerSecond,
+            @Value("${steam.guard.burst:20}") int burst,
+            @Value("${steam.guard.max-wait-ms:2000}") long maxWaitMillis,
+            @Value("${steam.guard.slot-wait-ms:5000}") long maxSlotWaitMillis,
+            @Value("${steam.guard.failure-threshold:5}") int failureThreshold,
+            @Value("${steam.guard.open-seconds:30}") long openSeconds,
+            @Value("${steam.guard.initial-concurrency:16}") int initialConcurrency,
+            @Value("${steam.http.max-in-flight-per-host:32}") int maxConcurrency,
+            @Value("${steam.guard.latency-target-ms:2000}") long latencyTargetMillis) {
+        return new UpstreamGuard(new UpstreamGuard.Settings(ratePerSecond, burst, maxWaitMillis,
+                maxSlotWaitMillis, failureThreshold, openSeconds, initialConcurrency, maxConcurrency, latencyTargetMillis));
+    }
+
+    /**
+     * Cliente HTTP do Java compartilhado por todas as chamadas
+     * O tempo que uma conexão ociosa fica aberta não é configurável por cliente, só para a JVM
+     * inteira (-Djdk.httpclient.keepalive.timeout, ver README)
+     */
+    @Bean
+    public HttpClient steamHttpClient(
+            @Value("${steam.http.connect-timeout-ms:3000}") long connectTimeoutMillis) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    /**
+     * RestTemplate usado pelo SteamService
+     * O read timeout vale para a resposta inteira (cabeçalhos + corpo)
+     */
+    @Bean
+    public RestTemplate steamRestTemplate(HttpClient steamHttpClient,
+                                          UpstreamGuard upstreamGuard,
+                                          UpstreamHttpInterceptor upstreamHttpInterceptor,
+                                          @Value("${steam.http.read-timeout-ms:10000}") long readTimeoutMillis) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(steamHttpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        // A proteção vem primeiro: chamadas recusadas nem ocupam vaga no limite do host
+        restTemplate.getInterceptors().add(upstreamGuard);
+        restTemplate.getInterceptors().add(upstreamHttpInterceptor);
+        return restTemplate;
+    }
+}
@@ -0,0 +1,536 @@
+package com.perigosa.steamviewer.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Proteção aplicada antes de qualquer chamada para a Steam API
+ *
+ * - Limite de taxa (token bucket): a chave da Steam API tem cota, então as chamadas
+ *   saem no máximo a "ratePerSecond" por segundo, com rajadas de até "burst"
+ * - Circuit breaker: depois de várias falhas seguidas (5xx, 429, timeout, erro de rede)
+ *   as chamadas falham na hora durante "openSeconds", sem esperar a Steam responder;
+ *   depois disso uma única chamada de teste decide se o circuito fecha de novo
+ * - Concorrência adaptativa (AIMD): o limite de chamadas simultâneas cresce devagar
+ *   enquanto a latência está boa e cai pela metade quando a Steam falha ou fica lenta
+ *
+ * Tanto o token quanto a vaga de concorrência são esperados por um tempo limitado
+ * (maxWaitMillis / maxSlotWaitMillis): um lote com mais SteamIDs que o limite entra na fila
+ * em vez de falhar. Interromper a thread durante a espera cancela a chamada (InterruptedIOException).
+ *
+ * Chamadas recusadas viram UpstreamThrottledException (limite) ou
+ * UpstreamUnavailableException (circuito aberto / Steam falhando), ambas com Retry-After.
+ */
+public class UpstreamGuard implements ClientHttpRequestInterceptor, MeterBinder {
+
+    /**
+     * Estados do circuit breaker
+     */
+    public enum CircuitState { CLOSED, HALF_OPEN, OPEN }
+
+    /**
+     * Configuração da proteção
+     * @param ratePerSecond Chamadas por segundo liberadas pelo token bucket
+     * @param burst Chamadas que podem sair de uma vez (tamanho do balde)
+     * @param maxWaitMillis Tempo máximo esperando um token antes de recusar a chamada
+     * @param maxSlotWaitMillis Tempo máximo esperando uma vaga de concorrência antes de recusar a chamada
+     * @param failureThreshold Falhas seguidas que abrem o circuito
+     * @param openSeconds Tempo que o circuito fica aberto antes da chamada de teste
+     * @param initialConcurrency Limite inicial de chamadas simultâneas
+     * @param maxConcurrency Limite máximo de chamadas simultâneas
+     * @param latencyTargetMillis Latência acima da qual o limite de concorrência diminui
+     */
+    public record Settings(double ratePerSecond, int burst, long maxWaitMillis, long maxSlotWaitMillis,
+                           int failureThreshold, long openSeconds,
+                           int initialConcurrency, int maxConcurrency, long latencyTargetMillis) {
+    }
+
+    // Redução do limite de concorrência quando a Steam falha ou fica lenta
+    private static final double FAILURE_BACKOFF = 0.5;
+    private static final double SLOW_BACKOFF = 0.9;
+
+    // Retry-After usado quando a Steam responde 429 sem dizer quanto esperar
+    private static final long DEFAULT_THROTTLE_SECONDS = 1;
+
+    private final Settings settings;
+    private final LongSupplier clock;
+    private final long nanosPerToken;
+    private final long maxWaitNanos;
+    private final long maxSlotWaitNanos;
+    private final long openNanos;
+    private final long latencyTargetNanos;
+
+    // Token bucket (protegido por bucketLock)
+    private final Object bucketLock = new Object();
+    private double tokens;
+    private long lastRefill;
+    private long pausedUntil;
+
+    // Circuit breaker (protegido por this)
+    private CircuitState state = CircuitState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    // Concorrência adaptativa
+    private final Object limitLock = new Object();
+    private volatile double concurrencyLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // Quem espera uma vaga de concorrência espera neste lock (inFlight só aumenta com ele)
+    private final Object slotLock = new Object();
+
+    // Contadores
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder circuitOpens = new LongAdder();
+
+    public UpstreamGuard(Settings settings) {
+        this(settings, System::nanoTime);
+    }
+
+    // Construtor com relógio próprio (usado nos testes)
+    UpstreamGuard(Settings settings, LongSupplier clock) {
+        this.settings = settings;
+        this.clock = clock;
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / settings.ratePerSecond());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.maxWaitMillis());
+        this.maxSlotWaitNanos = TimeUnit.MILLISECONDS.toNanos(settings.maxSlotWaitMillis());
+        this.openNanos = TimeUnit.SECONDS.toNanos(settings.openSeconds());
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(settings.latencyTargetMillis());
+        this.tokens = settings.burst();
+        this.lastRefill = clock.getAsLong();
+        this.concurrencyLimit = Math.min(settings.initialConcurrency(), settings.maxConcurrency());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        boolean probe = beforeCall();
+        try {
+            acquireToken();
+            try {
+                acquireSlot();
+            } catch (RuntimeException | IOException e) {
+                // A chamada não saiu: o token volta para o balde
+                returnToken();
+                throw e;
+            }
+        } catch (RuntimeException | IOException e) {
+            releaseProbe(probe);
+            throw e;
+        }
+        allowed.increment();
+
+        long start = clock.getAsLong();
+        ClientHttpResponse response;
+        try {
+            response = execution.execute(request, body);
+        } catch (IOException e) {
+            releaseSlot();
+            if (isInterrupted(e)) {
+                // Chamada cancelada aqui (ex: cliente desistiu no modo assíncrono): não é culpa da Steam
+                releaseProbe(probe);
+            } else {
+                // Timeout ou erro de rede: conta como falha da Steam
+                onFailure(probe);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            // Recusa local (ex: limite de requisições em andamento do host): não é culpa da Steam
+            releaseSlot();
+            releaseProbe(probe);
+            throw e;
+        }
+
+        long latency = clock.getAsLong() - start;
+        HttpStatusCode status = response.getStatusCode();
+        if (status.value() == 429) {
+            long retryAfter = parseRetryAfter(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+            pause(retryAfter);
+            response.close();
+            releaseSlot();
+            onFailure(probe);
+            throttled.increment();
+            throw new UpstreamThrottledException("Steam API limitou as requisições (429)", retryAfter);
+        }
+        if (status.is5xxServerError()) {
+            response.close();
+            releaseSlot();
+            onFailure(probe);
+            throw new UpstreamUnavailableException("Steam API respondeu com status " + status.value(),
+                    retryAfterSeconds());
+        }
+
+        onSuccess(probe, latency);
+        // A vaga de concorrência só é liberada quando o corpo terminar de ser lido
+        return new GuardedResponse(response, this::releaseSlot);
+    }
+
+    /**
+     * Se o erro veio de uma interrupção da própria thread (cancelamento local), e não da rede
+     * O HttpClient do JDK transforma a interrupção em IOException("Request was interrupted")
+     * com a InterruptedException como causa; SocketTimeoutException também é uma
+     * InterruptedIOException, mas é timeout de verdade
+     */
+    static boolean isInterrupted(IOException e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        if (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException)) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifica o circuito antes da chamada
+     * @return true se esta chamada é a chamada de teste do circuito meio aberto
+     */
+    private synchronized boolean beforeCall() {
+        if (state == CircuitState.OPEN) {
+            long remaining = openedAt + openNanos - clock.getAsLong();
+            if (remaining > 0) {
+                shortCircuited.increment();
+                throw new UpstreamUnavailableException("Steam API instável (circuito aberto)", toSeconds(remaining));
+            }
+            state = CircuitState.HALF_OPEN;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            if (probeInFlight) {
+                shortCircuited.increment();
+                throw new UpstreamUnavailableException("Steam API instável (testando conexão)", 1);
+            }
+            probeInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void releaseProbe(boolean probe) {
+        if (probe) {
+            probeInFlight = false;
+        }
+    }
+
+    private void onSuccess(boolean probe, long latencyNanos) {
+        synchronized (this) {
+            consecutiveFailures = 0;
+            if (probe) {
+                state = CircuitState.CLOSED;
+                probeInFlight = false;
+            }
+        }
+        synchronized (limitLock) {
+            if (latencyNanos <= latencyTargetNanos) {
+                // Aumento aditivo: +1 a cada "limite" respostas boas
+                concurrencyLimit = Math.min(settings.maxConcurrency(), concurrencyLimit + 1.0 / concurrencyLimit);
+            } else {
+                concurrencyLimit = Math.max(1.0, concurrencyLimit * SLOW_BACKOFF);
+            }
+        }
+    }
+
+    private void onFailure(boolean probe) {
+        failures.increment();
+        synchronized (this) {
+            consecutiveFailures++;
+            if (probe || (state == CircuitState.CLOSED && consecutiveFailures >= settings.failureThreshold())) {
+                state = CircuitState.OPEN;
+                openedAt = clock.getAsLong();
+                probeInFlight = false;
+                circuitOpens.increment();
+            }
+        }
+        synchronized (limitLock) {
+            concurrencyLimit = Math.max(1.0, concurrencyLimit * FAILURE_BACKOFF);
+        }
+    }
+
+    /**
+     * Pega um token do balde, esperando no máximo maxWaitMillis
+     */
+    private void acquireToken() throws InterruptedIOException {
+        long wait;
+        synchronized (bucketLock) {
+            long now = clock.getAsLong();
+            refill(now);
+            if (now < pausedUntil) {
+                throttled.increment();
+                throw new UpstreamThrottledException("Steam API pediu para aguardar", toSeconds(pausedUntil - now));
+            }
+            if (tokens >= 1) {
+                tokens -= 1;
+                return;
+            }
+            // Reserva o próximo token e espera por ele, se não demorar demais
+            wait = (long) ((1 - tokens) * nanosPerToken);
+            if (wait > maxWaitNanos) {
+                throttled.increment();
+                throw new UpstreamThrottledException("Limite de requisições por segundo da Steam API atingido",
+                        toSeconds(wait));
+            }
+            tokens -= 1;
+        }
+        // parkNanos pode voltar antes do tempo (inclusive por interrupção): espera o restante
+        long until = System.nanoTime() + wait;
+        for (long remaining = wait; remaining > 0; remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                returnToken();
+                throw new InterruptedIOException("Chamada interrompida esperando a vez na Steam API");
+            }
+        }
+    }
+
+    /**
+     * Aplica só o limite de taxa a uma chamada que não passa pelo RestTemplate (ex: download de ícones)
+     * O circuit breaker e a concorrência adaptativa continuam medindo só a Steam API
+     * @throws UpstreamThrottledException se o token não sai a tempo
+     * @throws InterruptedIOException se a thread for interrompida esperando o token
+     */
+    public void acquireRatePermit() throws InterruptedIOException {
+        acquireToken();
+    }
+
+    /**
+     * Devolve um token que não foi usado (a chamada foi recusada ou cancelada depois de pegá-lo)
+     */
+    private void returnToken() {
+        synchronized (bucketLock) {
+            tokens = Math.min(settings.burst(), tokens + 1);
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(settings.burst(), tokens + (double) (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+    }
+
+    /**
+     * Para de liberar tokens até o tempo pedido pela Steam (Retry-After do 429)
+     */
+    private void pause(long seconds) {
+        synchronized (bucketLock) {
+            pausedUntil = Math.max(pausedUntil, clock.getAsLong() + TimeUnit.SECONDS.toNanos(seconds));
+        }
+    }
+
+    /**
+     * Pega uma vaga de concorrência, esperando no máximo maxSlotWaitMillis
+     * (o tempo de espera é o tempo real, não o relógio da proteção)
+     */
+    private void acquireSlot() throws InterruptedIOException {
+        synchronized (slotLock) {
+            long until = System.nanoTime() + maxSlotWaitNanos;
+            while (inFlight.get() >= (int) concurrencyLimit) {
+                long remaining = until - System.nanoTime();
+                if (remaining <= 0) {
+                    throttled.increment();
+                    throw new UpstreamThrottledException("Limite de chamadas simultâneas para a Steam API atingido", 1);
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(slotLock, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Chamada interrompida esperando a vez na Steam API");
+                }
+            }
+            inFlight.incrementAndGet();
+        }
+    }
+
+    /**
+     * Devolve a vaga de concorrência e acorda quem está esperando uma
+     */
+    private void releaseSlot() {
+        inFlight.decrementAndGet();
+        synchronized (slotLock) {
+            slotLock.notifyAll();
+        }
+    }
+
+    /**
+     * Segundos até o circuito aceitar chamadas de novo (1 se estiver fechado)
+     */
+    private synchronized long retryAfterSeconds() {
+        if (state == CircuitState.OPEN) {
+            return toSeconds(openedAt + openNanos - clock.getAsLong());
+        }
+        return 1;
+    }
+
+    private static long parseRetryAfter(String value) {
+        if (value != null) {
+            try {
+                return Math.max(1, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                // Retry-After em formato de data: usa o padrão
+            }
+        }
+        return DEFAULT_THROTTLE_SECONDS;
+    }
+
+    private static long toSeconds(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Estado atual do circuito
+     */
+    public synchronized CircuitState getState() {
+        if (state == CircuitState.OPEN && clock.getAsLong() - openedAt >= openNanos) {
+            return CircuitState.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Retorna o estado e os contadores da proteção
+     */
+    public GuardStats getStats() {
+        double availableTokens;
+        synchronized (bucketLock) {
+            refill(clock.getAsLong());
+            availableTokens = Math.max(0, tokens);
+        }
+        return new GuardStats(getState().name(), (int) concurrencyLimit, inFlight.get(),
+                Math.floor(availableTokens * 10) / 10.0, allowed.sum(), throttled.sum(),
+                shortCircuited.sum(), failures.sum(), circuitOpens.sum());
+    }
+
+    /**
+     * Registra as métricas no Micrometer (chamado pelo Spring Boot para beans MeterBinder)
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("steam.upstream.guard.concurrency.limit", this, guard -> (int) guard.concurrencyLimit)
+                .description("Limite adaptativo de chamadas simultâneas para a Steam API")
+                .register(registry);
+        Gauge.builder("steam.upstream.guard.in.flight", inFlight, AtomicInteger::get)
+                .description("Chamadas em andamento para a Steam API")
+                .register(registry);
+        Gauge.builder("steam.upstream.guard.circuit.state", this, guard -> guard.getState().ordinal())
+                .description("Estado do circuit breaker (0 fechado, 1 meio aberto, 2 aberto)")
+                .register(registry);
+        FunctionCounter.builder("steam.upstream.guard.rejected", throttled, LongAdder::sum)
+                .description("Chamadas recusadas antes de chegar na Steam API")
+                .tag("reason", "throttled")
+                .register(registry);
+        FunctionCounter.builder("steam.upstream.guard.rejected", shortCircuited, LongAdder::sum)
+                .description("Chamadas recusadas antes de chegar na Steam API")
+                .tag("reason", "circuit_open")
+                .register(registry);
+    }
+
+    /**
+     * Resposta que devolve a vaga de concorrência ao ser fechada
+     */
+    private static class GuardedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final Runnable releaseSlot;
+        private boolean closed;
+
+        GuardedResponse(ClientHttpResponse delegate, Runnable releaseSlot) {
+            this.delegate = delegate;
+            this.releaseSlot = releaseSlot;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                delegate.close();
+            } finally {
+                releaseSlot.run();
+            }
+        }
+    }
+
+    /**
+     * Classe para retornar o estado da proteção
+     */
+    public static class GuardStats {
+        private final String circuitState;
+        private final int concurrencyLimit;
+        private final int inFlight;
+        private final double availableTokens;
+        private final long allowed;
+        private final long throttled;
+        private final long shortCircuited;
+        private final long failures;
+        private final long circuitOpens;
+
+        public GuardStats(String circuitState, int concurrencyLimit, int inFlight, double availableTokens,
+                          long allowed, long throttled, long shortCircuited, long failures, long circuitOpens) {
+            this.circuitState = circuitState;
+            this.concurrencyLimit = concurrencyLimit;
+            this.inFlight = inFlight;
+            this.availableTokens = availableTokens;
+            this.allowed = allowed;
+            this.throttled = throttled;
+            this.shortCircuited = shortCircuited;
+            this.failures = failures;
+            this.circuitOpens = circuitOpens;
+        }
+
+        // Getters
+        public String getCircuitState() { return circuitState; }
+        public int getConcurrencyLimit() { return concurrencyLimit; }
+        public int getInFlight() { return inFlight; }
+        public double getAvailableTokens() { return availableTokens; }
+        public long getAllowed() { return allowed; }
+        public long getThrottled() { return throttled; }
+        public long getShortCircuited() { return shortCircuited; }
+        public long getFailures() { return failures; }
+        public long getCircuitOpens() { return circuitOpens; }
+    }
+}
@@ -0,0 +1,248 @@
+package com.perigosa.steamviewer.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Interceptor aplicado a todas as chamadas feitas para a Steam API
+ *
+ * - Limita quantas requisições podem estar em andamento ao mesmo tempo para o mesmo host
+ *   (um semáforo por host, liberado quando o corpo da resposta é fechado). Não é um pool de
+ *   conexões: as conexões em si ficam com o HttpClient do JDK, que reaproveita conexões
+ *   ociosas e, com HTTP/2, manda várias requisições pela mesma conexão
+ * - Pede respostas comprimidas (Accept-Encoding: gzip) e descomprime o corpo
+ * - Mede a latência e conta sucessos, erros e timeouts
+ */
+public class UpstreamHttpInterceptor implements ClientHttpRequestInterceptor {
+
+    // Máximo de requisições em andamento por host
+    private final int maxInFlightPerHost;
+
+    // Tempo máximo esperando uma vaga quando o limite do host foi atingido
+    private final long acquireTimeoutMillis;
+
+    // Limite (semáforo) e contadores de cada host
+    private final Map<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    public UpstreamHttpInterceptor(int maxInFlightPerHost, long acquireTimeoutMillis) {
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        HostLimit limit = hosts.computeIfAbsent(request.getURI().getHost(), host -> new HostLimit(maxInFlightPerHost));
+        acquire(limit, request);
+
+        long start = System.nanoTime();
+        try {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            ClientHttpResponse response = execution.execute(request, body);
+            // A vaga só é liberada quando o corpo terminar de ser lido (close da resposta)
+            return new TrackedResponse(response, limit, start);
+
+        } catch (HttpTimeoutException e) {
+            limit.release(System.nanoTime() - start, Outcome.TIMEOUT);
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            limit.release(System.nanoTime() - start, Outcome.ERROR);
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna as estatísticas de cada host chamado até agora
+     */
+    public Map<String, HostStats> getStats() {
+        Map<String, HostStats> stats = new TreeMap<>();
+        hosts.forEach((host, limit) -> stats.put(host, limit.snapshot()));
+        return stats;
+    }
+
+    private void acquire(HostLimit limit, HttpRequest request) throws IOException {
+        limit.waiting.increment();
+        try {
+            if (!limit.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                limit.rejected.increment();
+                throw new ResourceAccessException("Limite de requisições em andamento para "
+                        + request.getURI().getHost() + " esgotado");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceAccessException("Interrompido aguardando vaga para " + request.getURI().getHost());
+        } finally {
+            limit.waiting.decrement();
+        }
+    }
+
+    private enum Outcome { OK, ERROR, TIMEOUT }
+
+    /**
+     * Limite de requisições em andamento e contadores de um host
+     */
+    private static class HostLimit {
+        final int maxInFlight;
+        final Semaphore permits;
+        final LongAdder waiting = new LongAdder();
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final AtomicLong maxNanos = new AtomicLong();
+
+        HostLimit(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+            this.permits = new Semaphore(maxInFlight, true);
+        }
+
+        void release(long nanos, Outcome outcome) {
+            permits.release();
+            requests.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            if (outcome == Outcome.ERROR) {
+                errors.increment();
+            } else if (outcome == Outcome.TIMEOUT) {
+                timeouts.increment();
+            }
+        }
+
+        HostStats snapshot() {
+            long count = requests.sum();
+            double averageMillis = count == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / count;
+            return new HostStats(maxInFlight, maxInFlight - permits.availablePermits(), waiting.intValue(),
+                    count, errors.sum(), timeouts.sum(), rejected.sum(),
+                    Math.round(averageMillis * 10) / 10.0, maxNanos.get() / 1_000_000);
+        }
+    }
+
+    /**
+     * Resposta que devolve a vaga do host ao ser fechada e,
+     * quando o corpo vem em gzip, descomprime de forma transparente
+     */
+    private static class TrackedResponse implements ClientHttpResponse {
+        private final ClientHttpResponse delegate;
+        private final HostLimit limit;
+        private final long start;
+        private final boolean gzip;
+        private final HttpHeaders headers;
+        private InputStream body;
+        private boolean closed;
+
+        TrackedResponse(ClientHttpResponse delegate, HostLimit limit, long start) {
+            this.delegate = delegate;
+            this.limit = limit;
+            this.start = start;
+            this.gzip = "gzip".equalsIgnoreCase(delegate.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+            if (gzip) {
+                // O corpo entregue já não está comprimido, então o tamanho original não vale mais
+                this.headers = new HttpHeaders();
+                this.headers.putAll(delegate.getHeaders());
+                this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+                this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+            } else {
+                this.headers = delegate.getHeaders();
+            }
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = gzip ? new GZIPInputStream(delegate.getBody(), 8192) : delegate.getBody();
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Outcome outcome = Outcome.OK;
+            try {
+                if (delegate.getStatusCode().isError()) {
+                    outcome = Outcome.ERROR;
+                }
+            } catch (IOException e) {
+                outcome = Outcome.ERROR;
+            } finally {
+                delegate.close();
+                limit.release(System.nanoTime() - start, outcome);
+            }
+        }
+    }
+
+    /**
+     * Classe para retornar as estatísticas de um host
+     */
+    public static class HostStats {
+        private final int maxInFlight;
+        private final int inFlight;
+        private final int waiting;
+        private final long requests;
+        private final long errors;
+        private final long timeouts;
+        private final long rejected;
+        private final double averageMillis;
+        private final long maxMillis;
+
+        public HostStats(int maxInFlight, int inFlight, int waiting, long requests, long errors,
+                         long timeouts, long rejected, double averageMillis, long maxMillis) {
+            this.maxInFlight = maxInFlight;
+            this.inFlight = inFlight;
+            this.waiting = waiting;
+            this.requests = requests;
+            this.errors = errors;
+            this.timeouts = timeouts;
+            this.rejected = rejected;
+            this.averageMillis = averageMillis;
+            this.maxMillis = maxMillis;
+        }
+
+        // Getters
+        public int getMaxInFlight() { return maxInFlight; }
+        public int getInFlight() { return inFlight; }
+        public int getWaiting() { return waiting; }
+        public long getRequests() { return requests; }
+        public long getErrors() { return errors; }
+        public long getTimeouts() { return timeouts; }
+        public long getRejected() { return rejected; }
+        public double getAverageMillis() { return averageMillis; }
+        public long getMaxMillis() { return maxMillis; }
+    }
+}
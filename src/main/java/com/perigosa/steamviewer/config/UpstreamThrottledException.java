@@ -0,0 +1,12 @@
+package com.perigosa.steamviewer.config;
+
+/**
+ * Erro lançado quando a chamada para a Steam API foi segurada por limite de uso:
+ * o nosso (taxa por segundo da chave, concorrência) ou o da própria Steam (status 429)
+ */
+public class UpstreamThrottledException extends UpstreamUnavailableException {
+
+    public UpstreamThrottledException(String message, long retryAfterSeconds) {
+        super(message, retryAfterSeconds);
+    }
+}
@@ -0,0 +1,24 @@
+package com.perigosa.steamviewer.config;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Erro lançado quando a Steam API está indisponível (falhando ou com o circuito aberto)
+ *
+ * Estende RestClientException para continuar sendo tratado como qualquer outra falha
+ * da requisição; o retryAfterSeconds indica quando vale a pena tentar de novo.
+ */
+public class UpstreamUnavailableException extends RestClientException {
+
+    // Segundos até a próxima tentativa fazer sentido (cabeçalho Retry-After)
+    private final long retryAfterSeconds;
+
+    public UpstreamUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,15 +1,44 @@
 package com.perigosa.steamviewer.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameField;
+import com.perigosa.steamviewer.service.CachedLibrary;
+import com.perigosa.steamviewer.service.GameNdjsonWriter;
+import com.perigosa.steamviewer.service.GamePopularityIndex;
+import com.perigosa.steamviewer.service.LibraryBatchService;
+import com.perigosa.steamviewer.service.LibraryResult;
+import com.perigosa.steamviewer.service.PageCursor;
+import com.perigosa.steamviewer.service.SortKey;
 import com.perigosa.steamviewer.service.SteamService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Controller REST que define os endpoints da nossa API
@@ -23,10 +52,61 @@ import java.util.List;
 @CrossOrigin(origins = "*") // Permite requisições de qualquer origem (para desenvolvimento)
 public class GameController {
 
+    private static final Logger log = LoggerFactory.getLogger(GameController.class);
+
     // Injeta o serviço Steam que criamos
     @Autowired
     private SteamService steamService;
 
+    // Serviço que busca várias bibliotecas em paralelo
+    @Autowired
+    private LibraryBatchService libraryBatchService;
+
+    // Mesmo ObjectMapper usado pelo Spring MVC (SNAKE_CASE, sem campos nulos)
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Quantidade máxima de SteamIDs aceitos em uma única requisição de lote
+    @Value("${steam.batch.max-ids:500}")
+    private int batchMaxIds;
+
+    // Tamanho padrão e máximo de uma página da lista de jogos
+    @Value("${steam.page.default-limit:100}")
+    private int pageDefaultLimit;
+
+    @Value("${steam.page.max-limit:1000}")
+    private int pageMaxLimit;
+
+    // Por quanto tempo o cliente pode reaproveitar uma resposta sem perguntar de novo (ETag)
+    @Value("${steam.response.cache-max-age-seconds:0}")
+    private long cacheMaxAgeSeconds;
+
+    // Guarda o JSON da lista e do dashboard junto com a biblioteca (ver serialized)
+    @Value("${steam.response.serialized-cache-enabled:true}")
+    private boolean serializedCacheEnabled;
+
+    // Modo de execução: "blocking" (a thread da requisição espera a Steam API)
+    // ou "async" (a thread é liberada enquanto a biblioteca é buscada)
+    @Value("${steam.execution.mode:blocking}")
+    private String executionMode;
+
+    // Tempo máximo de uma requisição no modo async; depois disso 503 e a busca é cancelada
+    @Value("${steam.execution.request-timeout-ms:15000}")
+    private long requestTimeoutMs;
+
+    // Retry-After sugerido quando a requisição esgota o tempo no modo async
+    private static final long REQUEST_TIMEOUT_RETRY_AFTER_SECONDS = 5;
+
+    // Quantidade padrão e máxima de resultados da busca por nome
+    private static final int SEARCH_DEFAULT_LIMIT = 20;
+    private static final int SEARCH_MAX_LIMIT = 100;
+
+    // Tamanho máximo do ranking global
+    private static final int GLOBAL_TOP_MAX_LIMIT = 1000;
+
+    // Tipo do modo streaming (um JSON por linha)
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     /**
      * Endpoint principal: GET /api/games/{steamId}
      *
@@ -34,36 +114,151 @@ public class GameController {
      * - GET /api/games/76561198000000000
      * - GET /api/games/76561198000000000?sortBy=name
      * - GET /api/games/76561198000000000?sortBy=playtime
+     * - GET /api/games/76561198000000000?sortBy=appid
+     * - GET /api/games/76561198000000000?sortBy=neverPlayed
+     *
+     * Paginação (opcional): com limit, offset ou cursor a resposta vira uma página
+     * { items, total_count, offset, limit, sort_by, next_cursor }
+     * - GET /api/games/76561198000000000?limit=100
+     * - GET /api/games/76561198000000000?cursor={next_cursor da página anterior}
+     *
+     * Projeção (opcional, com ou sem paginação): só os campos pedidos
+     * - GET /api/games/76561198000000000?fields=app_id,playtime_forever
+     *
+     * Cache no cliente: a resposta vem com ETag (versão da biblioteca + parâmetros).
+     * Enviando o ETag em If-None-Match, a resposta é 304 sem corpo enquanto nada mudar.
      *
      * @param steamId ID do usuário Steam
-     * @param sortBy Critério de ordenação (opcional): "name" ou "playtime"
-     * @return Lista de jogos em JSON
+     * @param sortBy Critério de ordenação (opcional): "name", "playtime", "appid" ou "neverPlayed"
+     * @param limit Tamanho da página (opcional)
+     * @param offset Posição inicial da página (opcional)
+     * @param cursor Cursor da próxima página (opcional; a ordenação vem do cursor)
+     * @param fields Campos de cada jogo, separados por vírgula (opcional)
+     * @return Lista de jogos (ou página) em JSON (ver withLibrary para o modo async)
      */
     @GetMapping("/{steamId}")
-    public ResponseEntity<List<Game>> getUserGames(
+    public Object getUserGames(
             @PathVariable String steamId,  // Pega o steamId da URL
-            @RequestParam(required = false, defaultValue = "playtime") String sortBy) { // Parâmetro opcional
+            @RequestParam(required = false, defaultValue = "playtime") String sortBy, // Parâmetro opcional
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
+        // Campos pedidos (null = jogo completo)
+        Set<GameField> projection;
+        PageCursor pageCursor;
         try {
-            // Busca os jogos do usuário
-            List<Game> games = steamService.getUserGames(steamId);
+            projection = GameField.parse(fields);
+            pageCursor = cursor != null ? PageCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            // Campo ou cursor inválido: status 400
+            return ResponseEntity.badRequest().build();
+        }
+        if ((limit != null && limit <= 0) || (offset != null && offset < 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Busca a biblioteca do usuário (503 se a Steam API não respondeu)
+        return withLibrary(steamId, "Erro no controller: ", library -> {
+            if (limit != null || offset != null || pageCursor != null) {
+                return getUserGamesPage(library, sortBy, limit, offset, pageCursor, projection, ifNoneMatch);
+            }
 
             // Se não encontrou jogos, retorna lista vazia com status 200
-            if (games.isEmpty()) {
-                return ResponseEntity.ok(games);
+            if (library.isEmpty()) {
+                return ResponseEntity.ok(new ArrayList<>());
+            }
+
+            // Se o cliente já tem esta versão, responde 304 sem montar a lista
+            String etag = etag(library, "list", SortKey.fromParameter(sortBy), projection);
+            if (isNotModified(ifNoneMatch, etag)) {
+                return notModified(etag);
             }
 
-            // Aplica ordenação conforme solicitado
-            List<Game> sortedGames = applySorting(games, sortBy);
+            if (projection != null) {
+                return cacheable(etag).body(steamService.projectGames(library, sortBy, projection));
+            }
 
-            // Retorna a lista ordenada com status 200 (OK)
-            return ResponseEntity.ok(sortedGames);
+            // Retorna a lista ordenada com status 200 (OK), serializada só na primeira vez
+            return serialized(library, "list." + SortKey.fromParameter(sortBy).getParameter(), etag,
+                    () -> applySorting(library, sortBy));
+        });
+    }
 
-        } catch (Exception e) {
-            // Se der erro, retorna status 500 (erro interno)
-            System.err.println("Erro no controller: " + e.getMessage());
-            return ResponseEntity.internalServerError().build();
+    /**
+     * Monta uma página da lista de jogos
+     * Se a biblioteca mudou desde que o cursor foi criado, retorna 409 (o cliente deve recomeçar)
+     */
+    private ResponseEntity<?> getUserGamesPage(CachedLibrary library, String sortBy, Integer limit, Integer offset,
+                                               PageCursor cursor, Set<GameField> projection, String ifNoneMatch) {
+        if (cursor != null && !cursor.version().equals(library.version())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        SortKey sortKey = cursor != null ? cursor.sortKey() : SortKey.fromParameter(sortBy);
+        int start = cursor != null ? cursor.offset() : (offset != null ? offset : 0);
+        int pageSize = Math.min(limit != null ? limit : pageDefaultLimit, pageMaxLimit);
+
+        if (library.isEmpty()) {
+            return ResponseEntity.ok(steamService.getPage(library, sortKey, start, pageSize, projection));
+        }
+        String etag = etag(library, "page." + start + "." + pageSize, sortKey, projection);
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return cacheable(etag).body(steamService.getPage(library, sortKey, start, pageSize, projection));
+    }
+
+    /**
+     * Mesmo endpoint em modo streaming: GET /api/games/{steamId} com "Accept: application/x-ndjson"
+     *
+     * Um jogo por linha, escrito direto na resposta (chunked) enquanto a lista é percorrida.
+     * Útil para bibliotecas muito grandes e exportações: nada da resposta fica montado na memória.
+     * - curl -H "Accept: application/x-ndjson" /api/games/76561198000000000?sortBy=name
+     *
+     * @param steamId ID do usuário Steam
+     * @param sortBy Critério de ordenação (opcional), como no modo JSON
+     * @param fields Campos de cada jogo, separados por vírgula (opcional)
+     * @return Corpo escrito aos poucos no OutputStream da resposta
+     */
+    @GetMapping(value = "/{steamId}", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUserGames(
+            @PathVariable String steamId,
+            @RequestParam(required = false, defaultValue = "playtime") String sortBy,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        Set<GameField> projection;
+        try {
+            projection = GameField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // A biblioteca é buscada antes de começar a escrever, para erros ainda virarem status HTTP
+        LibraryResult result = steamService.getLibraryResult(steamId);
+        if (!result.isAvailable()) {
+            return libraryError(result);
+        }
+        CachedLibrary library = result.library();
+        SortKey sortKey = SortKey.fromParameter(sortBy);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!library.isEmpty()) {
+            String etag = etag(library, "ndjson", sortKey, projection);
+            if (isNotModified(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+            response = cacheable(etag);
         }
+
+        int[] order = library.sortOrder(sortKey);
+        StreamingResponseBody body = out -> GameNdjsonWriter.write(library.library(), order, projection, out);
+        return response
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     /**
@@ -74,17 +269,22 @@ public class GameController {
      * - Total de horas jogadas
      * - Top 5 jogos mais jogados
      * - Jogo mais recentemente adicionado
+     * - Tempo jogado nos últimos N dias (recent_playtime, só com steam.history.enabled=true)
+     *
+     * O generated_at é o momento em que o conteúdo da biblioteca foi montado, então o dashboard
+     * só muda quando a biblioteca muda (ETag + If-None-Match, como na lista)
+     * e o JSON já serializado é reaproveitado entre as requisições
      *
      * @param steamId ID do usuário Steam
      * @return Dashboard com estatísticas
      */
     @GetMapping("/{steamId}/dashboard")
-    public ResponseEntity<DashboardData> getUserDashboard(@PathVariable String steamId) {
-        try {
-            // Busca todos os jogos do usuário
-            List<Game> games = steamService.getUserGames(steamId);
-
-            if (games.isEmpty()) {
+    public Object getUserDashboard(
+            @PathVariable String steamId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Busca todos os jogos do usuário
+        return withLibrary(steamId, "Erro ao gerar dashboard: ", library -> {
+            if (library.isEmpty()) {
                 // Retorna dashboard vazio se não há jogos
                 DashboardData emptyDashboard = new DashboardData(
                         0, 0, 0.0,
@@ -95,17 +295,200 @@ public class GameController {
                 return ResponseEntity.ok(emptyDashboard);
             }
 
-            // Calcula métricas do dashboard
-            DashboardData dashboard = steamService.calculateDashboard(games);
+            // O generated_at faz parte do corpo, então o ETag também depende de quando o conteúdo foi montado
+            // (e da hora atual, com o bloco de tempo recente, que muda conforme a janela anda)
+            String etag = etag(library, "dashboard." + Long.toHexString(library.computedAt()) + historyTag());
+            if (isNotModified(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+
+            // Calcula métricas do dashboard (só se o JSON ainda não foi serializado para este ETag)
+            return serialized(library, "dashboard", etag, () -> {
+                DashboardData dashboard = steamService.calculateDashboard(library);
+                dashboard.setRecentPlaytime(steamService.getRecentPlaytime(steamId, library));
+                return dashboard;
+            });
+        });
+    }
 
-            return ResponseEntity.ok(dashboard);
+    /**
+     * Busca por nome na biblioteca (type-ahead): GET /api/games/{steamId}/search?q=
+     *
+     * Aceita o começo das palavras e erros de digitação:
+     * - /api/games/76561198000000000/search?q=witch - "The Witcher 3: Wild Hunt"
+     * - /api/games/76561198000000000/search?q=wicther - mesmo resultado (1 erro)
+     * - /api/games/76561198000000000/search?q=counter str&limit=5
+     *
+     * @param steamId ID do usuário Steam
+     * @param q Texto digitado
+     * @param limit Quantidade máxima de jogos (padrão 20, máximo 100)
+     * @return Jogos encontrados, do mais relevante para o menos
+     */
+    @GetMapping("/{steamId}/search")
+    public Object searchUserGames(
+            @PathVariable String steamId,
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        if (q.isBlank() || (limit != null && limit <= 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        int maxResults = Math.min(limit != null ? limit : SEARCH_DEFAULT_LIMIT, SEARCH_MAX_LIMIT);
+        return withLibrary(steamId, "Erro na busca por nome: ",
+                library -> ResponseEntity.ok(steamService.searchGames(library, q, maxResults)));
+    }
+
+    /**
+     * Histórico do tempo de jogo: GET /api/games/{steamId}/history
+     *
+     * Amostras (app_id, timestamp, playtime_forever) gravadas sempre que o tempo de um jogo
+     * aumentou entre duas cargas da biblioteca. Lido só do disco, sem chamar a Steam API.
+     * - /api/games/76561198000000000/history?appId=730
+     * - /api/games/76561198000000000/history?from=2026-10-01&to=2026-10-15
+     * - /api/games/76561198000000000/history?from=2026-10-01T18:00:00
+     *
+     * @param steamId ID do usuário Steam
+     * @param appId Só um jogo (opcional)
+     * @param from Início do período: data ou data e hora (opcional, padrão: desde o início)
+     * @param to Fim do período: data (dia inteiro) ou data e hora (opcional, padrão: agora)
+     * @return Amostras em ordem de data (404 se o histórico está desligado)
+     */
+    @GetMapping("/{steamId}/history")
+    public ResponseEntity<PlaytimeHistory> getPlaytimeHistory(
+            @PathVariable String steamId,
+            @RequestParam(required = false) Integer appId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        long fromSeconds;
+        long toSeconds;
+        try {
+            fromSeconds = from != null ? parseTime(from, false) : 0;
+            toSeconds = to != null ? parseTime(to, true) : System.currentTimeMillis() / 1000;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (fromSeconds > toSeconds) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            PlaytimeHistory history = steamService.getPlaytimeHistory(steamId, appId, fromSeconds, toSeconds);
+            return history != null ? ResponseEntity.ok(history) : ResponseEntity.notFound().build();
 
         } catch (Exception e) {
-            System.err.println("Erro ao gerar dashboard: " + e.getMessage());
+            log.error("Erro ao ler histórico de tempo de jogo", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * Endpoint com a visão geral da biblioteca: GET /api/games/{steamId}/overview
+     *
+     * Junta em uma resposta a lista ordenada, o dashboard, as estatísticas detalhadas
+     * e as categorias por tempo de jogo, com uma única busca da biblioteca.
+     * Cada parte pode ser deixada de fora:
+     * - GET /api/games/76561198000000000/overview?sortBy=name
+     * - GET /api/games/76561198000000000/overview?includeGames=false&includeCategories=false
+     *
+     * @param steamId ID do usuário Steam
+     * @param sortBy Critério de ordenação da lista (opcional)
+     * @return Visão geral com as partes pedidas
+     */
+    @GetMapping("/{steamId}/overview")
+    public Object getUserOverview(
+            @PathVariable String steamId,
+            @RequestParam(required = false, defaultValue = "playtime") String sortBy,
+            @RequestParam(defaultValue = "true") boolean includeGames,
+            @RequestParam(defaultValue = "true") boolean includeDashboard,
+            @RequestParam(defaultValue = "true") boolean includeStats,
+            @RequestParam(defaultValue = "true") boolean includeCategories,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return withLibrary(steamId, "Erro ao gerar visão geral: ", library -> {
+            // As partes pedidas e o momento do conteúdo (generated_at do dashboard) fazem parte do ETag
+            int parts = (includeGames ? 1 : 0) | (includeDashboard ? 2 : 0)
+                    | (includeStats ? 4 : 0) | (includeCategories ? 8 : 0);
+            String etag = etag(library, "overview." + parts + "." + Long.toHexString(library.computedAt())
+                    + (includeDashboard ? historyTag() : ""), SortKey.fromParameter(sortBy), null);
+            if (!library.isEmpty() && isNotModified(ifNoneMatch, etag)) {
+                return notModified(etag);
+            }
+
+            OverviewData overview = steamService.getOverview(library, sortBy,
+                    includeGames, includeDashboard, includeStats, includeCategories);
+            if (overview.getDashboard() != null && !library.isEmpty()) {
+                overview.getDashboard().setRecentPlaytime(steamService.getRecentPlaytime(steamId, library));
+            }
+
+            return library.isEmpty() ? ResponseEntity.ok(overview) : cacheable(etag).body(overview);
+        });
+    }
+
+    /**
+     * Endpoint para buscar várias bibliotecas de uma vez: POST /api/games/batch
+     *
+     * Exemplo de corpo:
+     * {
+     *   "steam_ids": ["76561198000000000", "76561198000000001"],
+     *   "include_games": true,
+     *   "include_dashboard": true,
+     *   "sort_by": "playtime"
+     * }
+     *
+     * As buscas rodam em paralelo (com limite de concorrência) e cada SteamID
+     * retorna seu próprio resultado ou erro, sem derrubar o lote inteiro.
+     *
+     * @param request Lista de SteamIDs e opções
+     * @return Um resultado por SteamID, na ordem enviada
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchResult>> getUserGamesBatch(@RequestBody BatchRequest request) {
+        if (request.getSteamIds() == null || request.getSteamIds().isEmpty()
+                || request.getSteamIds().size() > batchMaxIds) {
+            // Lista vazia ou grande demais: status 400 (requisição inválida)
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            List<BatchResult> results = libraryBatchService.getLibraries(
+                    request.getSteamIds(),
+                    request.isIncludeGames(),
+                    request.isIncludeDashboard(),
+                    request.getSortBy());
+            return ResponseEntity.ok(results);
+
+        } catch (Exception e) {
+            log.error("Erro na busca em lote", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Jogos mais populares entre todos os usuários já consultados: GET /api/games/global/top
+     *
+     * Exemplos:
+     * - /api/games/global/top?by=owners&limit=10 - Jogos que mais usuários têm
+     * - /api/games/global/top?by=playtime - Jogos com mais tempo jogado somando todos os usuários
+     *
+     * @param by Critério: "owners" (padrão) ou "playtime"
+     * @param limit Quantidade de jogos (padrão 10, máximo 1000)
+     * @return Ranking com a quantidade de usuários contados
+     */
+    @GetMapping("/global/top")
+    public ResponseEntity<GamePopularityIndex.TopGames> getGlobalTop(
+            @RequestParam(required = false, defaultValue = "owners") String by,
+            @RequestParam(required = false, defaultValue = "10") int limit) {
+        GamePopularityIndex.Ranking ranking;
+        try {
+            ranking = GamePopularityIndex.Ranking.fromParameter(by);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(steamService.getGlobalTop(ranking, Math.min(limit, GLOBAL_TOP_MAX_LIMIT)));
+    }
+
     /**
      * Endpoint de teste: GET /api/games/test
      * Útil para verificar se a API está funcionando
@@ -124,22 +507,208 @@ public class GameController {
                 "Steam Game Viewer API",
                 "1.0.0",
                 "API para visualizar biblioteca de jogos Steam",
-                "/api/games/{steamId}?sortBy=name|playtime"
+                "/api/games/{steamId}?sortBy=name|playtime|appid|neverPlayed"
         );
         return ResponseEntity.ok(info);
     }
 
     /**
-     * Aplica a ordenação solicitada na lista de jogos
+     * Aplica a ordenação solicitada na biblioteca
+     * A ordenação fica guardada junto com a biblioteca no cache, então só é calculada no primeiro pedido
+     */
+    private List<Game> applySorting(CachedLibrary library, String sortBy) {
+        return steamService.sortGames(library, sortBy);
+    }
+
+    /**
+     * ETag forte de uma resposta: versão da biblioteca + forma da resposta
+     * (o mesmo conteúdo com outra ordenação ou outros campos é outra resposta)
+     */
+    private static String etag(CachedLibrary library, String view, SortKey sortKey, Set<GameField> fields) {
+        String fieldsTag = "all";
+        if (fields != null) {
+            int mask = 0;
+            for (GameField field : fields) {
+                mask |= 1 << field.ordinal();
+            }
+            fieldsTag = Integer.toHexString(mask);
+        }
+        return etag(library, view + "." + sortKey.getParameter() + "." + fieldsTag);
+    }
+
+    private static String etag(CachedLibrary library, String view) {
+        return "\"" + library.version() + "-" + view + "\"";
+    }
+
+    /**
+     * Confere se algum ETag do If-None-Match é o da resposta atual
+     * A comparação ignora o prefixo W/ (o Tomcat enfraquece o ETag quando comprime a resposta)
+     */
+    private static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busca a biblioteca e monta a resposta com ela, conforme steam.execution.mode
+     *
+     * - blocking: a thread da requisição espera a Steam API e a resposta é um ResponseEntity
+     * - async: com a biblioteca no cache a resposta sai na hora (ResponseEntity); senão a thread
+     *   da requisição é liberada e a resposta sai quando a busca terminar (DeferredResult).
+     *   Se o tempo da requisição esgotar (503 + Retry-After) ou o cliente desconectar,
+     *   a busca é cancelada, junto com a chamada em andamento para a Steam API
+     *
+     * @param errorMessage Prefixo da mensagem de erro (resposta 500)
+     * @param handler Monta a resposta a partir da biblioteca
+     * @return ResponseEntity ou DeferredResult (o Spring trata os dois pelo tipo do valor retornado)
+     */
+    private Object withLibrary(String steamId, String errorMessage,
+                               Function<CachedLibrary, ResponseEntity<?>> handler) {
+        if (!"async".equalsIgnoreCase(executionMode)) {
+            return respond(() -> steamService.getLibraryResult(steamId), errorMessage, handler);
+        }
+
+        CompletableFuture<LibraryResult> future = steamService.getLibraryResultAsync(steamId);
+        if (future.isDone()) {
+            return respond(future::join, errorMessage, handler);
+        }
+
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(requestTimeoutMs);
+        deferred.onTimeout(() -> {
+            future.cancel(true);
+            deferred.setResult(libraryError(LibraryResult.unavailable(REQUEST_TIMEOUT_RETRY_AFTER_SECONDS)));
+        });
+        // Cliente desconectou (ou outro erro no processamento assíncrono)
+        deferred.onError(error -> future.cancel(true));
+        future.whenComplete((result, error) -> {
+            if (!future.isCancelled()) {
+                deferred.setResult(respond(future::join, errorMessage, handler));
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * Monta a resposta: erro da biblioteca (404/503), a resposta do handler ou 500 se algo falhar
+     */
+    private static ResponseEntity<?> respond(Supplier<LibraryResult> library, String errorMessage,
+                                             Function<CachedLibrary, ResponseEntity<?>> handler) {
+        try {
+            LibraryResult result = library.get();
+            if (!result.isAvailable()) {
+                return libraryError(result);
+            }
+            return handler.apply(result.library());
+
+        } catch (Exception e) {
+            log.error("{}{}", errorMessage, e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Resposta 200 com o JSON guardado na biblioteca do cache
+     *
+     * Para perfis muito acessados, a maior parte do tempo de uma resposta ia para o Jackson
+     * serializar de novo a mesma lista ou o mesmo dashboard. Os bytes ficam junto com a biblioteca
+     * (ver CachedLibrary), valem enquanto o ETag for o mesmo e somem quando a biblioteca muda.
+     *
+     * @param view Visão da resposta (uma por visão em cada biblioteca)
+     * @param body Monta o objeto da resposta (só chamado se os bytes não estão guardados)
+     */
+    private ResponseEntity<?> serialized(CachedLibrary library, String view, String etag, Supplier<Object> body) {
+        if (!serializedCacheEnabled) {
+            return cacheable(etag).body(body.get());
+        }
+        byte[] bytes = library.serializedResponse(view, etag);
+        if (bytes == null) {
+            try {
+                bytes = objectMapper.writeValueAsBytes(body.get());
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Erro ao serializar a resposta: " + e.getMessage(), e);
+            }
+            library.storeSerializedResponse(view, etag, bytes);
+        }
+        return cacheable(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(bytes);
+    }
+
+    /**
+     * Resposta 304: sem corpo, o cliente reaproveita a que já tem
+     */
+    private <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl())
+                .build();
+    }
+
+    /**
+     * Resposta quando não há biblioteca para mostrar
+     * - 404 se o nome customizado não existe
+     * - 503 se a Steam API está indisponível ou limitando as chamadas; o Retry-After diz
+     *   quando tentar de novo (antes a resposta era um 200 com lista vazia)
+     */
+    private static <T> ResponseEntity<T> libraryError(LibraryResult result) {
+        if (result.status() == LibraryResult.Status.NOT_FOUND) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(result.retryAfterSeconds()))
+                .build();
+    }
+
+    /**
+     * Resposta 200 com ETag e Cache-Control
+     */
+    private ResponseEntity.BodyBuilder cacheable(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl());
+    }
+
+    /**
+     * O cliente pode guardar a resposta (só ele, não proxies), mas deve revalidar com o ETag depois do max-age
+     */
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS)
+                .cachePrivate()
+                .mustRevalidate();
+    }
+
+    /**
+     * Parte do ETag que depende da hora atual (o bloco de tempo recente do dashboard muda a cada hora)
+     */
+    private String historyTag() {
+        return steamService.isHistoryEnabled() ? "." + Long.toHexString(steamService.historyWindowHour()) : "";
+    }
+
+    /**
+     * Converte "2026-10-01" ou "2026-10-01T18:00:00" (horário local) em segundos desde 1970
+     * @param endOfDay Se só a data foi informada, usa o fim do dia em vez do início
+     * @throws DateTimeParseException se o formato for inválido
      */
-    private List<Game> applySorting(List<Game> games, String sortBy) {
-        switch (sortBy.toLowerCase()) {
-            case "name":
-                return steamService.sortByName(games);
-            case "playtime":
-            default:
-                return steamService.sortByPlaytime(games);
+    private static long parseTime(String value, boolean endOfDay) {
+        LocalDateTime time;
+        if (value.contains("T")) {
+            time = LocalDateTime.parse(value);
+        } else {
+            LocalDate date = LocalDate.parse(value);
+            time = endOfDay ? date.atTime(LocalTime.MAX) : date.atStartOfDay();
         }
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond();
     }
 
     /**
@@ -152,6 +721,7 @@ public class GameController {
         private List<Game> top5MostPlayed;
         private Game mostRecentGame;
         private String generatedAt;
+        private RecentPlaytime recentPlaytime;
 
         public DashboardData(int totalGames, int totalMinutes, double totalHours,
                              List<Game> top5MostPlayed, Game mostRecentGame, String generatedAt) {
@@ -170,6 +740,7 @@ public class GameController {
         public List<Game> getTop5MostPlayed() { return top5MostPlayed; }
         public Game getMostRecentGame() { return mostRecentGame; }
         public String getGeneratedAt() { return generatedAt; }
+        public RecentPlaytime getRecentPlaytime() { return recentPlaytime; }
 
         // Setters
         public void setTotalGames(int totalGames) { this.totalGames = totalGames; }
@@ -178,6 +749,222 @@ public class GameController {
         public void setTop5MostPlayed(List<Game> top5MostPlayed) { this.top5MostPlayed = top5MostPlayed; }
         public void setMostRecentGame(Game mostRecentGame) { this.mostRecentGame = mostRecentGame; }
         public void setGeneratedAt(String generatedAt) { this.generatedAt = generatedAt; }
+        public void setRecentPlaytime(RecentPlaytime recentPlaytime) { this.recentPlaytime = recentPlaytime; }
+    }
+
+    /**
+     * Classe para o bloco "tempo jogado nos últimos N dias" do dashboard
+     * "since" é o início efetivo da janela (mais tarde, se o histórico do usuário começou depois)
+     */
+    public static class RecentPlaytime {
+        private final int days;
+        private final String since;
+        private final long totalMinutes;
+        private final List<RecentGame> topGames;
+
+        public RecentPlaytime(int days, String since, long totalMinutes, List<RecentGame> topGames) {
+            this.days = days;
+            this.since = since;
+            this.totalMinutes = totalMinutes;
+            this.topGames = topGames;
+        }
+
+        // Getters
+        public int getDays() { return days; }
+        public String getSince() { return since; }
+        public long getTotalMinutes() { return totalMinutes; }
+        public List<RecentGame> getTopGames() { return topGames; }
+
+        public double getTotalHours() {
+            return totalMinutes / 60.0;
+        }
+    }
+
+    /**
+     * Classe para um jogo do bloco de tempo recente (minutos ganhos na janela)
+     */
+    public static class RecentGame {
+        private final int appId;
+        private final String name;
+        private final int minutes;
+
+        public RecentGame(int appId, String name, int minutes) {
+            this.appId = appId;
+            this.name = name;
+            this.minutes = minutes;
+        }
+
+        // Getters
+        public int getAppId() { return appId; }
+        public String getName() { return name; }
+        public int getMinutes() { return minutes; }
+    }
+
+    /**
+     * Classe para retornar o histórico de tempo de jogo
+     * "truncated" indica que o período tinha mais amostras que o máximo de uma resposta
+     */
+    public static class PlaytimeHistory {
+        private final String steamId;
+        private final Integer appId;
+        private final String from;
+        private final String to;
+        private final List<HistoryPoint> samples;
+        private final boolean truncated;
+
+        public PlaytimeHistory(String steamId, Integer appId, String from, String to,
+                               List<HistoryPoint> samples, boolean truncated) {
+            this.steamId = steamId;
+            this.appId = appId;
+            this.from = from;
+            this.to = to;
+            this.samples = samples;
+            this.truncated = truncated;
+        }
+
+        // Getters
+        public String getSteamId() { return steamId; }
+        public Integer getAppId() { return appId; }
+        public String getFrom() { return from; }
+        public String getTo() { return to; }
+        public List<HistoryPoint> getSamples() { return samples; }
+        public boolean isTruncated() { return truncated; }
+    }
+
+    /**
+     * Classe para uma amostra do histórico
+     */
+    public static class HistoryPoint {
+        private final int appId;
+        private final String timestamp;
+        private final int playtimeForever;
+
+        public HistoryPoint(int appId, String timestamp, int playtimeForever) {
+            this.appId = appId;
+            this.timestamp = timestamp;
+            this.playtimeForever = playtimeForever;
+        }
+
+        // Getters
+        public int getAppId() { return appId; }
+        public String getTimestamp() { return timestamp; }
+        public int getPlaytimeForever() { return playtimeForever; }
+    }
+
+    /**
+     * Classe para uma página da lista de jogos
+     * "next_cursor" não aparece na última página
+     */
+    public static class GamePage {
+        private List<?> items;
+        private int totalCount;
+        private int offset;
+        private int limit;
+        private String sortBy;
+        private String nextCursor;
+
+        public GamePage(List<?> items, int totalCount, int offset, int limit, String sortBy, String nextCursor) {
+            this.items = items;
+            this.totalCount = totalCount;
+            this.offset = offset;
+            this.limit = limit;
+            this.sortBy = sortBy;
+            this.nextCursor = nextCursor;
+        }
+
+        // Getters
+        public List<?> getItems() { return items; }
+        public int getTotalCount() { return totalCount; }
+        public int getOffset() { return offset; }
+        public int getLimit() { return limit; }
+        public String getSortBy() { return sortBy; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    /**
+     * Classe para a visão geral da biblioteca
+     * As partes que não foram pedidas ficam null e não aparecem no JSON
+     */
+    public static class OverviewData {
+        private List<Game> games;
+        private DashboardData dashboard;
+        private Map<String, Object> stats;
+        private Map<String, List<Game>> categories;
+
+        public OverviewData(List<Game> games, DashboardData dashboard,
+                            Map<String, Object> stats, Map<String, List<Game>> categories) {
+            this.games = games;
+            this.dashboard = dashboard;
+            this.stats = stats;
+            this.categories = categories;
+        }
+
+        // Getters
+        public List<Game> getGames() { return games; }
+        public DashboardData getDashboard() { return dashboard; }
+        public Map<String, Object> getStats() { return stats; }
+        public Map<String, List<Game>> getCategories() { return categories; }
+    }
+
+    /**
+     * Classe para o corpo da requisição de lote
+     */
+    public static class BatchRequest {
+        private List<String> steamIds;
+        private boolean includeGames = true;
+        private boolean includeDashboard = false;
+        private String sortBy = "playtime";
+
+        // Getters
+        public List<String> getSteamIds() { return steamIds; }
+        public boolean isIncludeGames() { return includeGames; }
+        public boolean isIncludeDashboard() { return includeDashboard; }
+        public String getSortBy() { return sortBy; }
+
+        // Setters
+        public void setSteamIds(List<String> steamIds) { this.steamIds = steamIds; }
+        public void setIncludeGames(boolean includeGames) { this.includeGames = includeGames; }
+        public void setIncludeDashboard(boolean includeDashboard) { this.includeDashboard = includeDashboard; }
+        public void setSortBy(String sortBy) { this.sortBy = sortBy; }
+    }
+
+    /**
+     * Classe para o resultado de um SteamID dentro do lote
+     * Campos nulos não aparecem no JSON (ex: "error" quando deu certo)
+     */
+    public static class BatchResult {
+        private String steamId;
+        private String status;
+        private Integer gameCount;
+        private List<Game> games;
+        private DashboardData dashboard;
+        private String error;
+
+        public BatchResult(String steamId, String status, Integer gameCount,
+                           List<Game> games, DashboardData dashboard, String error) {
+            this.steamId = steamId;
+            this.status = status;
+            this.gameCount = gameCount;
+            this.games = games;
+            this.dashboard = dashboard;
+            this.error = error;
+        }
+
+        public static BatchResult ok(String steamId, int gameCount, List<Game> games, DashboardData dashboard) {
+            return new BatchResult(steamId, "ok", gameCount, games, dashboard, null);
+        }
+
+        public static BatchResult error(String steamId, String error) {
+            return new BatchResult(steamId, "error", null, null, null, error);
+        }
+
+        // Getters
+        public String getSteamId() { return steamId; }
+        public String getStatus() { return status; }
+        public Integer getGameCount() { return gameCount; }
+        public List<Game> getGames() { return games; }
+        public DashboardData getDashboard() { return dashboard; }
+        public String getError() { return error; }
     }
 
     /**
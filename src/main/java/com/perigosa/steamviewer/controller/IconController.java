@@ -0,0 +1,142 @@
+package com.perigosa.steamviewer.controller;
+
+import com.perigosa.steamviewer.config.UpstreamThrottledException;
+import com.perigosa.steamviewer.service.IconCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller que serve os ícones dos jogos a partir do cache em disco
+ *
+ * GET /api/icons/{appId}/{hash}.jpg
+ *
+ * O arquivo vai do disco para o socket sem passar pela memória da aplicação:
+ * - no Tomcat, com sendfile (o Tomcat abre e envia o arquivo depois que o método retorna;
+ *   o IconCache demora para apagar os ícones que saem do LRU, então o arquivo ainda existe)
+ * - nos demais servidores, com FileChannel.transferTo
+ *
+ * Como o hash faz parte da URL, o conteúdo nunca muda e o navegador pode
+ * guardar o ícone por um ano sem revalidar (Cache-Control immutable).
+ */
+@RestController
+@RequestMapping("/api/icons")
+@CrossOrigin(origins = "*")
+public class IconController {
+
+    private static final Logger log = LoggerFactory.getLogger(IconController.class);
+
+    // Atributos do Tomcat para enviar um arquivo com sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Cache-Control dos ícones: um ano, sem revalidação
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic().immutable().getHeaderValue();
+
+    @Autowired
+    private IconCache iconCache;
+
+    /**
+     * Ícone de um jogo: GET /api/icons/{appId}/{hash}.jpg
+     * Responde 404 se o cache está desligado ou a Steam não tem o ícone,
+     * 502 se não foi possível baixá-lo e 503 (Retry-After) se o limite de taxa não liberou o download
+     */
+    @GetMapping("/{appId}/{hash}.jpg")
+    public void getIcon(@PathVariable int appId, @PathVariable String hash,
+                        HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!iconCache.isEnabled() || !IconCache.isValidHash(hash)) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        // O hash identifica o conteúdo, então serve de ETag
+        String etag = "\"" + hash + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        Path file;
+        FileChannel opened;
+        try {
+            file = iconCache.get(appId, hash);
+            opened = open(file);
+            if (file != null && opened == null) {
+                // Arquivo apagado por fora: baixa de novo
+                iconCache.forget(appId, hash);
+                file = iconCache.get(appId, hash);
+                opened = file != null ? FileChannel.open(file, StandardOpenOption.READ) : null;
+            }
+        } catch (UpstreamThrottledException e) {
+            response.reset();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        } catch (IOException e) {
+            log.warn("Erro ao baixar o ícone {}/{}: {}", appId, hash, e.getMessage());
+            response.reset();
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+            return;
+        }
+        if (opened == null) {
+            response.reset();
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        try (FileChannel channel = opened) {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * Abre o arquivo do ícone
+     * @return Canal aberto, ou null se não há arquivo (ícone inexistente ou apagado do disco)
+     */
+    private static FileChannel open(Path file) throws IOException {
+        if (file == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
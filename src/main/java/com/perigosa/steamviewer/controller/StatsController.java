@@ -0,0 +1,103 @@
+package com.perigosa.steamviewer.controller;
+
+import com.perigosa.steamviewer.config.UpstreamGuard;
+import com.perigosa.steamviewer.config.UpstreamHttpInterceptor;
+import com.perigosa.steamviewer.service.IconCache;
+import com.perigosa.steamviewer.service.LibraryCache;
+import com.perigosa.steamviewer.service.LibrarySnapshotStore;
+import com.perigosa.steamviewer.service.PlaytimeHistoryStore;
+import com.perigosa.steamviewer.service.SteamIdResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Controller REST com estatísticas internas da aplicação
+ *
+ * Usado para acompanhar e dimensionar os caches (ex: taxa de acerto, remoções)
+ * e as chamadas para a Steam API
+ */
+@RestController
+@RequestMapping("/api/stats")
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    @Autowired
+    private LibraryCache libraryCache;
+
+    @Autowired
+    private LibrarySnapshotStore snapshotStore;
+
+    @Autowired
+    private PlaytimeHistoryStore historyStore;
+
+    @Autowired
+    private SteamIdResolver steamIdResolver;
+
+    @Autowired
+    private IconCache iconCache;
+
+    @Autowired
+    private UpstreamHttpInterceptor upstreamHttpInterceptor;
+
+    @Autowired
+    private UpstreamGuard upstreamGuard;
+
+    /**
+     * Contadores do cache de bibliotecas: GET /api/stats/cache
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<LibraryCache.CacheStats> getCacheStats() {
+        return ResponseEntity.ok(libraryCache.getStats());
+    }
+
+    /**
+     * Contadores do cache de nomes customizados (acertos positivos e negativos): GET /api/stats/vanity
+     */
+    @GetMapping("/vanity")
+    public ResponseEntity<SteamIdResolver.VanityStats> getVanityStats() {
+        return ResponseEntity.ok(steamIdResolver.getStats());
+    }
+
+    /**
+     * Contadores do cache de ícones em disco (arquivos, bytes, remoções): GET /api/stats/icons
+     */
+    @GetMapping("/icons")
+    public ResponseEntity<IconCache.IconStats> getIconStats() {
+        return ResponseEntity.ok(iconCache.getStats());
+    }
+
+    /**
+     * Estado do arquivo de snapshots em disco: GET /api/stats/snapshot
+     */
+    @GetMapping("/snapshot")
+    public ResponseEntity<LibrarySnapshotStore.SnapshotStats> getSnapshotStats() {
+        return ResponseEntity.ok(snapshotStore.getStats());
+    }
+
+    /**
+     * Tamanho do histórico de tempo de jogo (usuários, amostras, segmentos): GET /api/stats/history
+     */
+    @GetMapping("/history")
+    public ResponseEntity<PlaytimeHistoryStore.HistoryStats> getHistoryStats() {
+        return ResponseEntity.ok(historyStore.getStats());
+    }
+
+    /**
+     * Requisições em andamento e latência das chamadas para a Steam API, por host: GET /api/stats/upstream
+     */
+    @GetMapping("/upstream")
+    public ResponseEntity<Map<String, UpstreamHttpInterceptor.HostStats>> getUpstreamStats() {
+        return ResponseEntity.ok(upstreamHttpInterceptor.getStats());
+    }
+
+    /**
+     * Limite de taxa, circuit breaker e concorrência das chamadas para a Steam API: GET /api/stats/guard
+     */
+    @GetMapping("/guard")
+    public ResponseEntity<UpstreamGuard.GuardStats> getGuardStats() {
+        return ResponseEntity.ok(upstreamGuard.getStats());
+    }
+}
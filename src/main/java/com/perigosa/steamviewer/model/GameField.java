@@ -0,0 +1,128 @@
+package com.perigosa.steamviewer.model;
+
+import java.util.AbstractList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Campos de um jogo que podem ser pedidos no parâmetro "fields" (projeção)
+ *
+ * Os nomes são os mesmos do JSON de Game (snake_case); o nome em camelCase também é aceito.
+ * Os valores são lidos direto da GameLibrary, sem criar o objeto Game.
+ */
+public enum GameField {
+
+    APP_ID("app_id", "appId", "appid") {
+        @Override
+        public Object valueAt(GameLibrary library, int index) {
+            return String.valueOf(library.appIdAt(index));
+        }
+    },
+    NAME("name", "name", "name") {
+        @Override
+        public Object valueAt(GameLibrary library, int index) {
+            return library.nameAt(index);
+        }
+    },
+    PLAYTIME_FOREVER("playtime_forever", "playtimeForever", "playtime") {
+        @Override
+        public Object valueAt(GameLibrary library, int index) {
+            return library.playtimeAt(index);
+        }
+    },
+    IMG_ICON_URL("img_icon_url", "imgIconUrl", "icon") {
+        @Override
+        public Object valueAt(GameLibrary library, int index) {
+            return library.iconUrlAt(index);
+        }
+    },
+    PLAYTIME_HOURS("playtime_hours", "playtimeHours", "hours") {
+        @Override
+        public Object valueAt(GameLibrary library, int index) {
+            return library.playtimeAt(index) / 60.0;
+        }
+    };
+
+    // Nome no JSON
+    private final String jsonName;
+
+    // Outros nomes aceitos no parâmetro
+    private final String camelName;
+    private final String shortName;
+
+    GameField(String jsonName, String camelName, String shortName) {
+        this.jsonName = jsonName;
+        this.camelName = camelName;
+        this.shortName = shortName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Valor do campo para o jogo da posição informada
+     */
+    public abstract Object valueAt(GameLibrary library, int index);
+
+    /**
+     * Lê o parâmetro "fields" (nomes separados por vírgula)
+     * @return Campos pedidos, ou null se o parâmetro não foi informado (todos os campos)
+     * @throws IllegalArgumentException se algum campo não existir
+     */
+    public static Set<GameField> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<GameField> selected = EnumSet.noneOf(GameField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                selected.add(fromName(trimmed));
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Monta o objeto JSON de um jogo só com os campos pedidos (na ordem do enum)
+     */
+    public static Map<String, Object> project(GameLibrary library, int index, Set<GameField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (GameField field : fields) {
+            values.put(field.jsonName, field.valueAt(library, index));
+        }
+        return values;
+    }
+
+    /**
+     * Lista com a projeção dos jogos na ordem informada
+     * Cada objeto só é montado quando é lido (ex: na serialização)
+     */
+    public static List<Map<String, Object>> project(GameLibrary library, int[] order, Set<GameField> fields) {
+        return new AbstractList<>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return project(library, order[index], fields);
+            }
+
+            @Override
+            public int size() {
+                return order.length;
+            }
+        };
+    }
+
+    private static GameField fromName(String name) {
+        for (GameField field : values()) {
+            if (field.jsonName.equalsIgnoreCase(name) || field.camelName.equalsIgnoreCase(name)
+                    || field.shortName.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Campo desconhecido: " + name);
+    }
+}
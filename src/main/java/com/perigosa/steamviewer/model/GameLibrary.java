@@ -0,0 +1,365 @@
+package com.perigosa.steamviewer.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Representação compacta de uma biblioteca de jogos
+ *
+ * Em vez de um objeto Game por jogo (com appId em String e a URL do ícone já montada),
+ * guarda os dados em arrays paralelos:
+ * - appIds e playtimes em int[]
+ * - nomes em String[] (as instâncias são compartilhadas entre bibliotecas, ver GameNameTable)
+ * - hash do ícone como 20 bytes crus por jogo
+ *
+ * Objetos Game só são criados quando necessário (ex: na serialização JSON),
+ * e a URL do ícone é montada nesse momento.
+ *
+ * A biblioteca é imutável: os arrays nunca são alterados depois de criados.
+ */
+public final class GameLibrary {
+
+    // Tamanho do hash do ícone (SHA-1) em bytes
+    public static final int ICON_HASH_BYTES = 20;
+
+    private static final GameLibrary EMPTY = new GameLibrary(new int[0], new int[0], new String[0],
+            new byte[0], new long[0], null, "");
+
+    private final int[] appIds;
+    private final int[] playtimes;
+    private final String[] names;
+
+    // Hash do ícone de cada jogo (ICON_HASH_BYTES por jogo) e quais jogos têm ícone
+    private final byte[] iconHashes;
+    private final long[] iconPresent;
+
+    // Ícones fora do formato esperado (raro), guardados como texto: índice -> hash
+    private final Map<Integer, String> irregularIcons;
+
+    // Prefixo das URLs de ícone (uma única instância compartilhada)
+    private final String iconBaseUrl;
+
+    private GameLibrary(int[] appIds, int[] playtimes, String[] names, byte[] iconHashes,
+                        long[] iconPresent, Map<Integer, String> irregularIcons, String iconBaseUrl) {
+        this.appIds = appIds;
+        this.playtimes = playtimes;
+        this.names = names;
+        this.iconHashes = iconHashes;
+        this.iconPresent = iconPresent;
+        this.irregularIcons = irregularIcons;
+        this.iconBaseUrl = iconBaseUrl;
+    }
+
+    public static GameLibrary empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder(int expectedSize, String iconBaseUrl) {
+        return new Builder(expectedSize, iconBaseUrl);
+    }
+
+    // Quantidade de jogos
+    public int size() {
+        return appIds.length;
+    }
+
+    public boolean isEmpty() {
+        return appIds.length == 0;
+    }
+
+    public int appIdAt(int index) {
+        return appIds[index];
+    }
+
+    public int playtimeAt(int index) {
+        return playtimes[index];
+    }
+
+    public String nameAt(int index) {
+        return names[index];
+    }
+
+    public boolean hasIcon(int index) {
+        return (iconPresent[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Copia os 20 bytes do hash do ícone para o array informado
+     * @return false se o jogo não tem ícone no formato padrão
+     */
+    public boolean copyIconHash(int index, byte[] target) {
+        if (!hasIcon(index)) {
+            return false;
+        }
+        System.arraycopy(iconHashes, index * ICON_HASH_BYTES, target, 0, ICON_HASH_BYTES);
+        return true;
+    }
+
+    /**
+     * Hash do ícone em texto (hexadecimal), ou null se o jogo não tem ícone
+     */
+    public String iconHashAt(int index) {
+        if (hasIcon(index)) {
+            return toHex(iconHashes, index * ICON_HASH_BYTES, ICON_HASH_BYTES);
+        }
+        return irregularIcons == null ? null : irregularIcons.get(index);
+    }
+
+    /**
+     * Monta a URL completa do ícone (ou "" se não tiver ícone)
+     * Formato: {iconBaseUrl}{appid}/{hash}.jpg
+     */
+    public String iconUrlAt(int index) {
+        String hash = iconHashAt(index);
+        if (hash == null) {
+            return "";
+        }
+        return iconBaseUrl + appIds[index] + "/" + hash + ".jpg";
+    }
+
+    /**
+     * Cria um objeto Game para o jogo da posição informada
+     */
+    public Game toGame(int index) {
+        return new Game(String.valueOf(appIds[index]), names[index], playtimes[index], iconUrlAt(index));
+    }
+
+    /**
+     * Lista de Game na ordem original (os objetos são criados à medida que são lidos)
+     */
+    public List<Game> asList() {
+        return new GameListView(this, null);
+    }
+
+    /**
+     * Lista de Game na ordem informada (permutação de índices)
+     */
+    public List<Game> asList(int[] order) {
+        return new GameListView(this, order);
+    }
+
+    /**
+     * Nova biblioteca com outros tempos de jogo (os demais arrays são compartilhados)
+     */
+    public GameLibrary withPlaytimes(int[] newPlaytimes) {
+        if (newPlaytimes.length != appIds.length) {
+            throw new IllegalArgumentException("Quantidade de tempos diferente da quantidade de jogos");
+        }
+        return new GameLibrary(appIds, newPlaytimes.clone(), names, iconHashes, iconPresent, irregularIcons, iconBaseUrl);
+    }
+
+    /**
+     * Mesma biblioteca com outro prefixo nas URLs de ícone (os arrays são compartilhados)
+     */
+    public GameLibrary withIconBaseUrl(String newIconBaseUrl) {
+        if (this == EMPTY || newIconBaseUrl.equals(iconBaseUrl)) {
+            return this;
+        }
+        return new GameLibrary(appIds, playtimes, names, iconHashes, iconPresent, irregularIcons, newIconBaseUrl);
+    }
+
+    /**
+     * Cópia dos tempos de jogo (para quem precisa alterar e criar uma nova biblioteca)
+     */
+    public int[] copyPlaytimes() {
+        return playtimes.clone();
+    }
+
+    /**
+     * Hash (SHA-256, 128 bits em hexadecimal) de todo o conteúdo da biblioteca
+     * Duas bibliotecas com os mesmos jogos, na mesma ordem, têm o mesmo hash
+     * Percorre tudo: quem usa com frequência deve guardar o resultado (ver CachedLibrary)
+     */
+    public String contentHash() {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        for (int i = 0; i < appIds.length; i++) {
+            buffer.clear();
+            buffer.putInt(appIds[i]).putInt(playtimes[i]).putInt(names[i] == null ? -1 : names[i].length());
+            digest.update(buffer.array());
+            if (names[i] != null) {
+                digest.update(names[i].getBytes(StandardCharsets.UTF_8));
+            }
+            String irregular = irregularIcons == null ? null : irregularIcons.get(i);
+            if (irregular != null) {
+                digest.update(irregular.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        digest.update(iconHashes);
+        for (long present : iconPresent) {
+            buffer.clear();
+            buffer.putLong(present);
+            digest.update(buffer.array(), 0, 8);
+        }
+        if (iconBaseUrl != null) {
+            digest.update(iconBaseUrl.getBytes(StandardCharsets.UTF_8));
+        }
+        return toHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * Estimativa do espaço ocupado pelos arrays (sem contar os nomes compartilhados)
+     */
+    public long estimatedBytes() {
+        return 4L * appIds.length + 4L * playtimes.length + 4L * names.length
+                + iconHashes.length + 8L * iconPresent.length + 5 * 16;
+    }
+
+    private static String toHex(byte[] bytes, int offset, int length) {
+        byte[] hex = new byte[length * 2];
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[offset + i];
+            hex[i * 2] = (byte) Character.forDigit((b >> 4) & 0xF, 16);
+            hex[i * 2 + 1] = (byte) Character.forDigit(b & 0xF, 16);
+        }
+        return new String(hex, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Visão da biblioteca como List<Game>, sem copiar os dados
+     * Implementa RandomAccess para que o Jackson percorra por índice
+     */
+    private static final class GameListView extends AbstractList<Game> implements RandomAccess {
+        private final GameLibrary library;
+        private final int[] order;
+
+        GameListView(GameLibrary library, int[] order) {
+            this.library = library;
+            this.order = order;
+        }
+
+        @Override
+        public Game get(int index) {
+            return library.toGame(order == null ? index : order[index]);
+        }
+
+        @Override
+        public int size() {
+            return order == null ? library.size() : order.length;
+        }
+    }
+
+    /**
+     * Monta uma biblioteca jogo a jogo (usado pelo parser da Steam API e pelo snapshot em disco)
+     */
+    public static final class Builder {
+        private final String iconBaseUrl;
+        private int[] appIds;
+        private int[] playtimes;
+        private String[] names;
+        private byte[] iconHashes;
+        private long[] iconPresent;
+        private Map<Integer, String> irregularIcons;
+        private int size;
+
+        private Builder(int expectedSize, String iconBaseUrl) {
+            int capacity = Math.max(expectedSize, 8);
+            this.iconBaseUrl = iconBaseUrl;
+            this.appIds = new int[capacity];
+            this.playtimes = new int[capacity];
+            this.names = new String[capacity];
+            this.iconHashes = new byte[capacity * ICON_HASH_BYTES];
+            this.iconPresent = new long[(capacity + 63) >>> 6];
+        }
+
+        /**
+         * Adiciona um jogo com o hash do ícone em texto, como vem da Steam API
+         */
+        public Builder add(int appId, String name, int playtime, String iconHash) {
+            int index = append(appId, name, playtime);
+            String hash = iconHash == null ? "" : iconHash.trim();
+            if (hash.isEmpty() || "undefined".equals(hash)) {
+                return this;
+            }
+            if (isLowerHexHash(hash)) {
+                for (int i = 0; i < ICON_HASH_BYTES; i++) {
+                    iconHashes[index * ICON_HASH_BYTES + i] = (byte) Integer.parseInt(hash, i * 2, i * 2 + 2, 16);
+                }
+                iconPresent[index >>> 6] |= 1L << index;
+            } else {
+                if (irregularIcons == null) {
+                    irregularIcons = new HashMap<>();
+                }
+                irregularIcons.put(index, hash);
+            }
+            return this;
+        }
+
+        /**
+         * Adiciona um jogo com o hash do ícone já em bytes (ou null se não tiver ícone)
+         */
+        public Builder addRaw(int appId, String name, int playtime, byte[] iconHash) {
+            int index = append(appId, name, playtime);
+            if (iconHash != null) {
+                System.arraycopy(iconHash, 0, iconHashes, index * ICON_HASH_BYTES, ICON_HASH_BYTES);
+                iconPresent[index >>> 6] |= 1L << index;
+            }
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public GameLibrary build() {
+            if (size == 0) {
+                return new GameLibrary(new int[0], new int[0], new String[0], new byte[0], new long[0], null, iconBaseUrl);
+            }
+            return new GameLibrary(
+                    Arrays.copyOf(appIds, size),
+                    Arrays.copyOf(playtimes, size),
+                    Arrays.copyOf(names, size),
+                    Arrays.copyOf(iconHashes, size * ICON_HASH_BYTES),
+                    Arrays.copyOf(iconPresent, (size + 63) >>> 6),
+                    irregularIcons,
+                    iconBaseUrl);
+        }
+
+        private int append(int appId, String name, int playtime) {
+            if (size == appIds.length) {
+                grow();
+            }
+            int index = size++;
+            appIds[index] = appId;
+            playtimes[index] = playtime;
+            names[index] = name;
+            return index;
+        }
+
+        private void grow() {
+            int capacity = appIds.length * 2;
+            appIds = Arrays.copyOf(appIds, capacity);
+            playtimes = Arrays.copyOf(playtimes, capacity);
+            names = Arrays.copyOf(names, capacity);
+            iconHashes = Arrays.copyOf(iconHashes, capacity * ICON_HASH_BYTES);
+            iconPresent = Arrays.copyOf(iconPresent, (capacity + 63) >>> 6);
+        }
+
+        // Só aceita hex minúsculo, para que a volta (bytes -> texto) gere exatamente o mesmo hash
+        private static boolean isLowerHexHash(String value) {
+            if (value.length() != ICON_HASH_BYTES * 2) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.perigosa.steamviewer.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resumo imutável de uma biblioteca, calculado em uma única passada pelos jogos
+ *
+ * Reúne tudo que o dashboard, as estatísticas detalhadas e as categorias por tempo
+ * de jogo precisam, para que nenhum desses cálculos percorra a lista de novo.
+ */
+public final class LibrarySummary {
+
+    // Totais
+    private final int totalGames;
+    private final long totalMinutes;
+
+    // Jogos com tempo de jogo (> 0) e nunca jogados
+    private final int playedGames;
+    private final int neverPlayedGames;
+
+    // Soma do tempo apenas dos jogos jogados (para a média)
+    private final long playedMinutes;
+
+    // Jogos mais jogados, do maior para o menor tempo (apenas jogos com tempo > 0)
+    private final List<Game> topPlayed;
+
+    // Jogo com maior appId (aproximação do mais recente) e jogo mais jogado
+    private final Game mostRecentGame;
+    private final Game longestSession;
+
+    // Categorias por tempo de jogo, na ordem original da biblioteca
+    // (listas somente leitura; para uma GameLibrary são visões que criam os Game sob demanda)
+    private final List<Game> neverPlayed;
+    private final List<Game> casual;
+    private final List<Game> regular;
+    private final List<Game> hardcore;
+
+    public LibrarySummary(int totalGames, long totalMinutes, int playedGames, int neverPlayedGames,
+                          long playedMinutes, List<Game> topPlayed, Game mostRecentGame, Game longestSession,
+                          List<Game> neverPlayed, List<Game> casual, List<Game> regular, List<Game> hardcore) {
+        this.totalGames = totalGames;
+        this.totalMinutes = totalMinutes;
+        this.playedGames = playedGames;
+        this.neverPlayedGames = neverPlayedGames;
+        this.playedMinutes = playedMinutes;
+        this.topPlayed = List.copyOf(topPlayed);
+        this.mostRecentGame = mostRecentGame;
+        this.longestSession = longestSession;
+        this.neverPlayed = Collections.unmodifiableList(neverPlayed);
+        this.casual = Collections.unmodifiableList(casual);
+        this.regular = Collections.unmodifiableList(regular);
+        this.hardcore = Collections.unmodifiableList(hardcore);
+    }
+
+    // Getters
+    public int getTotalGames() { return totalGames; }
+    public long getTotalMinutes() { return totalMinutes; }
+    public int getPlayedGames() { return playedGames; }
+    public int getNeverPlayedGames() { return neverPlayedGames; }
+    public long getPlayedMinutes() { return playedMinutes; }
+    public List<Game> getTopPlayed() { return topPlayed; }
+    public Game getMostRecentGame() { return mostRecentGame; }
+    public Game getLongestSession() { return longestSession; }
+    public List<Game> getNeverPlayed() { return neverPlayed; }
+    public List<Game> getCasual() { return casual; }
+    public List<Game> getRegular() { return regular; }
+    public List<Game> getHardcore() { return hardcore; }
+
+    // Total de horas com uma casa decimal
+    public double getTotalHours() {
+        return Math.round(totalMinutes / 60.0 * 10) / 10.0;
+    }
+
+    // Média de horas por jogo jogado, com uma casa decimal
+    public double getAveragePlayedHours() {
+        if (playedGames == 0) {
+            return 0.0;
+        }
+        return Math.round((double) playedMinutes / playedGames / 60.0 * 10) / 10.0;
+    }
+}
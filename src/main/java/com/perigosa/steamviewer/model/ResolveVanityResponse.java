@@ -0,0 +1,72 @@
+package com.perigosa.steamviewer.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Classes para mapear a resposta do ISteamUser/ResolveVanityURL
+ *
+ * Quando o nome customizado existe:
+ * { "response": { "steamid": "76561198000000000", "success": 1 } }
+ *
+ * Quando não existe:
+ * { "response": { "success": 42, "message": "No match" } }
+ */
+public class ResolveVanityResponse {
+
+    // Valor de "success" quando o nome foi encontrado
+    public static final int SUCCESS = 1;
+
+    // Mapeia o campo "response" do JSON
+    @JsonProperty("response")
+    private ResponseData response;
+
+    public ResponseData getResponse() {
+        return response;
+    }
+
+    public void setResponse(ResponseData response) {
+        this.response = response;
+    }
+
+    /**
+     * Classe interna que representa o conteúdo do campo "response"
+     */
+    public static class ResponseData {
+
+        // SteamID64 do usuário (só vem quando success = 1)
+        @JsonProperty("steamid")
+        private String steamId;
+
+        // 1 = encontrado, 42 = nenhum usuário com esse nome
+        @JsonProperty("success")
+        private int success;
+
+        // Mensagem de erro (ex: "No match")
+        @JsonProperty("message")
+        private String message;
+
+        public String getSteamId() {
+            return steamId;
+        }
+
+        public void setSteamId(String steamId) {
+            this.steamId = steamId;
+        }
+
+        public int getSuccess() {
+            return success;
+        }
+
+        public void setSuccess(int success) {
+            this.success = success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
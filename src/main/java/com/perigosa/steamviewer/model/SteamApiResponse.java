@@ -48,6 +48,11 @@ public class SteamApiResponse {
         @JsonProperty("games")
         private List<GameData> games;
 
+        // Número de jogos jogados nas últimas duas semanas (só no GetRecentlyPlayedGames)
+        // Fica null quando o perfil é privado
+        @JsonProperty("total_count")
+        private Integer totalCount;
+
         public int getGameCount() {
             return gameCount;
         }
@@ -63,6 +68,14 @@ public class SteamApiResponse {
         public void setGames(List<GameData> games) {
             this.games = games;
         }
+
+        public Integer getTotalCount() {
+            return totalCount;
+        }
+
+        public void setTotalCount(Integer totalCount) {
+            this.totalCount = totalCount;
+        }
     }
 
     /**
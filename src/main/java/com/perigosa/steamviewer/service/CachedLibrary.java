@@ -0,0 +1,282 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.LibrarySummary;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Biblioteca guardada no LibraryCache junto com dados derivados dela
+ *
+ * Como a GameLibrary é imutável, tudo que é calculado a partir dela (ex: as ordenações)
+ * pode ser calculado uma vez e reaproveitado por todos os pedidos enquanto a entrada
+ * estiver no cache. Quando a biblioteca é recarregada, um novo CachedLibrary é criado
+ * e os dados derivados antigos vão embora junto com ele.
+ */
+public final class CachedLibrary {
+
+    private static final CachedLibrary EMPTY = new CachedLibrary(GameLibrary.empty(), 0);
+
+    private final GameLibrary library;
+
+    // Momento em que a biblioteca foi carregada ou atualizada (em milissegundos)
+    private final long loadedAt;
+
+    // Momento da última carga completa (GetOwnedGames); atualizações parciais mantêm o valor
+    private final long fullLoadedAt;
+
+    // Momento em que o conteúdo atual foi montado; atualizações sem mudança mantêm o valor
+    private final long computedAt;
+
+    // Jogos que aparecem entre os jogados recentemente mas não na biblioteca
+    // (ex: gratuitos que o usuário jogou sem "possuir"); não forçam uma nova carga completa
+    private final Set<Integer> untrackedAppIds;
+
+    // Permutação de índices de cada SortKey, calculada no primeiro uso
+    private final AtomicReferenceArray<int[]> sortOrders = new AtomicReferenceArray<>(SortKey.values().length);
+
+    // Hash do conteúdo, calculado no primeiro uso (identifica a versão da biblioteca)
+    private volatile String version;
+
+    // Métricas do dashboard, estatísticas e categorias, calculadas no primeiro uso
+    private volatile LibrarySummary summary;
+
+    // Índice de busca por nome, montado no primeiro uso (não depende do tempo de jogo)
+    private volatile GameSearchIndex searchIndex;
+
+    // Respostas JSON já serializadas (UTF-8), uma por visão (ex: "list.playtime", "dashboard"),
+    // criado no primeiro uso (a maioria das bibliotecas não chega a ser pedida mais de uma vez)
+    private volatile Map<String, SerializedResponse> responses;
+
+    // Avisado quando uma resposta é guardada (o LibraryCache recalcula o peso da entrada)
+    private volatile Runnable serializedResponseListener;
+
+    public CachedLibrary(GameLibrary library, long loadedAt) {
+        this(library, loadedAt, loadedAt, loadedAt, Set.of());
+    }
+
+    private CachedLibrary(GameLibrary library, long loadedAt, long fullLoadedAt, long computedAt,
+                          Set<Integer> untrackedAppIds) {
+        this.library = library;
+        this.loadedAt = loadedAt;
+        this.fullLoadedAt = fullLoadedAt;
+        this.computedAt = computedAt;
+        this.untrackedAppIds = untrackedAppIds;
+    }
+
+    /**
+     * Entrada montada a partir do snapshot em disco
+     * Não conta como carga completa: fullLoadedAt (e o generated_at) é o momento em que o snapshot foi buscado
+     * @param now Momento em que entrou no cache (conta para o tempo de vida)
+     * @param fetchedAt Momento em que a biblioteca do snapshot foi buscada na Steam API
+     */
+    public static CachedLibrary fromSnapshot(GameLibrary library, long now, long fetchedAt) {
+        return new CachedLibrary(library, now, fetchedAt, fetchedAt, Set.of());
+    }
+
+    public static CachedLibrary empty() {
+        return EMPTY;
+    }
+
+    public GameLibrary library() {
+        return library;
+    }
+
+    public long loadedAt() {
+        return loadedAt;
+    }
+
+    public long fullLoadedAt() {
+        return fullLoadedAt;
+    }
+
+    /**
+     * Momento em que o conteúdo atual foi montado (é o generated_at do dashboard)
+     * Diferente de loadedAt, não muda quando uma atualização não altera nada,
+     * então as respostas que dependem dele continuam valendo
+     */
+    public long computedAt() {
+        return computedAt;
+    }
+
+    public Set<Integer> untrackedAppIds() {
+        return untrackedAppIds;
+    }
+
+    /**
+     * Mesma entrada, registrando os jogos recentes que não fazem parte da biblioteca
+     * (chamado logo depois de uma carga completa, quando ainda não há nada calculado)
+     */
+    public CachedLibrary withUntrackedAppIds(Set<Integer> appIds) {
+        return new CachedLibrary(library, loadedAt, fullLoadedAt, computedAt, Set.copyOf(appIds));
+    }
+
+    /**
+     * Nova entrada para a mesma biblioteca com outros tempos de jogo (atualização parcial)
+     *
+     * Se nenhum tempo mudou, tudo o que já foi calculado (ordenações, resumo, versão, respostas
+     * serializadas) é reaproveitado.
+     * Caso contrário só o que não depende do tempo de jogo (ordenações por nome e AppID,
+     * índice de busca) é mantido.
+     *
+     * @param updated Biblioteca com os tempos atualizados (mesmos jogos, na mesma ordem)
+     * @param now Momento da atualização
+     */
+    public CachedLibrary withPlaytimes(GameLibrary updated, long now) {
+        boolean unchanged = updated == library;
+        CachedLibrary refreshed = new CachedLibrary(updated, now, fullLoadedAt, unchanged ? computedAt : now,
+                untrackedAppIds);
+        refreshed.searchIndex = searchIndex;
+        for (SortKey key : SortKey.values()) {
+            if (unchanged || !key.usesPlaytime()) {
+                refreshed.sortOrders.set(key.ordinal(), sortOrders.get(key.ordinal()));
+            }
+        }
+        if (unchanged) {
+            refreshed.version = version;
+            refreshed.summary = summary;
+            refreshed.responses = responses;
+        }
+        return refreshed;
+    }
+
+    public int size() {
+        return library.size();
+    }
+
+    public boolean isEmpty() {
+        return library.isEmpty();
+    }
+
+    /**
+     * Versão da biblioteca: muda quando o conteúdo muda, e não muda quando a mesma
+     * biblioteca é apenas recarregada da Steam API
+     * (se duas threads calcularem ao mesmo tempo, o resultado é o mesmo)
+     */
+    public String version() {
+        String current = version;
+        if (current == null) {
+            current = library.contentHash();
+            version = current;
+        }
+        return current;
+    }
+
+    /**
+     * Resumo da biblioteca (uma passada só para dashboard, estatísticas e categorias)
+     * (se duas threads calcularem ao mesmo tempo, o resultado é o mesmo)
+     */
+    public LibrarySummary summary() {
+        return summary(LibraryAnalytics::summarize);
+    }
+
+    /**
+     * Mesmo que summary(), calculando com a função informada na primeira vez (ex: com medição de tempo)
+     */
+    public LibrarySummary summary(Function<GameLibrary, LibrarySummary> summarizer) {
+        LibrarySummary current = summary;
+        if (current == null) {
+            current = summarizer.apply(library);
+            summary = current;
+        }
+        return current;
+    }
+
+    /**
+     * Índice de busca por nome (type-ahead)
+     * (se duas threads calcularem ao mesmo tempo, o resultado é o mesmo)
+     */
+    public GameSearchIndex searchIndex() {
+        GameSearchIndex current = searchIndex;
+        if (current == null) {
+            current = GameSearchIndex.build(library);
+            searchIndex = current;
+        }
+        return current;
+    }
+
+    /**
+     * Resposta JSON já serializada desta biblioteca
+     * @param view Visão (ex: "list.playtime", "dashboard")
+     * @param etag ETag da resposta pedida: bytes guardados com outro ETag não servem
+     * @return Corpo em UTF-8 (não deve ser alterado), ou null se ainda não foi serializado
+     */
+    public byte[] serializedResponse(String view, String etag) {
+        Map<String, SerializedResponse> current = responses;
+        SerializedResponse response = current != null ? current.get(view) : null;
+        return response != null && response.etag().equals(etag) ? response.body() : null;
+    }
+
+    /**
+     * Guarda a resposta serializada de uma visão (substitui a anterior da mesma visão)
+     */
+    public void storeSerializedResponse(String view, String etag, byte[] body) {
+        Map<String, SerializedResponse> current = responses;
+        if (current == null) {
+            synchronized (this) {
+                if (responses == null) {
+                    responses = new ConcurrentHashMap<>();
+                }
+                current = responses;
+            }
+        }
+        current.put(view, new SerializedResponse(etag, body));
+        Runnable listener = serializedResponseListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Total de bytes das respostas serializadas guardadas (entra no peso do cache)
+     */
+    public long serializedBytes() {
+        Map<String, SerializedResponse> current = responses;
+        if (current == null) {
+            return 0;
+        }
+        long bytes = 0;
+        for (SerializedResponse response : current.values()) {
+            bytes += response.body().length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Registra quem deve ser avisado quando uma resposta serializada for guardada
+     * (substitui o anterior; usado pelo LibraryCache ao guardar a entrada)
+     */
+    void onSerializedResponseStored(Runnable listener) {
+        serializedResponseListener = listener;
+    }
+
+    /**
+     * Índices da biblioteca na ordem do critério informado
+     * Se duas threads calcularem ao mesmo tempo, as duas usam o resultado que foi guardado primeiro
+     * (o array retornado não deve ser alterado)
+     */
+    public int[] sortOrder(SortKey key) {
+        int[] order = sortOrders.get(key.ordinal());
+        if (order == null) {
+            sortOrders.compareAndSet(key.ordinal(), null, key.computeOrder(library));
+            order = sortOrders.get(key.ordinal());
+        }
+        return order;
+    }
+
+    /**
+     * Lista de Game na ordem do critério informado (sem copiar a biblioteca)
+     */
+    public List<Game> sorted(SortKey key) {
+        return library.asList(sortOrder(key));
+    }
+
+    private record SerializedResponse(String etag, byte[] body) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.perigosa.steamviewer.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela compartilhada appId -> nome do jogo
+ *
+ * Milhares de bibliotecas em cache têm os mesmos jogos. Sem esta tabela, cada
+ * biblioteca guardaria sua própria cópia de "Counter-Strike 2"; com ela, todas
+ * apontam para a mesma instância de String.
+ */
+public final class GameNameTable {
+
+    // Limite de segurança (a Steam tem bem menos apps que isso)
+    private static final int MAX_ENTRIES = 500_000;
+
+    private static final Map<Integer, String> NAMES = new ConcurrentHashMap<>();
+
+    private GameNameTable() {
+    }
+
+    /**
+     * Retorna a instância compartilhada do nome do jogo
+     * Se o nome mudou (jogo renomeado), a tabela passa a usar o novo
+     */
+    public static String canonical(int appId, String name) {
+        if (name == null) {
+            return null;
+        }
+        String existing = NAMES.get(appId);
+        if (name.equals(existing)) {
+            return existing;
+        }
+        if (existing != null || NAMES.size() < MAX_ENTRIES) {
+            NAMES.put(appId, name);
+        }
+        return name;
+    }
+
+    /**
+     * Nome conhecido de um jogo, ou null se nenhuma biblioteca com ele foi carregada
+     */
+    public static String nameOf(int appId) {
+        return NAMES.get(appId);
+    }
+
+    public static int size() {
+        return NAMES.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.perigosa.steamviewer.model.GameField;
+import com.perigosa.steamviewer.model.GameLibrary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Escreve a lista de jogos em NDJSON (um objeto JSON por linha)
+ *
+ * Cada jogo é escrito direto no OutputStream da resposta por um único JsonGenerator,
+ * lendo os valores da GameLibrary: nem a lista inteira nem os objetos Game
+ * precisam existir na memória. O cliente começa a receber as linhas antes do fim.
+ */
+public final class GameNdjsonWriter {
+
+    // JsonFactory é thread-safe e pode ser compartilhada
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    // A cada quantas linhas o conteúdo é enviado ao cliente
+    private static final int FLUSH_EVERY = 256;
+
+    private GameNdjsonWriter() {
+    }
+
+    /**
+     * Escreve os jogos na ordem informada
+     * @param library Biblioteca
+     * @param order Índices na ordem desejada
+     * @param fields Campos de cada jogo (null para todos, como no JSON de Game)
+     * @param out Saída (não é fechada)
+     */
+    public static void write(GameLibrary library, int[] order, Set<GameField> fields, OutputStream out) throws IOException {
+        GameField[] selected = fields == null
+                ? GameField.values()
+                : fields.toArray(new GameField[0]);
+
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            // Sem separador entre objetos: a quebra de linha é escrita depois de cada um
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            for (int i = 0; i < order.length; i++) {
+                int index = order[i];
+                generator.writeStartObject();
+                for (GameField field : selected) {
+                    Object value = field.valueAt(library, index);
+                    // Campos nulos não aparecem, como no restante da API
+                    if (value != null) {
+                        generator.writeFieldName(field.getJsonName());
+                        generator.writeObject(value);
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+
+                if ((i + 1) % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+        }
+    }
+}
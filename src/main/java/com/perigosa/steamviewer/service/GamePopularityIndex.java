@@ -0,0 +1,334 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Índice global de popularidade dos jogos entre todos os usuários já consultados
+ *
+ * Para cada AppID guarda quantos usuários têm o jogo e a soma do tempo jogado,
+ * sem precisar percorrer as bibliotecas do cache a cada consulta.
+ *
+ * O índice é atualizado de forma incremental sempre que uma biblioteca é carregada
+ * ou atualizada: a nova versão é comparada com a última versão contada daquele usuário
+ * e só a diferença é aplicada (jogo novo: +1 dono; jogo removido: -1 dono; tempo: a diferença).
+ * Assim, recarregar a mesma biblioteca nunca conta o usuário duas vezes.
+ *
+ * Os contadores de cada jogo são LongAdder: vários usuários atualizando o mesmo jogo
+ * popular ao mesmo tempo não disputam a mesma variável.
+ * As atualizações de um mesmo usuário são feitas uma de cada vez (compute do mapa de usuários).
+ *
+ * O número de usuários contados tem limite (steam.popularity.max-users): passando dele,
+ * sai o usuário contado há mais tempo, e os jogos dele deixam de contar nos totais.
+ */
+@Service
+public class GamePopularityIndex {
+
+    // Última versão contada de cada usuário (AppIDs em ordem crescente + tempos de jogo)
+    private final ConcurrentHashMap<String, UserGames> users = new ConcurrentHashMap<>();
+
+    // Contadores de cada jogo
+    private final ConcurrentHashMap<Integer, GameCounters> games = new ConcurrentHashMap<>();
+
+    // Ordem em que os usuários foram contados: o contado há mais tempo fica no início (LRU)
+    // Todo acesso é protegido pelo lock do próprio mapa
+    private final LinkedHashMap<String, Boolean> recency = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Máximo de usuários contados
+    private final int maxUsers;
+
+    public GamePopularityIndex(@Value("${steam.popularity.max-users:100000}") int maxUsers) {
+        this.maxUsers = maxUsers;
+    }
+
+    /**
+     * Critério do ranking global
+     */
+    public enum Ranking {
+        OWNERS("owners"),
+        PLAYTIME("playtime");
+
+        private final String parameter;
+
+        Ranking(String parameter) {
+            this.parameter = parameter;
+        }
+
+        public String getParameter() {
+            return parameter;
+        }
+
+        /**
+         * Converte o parâmetro "by" da URL
+         * @throws IllegalArgumentException se o critério não existe
+         */
+        public static Ranking fromParameter(String by) {
+            String value = by == null ? "" : by.trim().toLowerCase(Locale.ROOT);
+            for (Ranking ranking : values()) {
+                if (ranking.parameter.equals(value)) {
+                    return ranking;
+                }
+            }
+            throw new IllegalArgumentException("Critério inválido: " + by);
+        }
+    }
+
+    /**
+     * Conta (ou conta de novo) a biblioteca de um usuário
+     * Bibliotecas vazias (ex: perfil ficou privado) tiram o usuário do índice
+     */
+    public void record(String steamId, GameLibrary library) {
+        UserGames current = UserGames.of(library);
+        users.compute(steamId, (id, previous) -> {
+            if (previous == null || !previous.equals(current)) {
+                applyDifference(previous, current, library);
+            }
+            synchronized (recency) {
+                if (current.isEmpty()) {
+                    recency.remove(id);
+                } else {
+                    recency.put(id, Boolean.TRUE);
+                }
+            }
+            return current.isEmpty() ? null : current.withoutIndexes();
+        });
+        evictIfNeeded();
+    }
+
+    /**
+     * Tira do índice os usuários contados há mais tempo até voltar ao limite
+     */
+    private void evictIfNeeded() {
+        List<String> evicted = new ArrayList<>();
+        synchronized (recency) {
+            Iterator<String> eldest = recency.keySet().iterator();
+            while (recency.size() > maxUsers && eldest.hasNext()) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        for (String steamId : evicted) {
+            users.computeIfPresent(steamId, (id, previous) -> {
+                synchronized (recency) {
+                    if (recency.containsKey(id)) {
+                        // Foi contado de novo enquanto saía: continua no índice
+                        return previous;
+                    }
+                }
+                applyDifference(previous, UserGames.EMPTY, null);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Jogos mais populares entre os usuários contados
+     * @param ranking Por quantidade de donos ou por tempo total jogado
+     * @param limit Quantidade máxima de jogos
+     */
+    public TopGames top(Ranking ranking, int limit) {
+        Comparator<PopularGame> order = ranking == Ranking.OWNERS
+                ? Comparator.comparingLong(PopularGame::getOwners).thenComparingLong(PopularGame::getTotalMinutes)
+                : Comparator.comparingLong(PopularGame::getTotalMinutes).thenComparingLong(PopularGame::getOwners);
+        order = order.thenComparing(Comparator.comparingInt(PopularGame::getAppId).reversed());
+
+        // Heap com os "limit" melhores até agora (o pior fica no topo para sair primeiro)
+        PriorityQueue<PopularGame> best = new PriorityQueue<>(Math.max(1, limit) + 1, order);
+        if (limit > 0) {
+            games.forEach((appId, counters) -> {
+                long owners = counters.owners.sum();
+                if (owners <= 0) {
+                    return;
+                }
+                best.add(new PopularGame(appId, counters.name, owners, counters.minutes.sum()));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            });
+        }
+
+        List<PopularGame> result = new ArrayList<>(best);
+        result.sort(order.reversed());
+        return new TopGames(ranking.getParameter(), users.size(), result);
+    }
+
+    /**
+     * Aplica a diferença entre a versão anterior e a atual da biblioteca de um usuário
+     * (as duas listas estão em ordem crescente de AppID: uma única passada em paralelo)
+     * library só é usada para jogos novos (pode ser null quando current está vazia)
+     */
+    private void applyDifference(UserGames previous, UserGames current, GameLibrary library) {
+        UserGames before = previous != null ? previous : UserGames.EMPTY;
+        int i = 0;
+        int j = 0;
+        while (i < before.appIds.length || j < current.appIds.length) {
+            int oldAppId = i < before.appIds.length ? before.appIds[i] : Integer.MAX_VALUE;
+            int newAppId = j < current.appIds.length ? current.appIds[j] : Integer.MAX_VALUE;
+
+            if (oldAppId == newAppId) {
+                int delta = current.playtimes[j] - before.playtimes[i];
+                if (delta != 0) {
+                    counters(newAppId, library, current.indexes[j]).minutes.add(delta);
+                }
+                i++;
+                j++;
+            } else if (newAppId < oldAppId) {
+                GameCounters counters = counters(newAppId, library, current.indexes[j]);
+                counters.owners.increment();
+                counters.minutes.add(current.playtimes[j]);
+                j++;
+            } else {
+                GameCounters counters = games.get(oldAppId);
+                counters.owners.decrement();
+                counters.minutes.add(-before.playtimes[i]);
+                i++;
+            }
+        }
+    }
+
+    private GameCounters counters(int appId, GameLibrary library, int index) {
+        GameCounters counters = games.computeIfAbsent(appId, id -> new GameCounters());
+        if (counters.name == null) {
+            counters.name = library.nameAt(index);
+        }
+        return counters;
+    }
+
+    /**
+     * Contadores de um jogo
+     */
+    private static final class GameCounters {
+        private final LongAdder owners = new LongAdder();
+        private final LongAdder minutes = new LongAdder();
+        private volatile String name;
+    }
+
+    /**
+     * Versão compacta de uma biblioteca já contada: só AppIDs (em ordem) e tempos de jogo
+     * (indexes = posição de cada jogo na GameLibrary original, usada só durante a contagem
+     * para buscar o nome; não fica guardada)
+     */
+    private static final class UserGames {
+        private static final UserGames EMPTY = new UserGames(new int[0], new int[0], new int[0]);
+
+        private final int[] appIds;
+        private final int[] playtimes;
+        private final int[] indexes;
+
+        private UserGames(int[] appIds, int[] playtimes, int[] indexes) {
+            this.appIds = appIds;
+            this.playtimes = playtimes;
+            this.indexes = indexes;
+        }
+
+        static UserGames of(GameLibrary library) {
+            int size = library.size();
+            if (size == 0) {
+                return EMPTY;
+            }
+            // Ordena por AppID guardando a posição original (AppID nos 32 bits altos, posição nos baixos)
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) library.appIdAt(i) << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            int[] appIds = new int[size];
+            int[] playtimes = new int[size];
+            int[] indexes = new int[size];
+            int count = 0;
+            for (long key : keys) {
+                int appId = (int) (key >>> 32);
+                int index = (int) key;
+                if (count > 0 && appIds[count - 1] == appId) {
+                    // AppID repetido na resposta da Steam: conta uma vez só
+                    continue;
+                }
+                appIds[count] = appId;
+                playtimes[count] = library.playtimeAt(index);
+                indexes[count] = index;
+                count++;
+            }
+            return new UserGames(Arrays.copyOf(appIds, count), Arrays.copyOf(playtimes, count),
+                    Arrays.copyOf(indexes, count));
+        }
+
+        UserGames withoutIndexes() {
+            return new UserGames(appIds, playtimes, null);
+        }
+
+        boolean isEmpty() {
+            return appIds.length == 0;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof UserGames games
+                    && Arrays.equals(appIds, games.appIds) && Arrays.equals(playtimes, games.playtimes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Arrays.hashCode(appIds) + Arrays.hashCode(playtimes);
+        }
+    }
+
+    /**
+     * Um jogo do ranking global
+     */
+    public static class PopularGame {
+        private final int appId;
+        private final String name;
+        private final long owners;
+        private final long totalMinutes;
+
+        public PopularGame(int appId, String name, long owners, long totalMinutes) {
+            this.appId = appId;
+            this.name = name;
+            this.owners = owners;
+            this.totalMinutes = totalMinutes;
+        }
+
+        // Getters
+        public int getAppId() { return appId; }
+        public String getName() { return name; }
+        public long getOwners() { return owners; }
+        public long getTotalMinutes() { return totalMinutes; }
+
+        public double getTotalHours() {
+            return totalMinutes / 60.0;
+        }
+    }
+
+    /**
+     * Classe para retornar o ranking global
+     */
+    public static class TopGames {
+        private final String by;
+        private final int trackedUsers;
+        private final List<PopularGame> games;
+
+        public TopGames(String by, int trackedUsers, List<PopularGame> games) {
+            this.by = by;
+            this.trackedUsers = trackedUsers;
+            this.games = games;
+        }
+
+        // Getters
+        public String getBy() { return by; }
+        public int getTrackedUsers() { return trackedUsers; }
+        public List<PopularGame> getGames() { return games; }
+    }
+}
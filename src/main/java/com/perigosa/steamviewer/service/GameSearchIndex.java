@@ -0,0 +1,330 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+
+import java.util.Arrays;
+
+/**
+ * Índice de busca por nome de uma biblioteca (type-ahead)
+ *
+ * Montado uma vez por entrada do cache (ver CachedLibrary.searchIndex) a partir dos
+ * termos compartilhados da GameSearchTerms. Tem duas partes:
+ * - o vocabulário da biblioteca (palavras distintas dos nomes) em ordem alfabética, com
+ *   os jogos de cada palavra: as palavras que começam com o que foi digitado ficam em um
+ *   intervalo contínuo (busca binária)
+ * - listas invertidas de trigramas (trigrama -> palavras do vocabulário), para achar
+ *   palavras parecidas quando há erro de digitação sem comparar com o vocabulário inteiro
+ *
+ * Cada palavra digitada precisa casar com alguma palavra do nome: como prefixo
+ * ("witch" -> "Witcher") ou, a partir de 4 letras, com até 1 erro (2 erros a partir de 8 letras).
+ * A distância de edição é calculada por palavra do vocabulário, não por jogo: uma palavra
+ * presente em mil nomes é conferida uma vez só.
+ * O resultado vem ordenado por: menos erros, nome começando com a busca, mais tempo jogado.
+ */
+public final class GameSearchIndex {
+
+    // Maior custo representável na chave de ordenação (os piores empatam)
+    private static final int MAX_RANK = 31;
+
+    // Termos de cada jogo (mesma posição da GameLibrary)
+    private final GameSearchTerms.Terms[] terms;
+
+    // Vocabulário em ordem alfabética; os jogos da palavra vocabulary[v] são
+    // wordGames[wordStarts[v]] até wordGames[wordStarts[v + 1]] (exclusivo)
+    private final String[] vocabulary;
+    private final int[] wordStarts;
+    private final int[] wordGames;
+
+    // Listas invertidas em arrays: as palavras do trigrama trigramKeys[i] são
+    // trigramWords[trigramStarts[i]] até trigramWords[trigramStarts[i + 1]] (exclusivo)
+    private final int[] trigramKeys;
+    private final int[] trigramStarts;
+    private final int[] trigramWords;
+
+    private GameSearchIndex(GameSearchTerms.Terms[] terms, String[] vocabulary, int[] wordStarts, int[] wordGames,
+                            int[] trigramKeys, int[] trigramStarts, int[] trigramWords) {
+        this.terms = terms;
+        this.vocabulary = vocabulary;
+        this.wordStarts = wordStarts;
+        this.wordGames = wordGames;
+        this.trigramKeys = trigramKeys;
+        this.trigramStarts = trigramStarts;
+        this.trigramWords = trigramWords;
+    }
+
+    /**
+     * Monta o índice da biblioteca
+     */
+    public static GameSearchIndex build(GameLibrary library) {
+        int size = library.size();
+        GameSearchTerms.Terms[] terms = new GameSearchTerms.Terms[size];
+        int wordCount = 0;
+        for (int i = 0; i < size; i++) {
+            terms[i] = GameSearchTerms.of(library.appIdAt(i), library.nameAt(i));
+            wordCount += terms[i].tokens().length;
+        }
+
+        // Pares (palavra, jogo) ordenados pela palavra
+        Integer[] order = new Integer[wordCount];
+        String[] pairWords = new String[wordCount];
+        int[] pairGames = new int[wordCount];
+        int w = 0;
+        for (int i = 0; i < size; i++) {
+            for (String token : terms[i].tokens()) {
+                pairWords[w] = token;
+                pairGames[w] = i;
+                order[w] = w;
+                w++;
+            }
+        }
+        Arrays.sort(order, (a, b) -> {
+            int byWord = pairWords[a].compareTo(pairWords[b]);
+            return byWord != 0 ? byWord : Integer.compare(pairGames[a], pairGames[b]);
+        });
+
+        // Agrupa os pares por palavra (vocabulário) sem repetir o jogo na mesma palavra
+        String[] vocabulary = new String[wordCount];
+        int[] wordStarts = new int[wordCount + 1];
+        int[] wordGames = new int[wordCount];
+        int distinct = 0;
+        int games = 0;
+        for (int i = 0; i < wordCount; i++) {
+            String word = pairWords[order[i]];
+            int game = pairGames[order[i]];
+            if (distinct == 0 || !vocabulary[distinct - 1].equals(word)) {
+                vocabulary[distinct] = word;
+                wordStarts[distinct] = games;
+                distinct++;
+            } else if (wordGames[games - 1] == game) {
+                continue;
+            }
+            wordGames[games++] = game;
+        }
+        wordStarts[distinct] = games;
+        vocabulary = Arrays.copyOf(vocabulary, distinct);
+        wordStarts = Arrays.copyOf(wordStarts, distinct + 1);
+        wordGames = Arrays.copyOf(wordGames, games);
+
+        // Trigramas do vocabulário: pares (trigrama, palavra) em um long, ordenados e agrupados
+        int trigramCount = 0;
+        for (String word : vocabulary) {
+            trigramCount += Math.max(0, word.length() - 2);
+        }
+        long[] pairs = new long[trigramCount];
+        int p = 0;
+        for (int v = 0; v < distinct; v++) {
+            for (int code : GameSearchTerms.trigrams(vocabulary[v])) {
+                pairs[p++] = ((long) code << 32) | v;
+            }
+        }
+        pairs = Arrays.copyOf(pairs, p);
+        Arrays.sort(pairs);
+        int[] keys = new int[p];
+        int[] starts = new int[p + 1];
+        int[] trigramWords = new int[p];
+        int keyCount = 0;
+        for (int i = 0; i < p; i++) {
+            int code = (int) (pairs[i] >>> 32);
+            if (keyCount == 0 || keys[keyCount - 1] != code) {
+                keys[keyCount] = code;
+                starts[keyCount] = i;
+                keyCount++;
+            }
+            trigramWords[i] = (int) pairs[i];
+        }
+        starts[keyCount] = p;
+
+        return new GameSearchIndex(terms, vocabulary, wordStarts, wordGames,
+                Arrays.copyOf(keys, keyCount), Arrays.copyOf(starts, keyCount + 1), trigramWords);
+    }
+
+    /**
+     * Busca jogos pelo nome
+     * @param library Biblioteca usada para desempatar pelo tempo jogado (mesmos jogos do índice)
+     * @param query Texto digitado
+     * @param limit Máximo de resultados
+     * @return Posições dos jogos encontrados na biblioteca, do mais relevante para o menos
+     */
+    public int[] search(GameLibrary library, String query, int limit) {
+        String normalizedQuery = GameSearchTerms.normalize(query == null ? "" : query);
+        String[] queryTokens = GameSearchTerms.tokens(normalizedQuery);
+        int size = terms.length;
+        if (queryTokens.length == 0 || size == 0 || limit <= 0) {
+            return new int[0];
+        }
+
+        // matched[jogo] = quantas palavras digitadas (em ordem) já casaram; costs[jogo] = erros somados
+        int[] matched = new int[size];
+        int[] costs = new int[size];
+        for (int t = 0; t < queryTokens.length; t++) {
+            // Palavras do vocabulário que casam com a palavra digitada, da mais barata para a mais cara
+            long[] words = matchingWords(queryTokens[t]);
+            for (long word : words) {
+                int cost = (int) (word >>> 32);
+                int v = (int) word;
+                for (int i = wordStarts[v]; i < wordStarts[v + 1]; i++) {
+                    int game = wordGames[i];
+                    // Só o primeiro casamento conta (é o de menor custo)
+                    if (matched[game] == t) {
+                        matched[game] = t + 1;
+                        costs[game] += cost;
+                    }
+                }
+            }
+        }
+
+        int found = 0;
+        long[] ranked = new long[64];
+        for (int i = 0; i < size; i++) {
+            if (matched[i] != queryTokens.length) {
+                continue;
+            }
+            int rank = Math.min(MAX_RANK,
+                    costs[i] * 2 + (terms[i].normalized().startsWith(normalizedQuery) ? 0 : 1));
+            if (found == ranked.length) {
+                ranked = Arrays.copyOf(ranked, found * 2);
+            }
+            // Ordem: custo (bits 58+), tempo jogado, maior primeiro (bits 20-50), posição (bits 0-19)
+            long playtimeKey = Integer.MAX_VALUE - (long) Math.max(0, library.playtimeAt(i));
+            ranked[found++] = ((long) rank << 58) | (playtimeKey << 20) | i;
+        }
+        if (found == 0) {
+            return new int[0];
+        }
+
+        ranked = Arrays.copyOf(ranked, found);
+        Arrays.sort(ranked);
+        int[] result = new int[Math.min(limit, found)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) (ranked[i] & 0xFFFFF);
+        }
+        return result;
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Palavras do vocabulário que casam com a palavra digitada
+     * @return (custo << 32 | palavra), em ordem crescente de custo
+     */
+    private long[] matchingWords(String token) {
+        long[] words = new long[16];
+        int count = 0;
+
+        // Sem erro: palavras que começam com o texto (intervalo contínuo do vocabulário)
+        int first = lowerBound(token);
+        int end = first;
+        while (end < vocabulary.length && vocabulary[end].startsWith(token)) {
+            if (count == words.length) {
+                words = Arrays.copyOf(words, count * 2);
+            }
+            words[count++] = end;
+            end++;
+        }
+
+        int allowed = maxEdits(token.length());
+        int[] queryTrigrams = allowed > 0 ? GameSearchTerms.trigrams(token) : new int[0];
+        if (queryTrigrams.length > 0) {
+            // Com erro: palavras com trigramas suficientes em comum para caber nos erros permitidos
+            // (cada erro estraga no máximo 4 trigramas: 3 numa letra trocada, 4 numa troca de letras vizinhas)
+            int required = Math.max(1, queryTrigrams.length - 4 * allowed);
+            int[] shared = new int[vocabulary.length];
+            for (int code : queryTrigrams) {
+                int key = Arrays.binarySearch(trigramKeys, code);
+                if (key < 0) {
+                    continue;
+                }
+                for (int i = trigramStarts[key]; i < trigramStarts[key + 1]; i++) {
+                    int v = trigramWords[i];
+                    if (++shared[v] != required || (v >= first && v < end)) {
+                        continue;
+                    }
+                    int distance = prefixDistance(token, vocabulary[v], allowed);
+                    if (distance <= allowed) {
+                        if (count == words.length) {
+                            words = Arrays.copyOf(words, count * 2);
+                        }
+                        words[count++] = ((long) distance << 32) | v;
+                    }
+                }
+            }
+        }
+
+        words = Arrays.copyOf(words, count);
+        Arrays.sort(words);
+        return words;
+    }
+
+    /**
+     * Primeira posição do vocabulário que não é menor que o texto
+     */
+    private int lowerBound(String token) {
+        int low = 0;
+        int high = vocabulary.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (vocabulary[mid].compareTo(token) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Erros permitidos para uma palavra digitada com o tamanho informado
+     */
+    static int maxEdits(int length) {
+        if (length < 4) {
+            return 0;
+        }
+        return length < 8 ? 1 : 2;
+    }
+
+    /**
+     * Menor distância de edição (com troca de letras vizinhas) entre o texto digitado
+     * e algum prefixo da palavra. Ex: "wicther" -> "witcher" = 1, "witc" -> "witcher" = 0
+     * Para assim que a distância passa do limite
+     */
+    static int prefixDistance(String typed, String word, int limit) {
+        int m = typed.length();
+        int n = word.length();
+        int[] previous2 = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char a = typed.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                char b = word.charAt(j - 1);
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1),
+                        previous[j - 1] + (a == b ? 0 : 1));
+                if (i > 1 && j > 1 && a == word.charAt(j - 2) && typed.charAt(i - 2) == b) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        // Última linha: o texto inteiro contra cada prefixo da palavra
+        int best = previous[0];
+        for (int j = 1; j <= n; j++) {
+            best = Math.min(best, previous[j]);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,124 @@
+package com.perigosa.steamviewer.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela compartilhada appId -> nome do jogo já preparado para busca
+ *
+ * Normalizar um nome (minúsculas, sem acentos, sem pontuação) e quebrar em palavras
+ * é feito uma única vez por jogo, e não uma vez por biblioteca:
+ * as milhares de bibliotecas que têm "Counter-Strike 2" reaproveitam o mesmo resultado
+ * (mesma ideia da GameNameTable).
+ */
+public final class GameSearchTerms {
+
+    // Limite de segurança (a Steam tem bem menos apps que isso)
+    private static final int MAX_ENTRIES = 500_000;
+
+    private static final Map<Integer, Terms> TERMS = new ConcurrentHashMap<>();
+
+    private GameSearchTerms() {
+    }
+
+    /**
+     * Nome de um jogo preparado para busca
+     * @param name Nome original (usado para saber se o jogo foi renomeado)
+     * @param normalized Nome normalizado (palavras separadas por um espaço)
+     * @param tokens Palavras do nome normalizado (instâncias compartilhadas)
+     */
+    public record Terms(String name, String normalized, String[] tokens) {
+    }
+
+    /**
+     * Retorna os termos de busca do jogo, calculando só na primeira vez
+     * Se o nome mudou (jogo renomeado), os termos são recalculados
+     */
+    public static Terms of(int appId, String name) {
+        String value = name == null ? "" : name;
+        Terms existing = TERMS.get(appId);
+        if (existing != null && (existing.name() == value || existing.name().equals(value))) {
+            return existing;
+        }
+        Terms terms = compute(value);
+        if (existing != null || TERMS.size() < MAX_ENTRIES) {
+            TERMS.put(appId, terms);
+        }
+        return terms;
+    }
+
+    /**
+     * Minúsculas, sem acentos, e só letras e dígitos (o resto vira um espaço)
+     * Ex: "Pokémon™: Let's Go!" -> "pokemon let s go"
+     */
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                normalized.append(' ');
+                space = true;
+            }
+        }
+        int length = normalized.length();
+        if (length > 0 && normalized.charAt(length - 1) == ' ') {
+            normalized.setLength(length - 1);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Palavras de um texto já normalizado
+     */
+    public static String[] tokens(String normalized) {
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    /**
+     * Código de um trigrama (3 caracteres seguidos de uma palavra)
+     * Letras fora do Latin-1 podem colidir; a busca confere o resultado, então colisão só custa tempo
+     */
+    public static int trigram(String token, int start) {
+        return ((token.charAt(start) & 0x3FF) << 20)
+                | ((token.charAt(start + 1) & 0x3FF) << 10)
+                | (token.charAt(start + 2) & 0x3FF);
+    }
+
+    /**
+     * Trigramas distintos da palavra, em ordem crescente (palavras com menos de 3 letras não têm)
+     */
+    public static int[] trigrams(String token) {
+        if (token.length() < 3) {
+            return new int[0];
+        }
+        int[] codes = new int[token.length() - 2];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = trigram(token, i);
+        }
+        return Arrays.stream(codes).sorted().distinct().toArray();
+    }
+
+    public static int size() {
+        return TERMS.size();
+    }
+
+    private static Terms compute(String name) {
+        String normalized = normalize(name);
+        String[] tokens = tokens(normalized);
+        // As palavras repetidas entre jogos também são compartilhadas (ex: "the", "edition")
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = tokens[i].intern();
+        }
+        return new Terms(name, normalized, tokens);
+    }
+}
@@ -0,0 +1,445 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.config.UpstreamGuard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache em disco dos ícones dos jogos
+ *
+ * Sem ele, cada dashboard faz o navegador pedir dezenas (ou centenas) de imagens
+ * para media.steampowered.com. Com ele ligado, as URLs dos ícones apontam para
+ * /api/icons/{appid}/{hash}.jpg e o servidor:
+ * - baixa cada ícone da Steam uma única vez (pedidos simultâneos do mesmo ícone esperam o mesmo download)
+ * - respeita o mesmo limite de taxa das chamadas à Steam API (UpstreamGuard)
+ * - lembra por um tempo os ícones que a origem não tem (404), para que pedidos repetidos
+ *   de um ícone inexistente não virem uma chamada nova cada um
+ * - guarda o arquivo em {dir}/{appid}/{hash}.jpg
+ * - remove os ícones menos usados quando o total passa de max-bytes (LRU)
+ *
+ * Um ícone removido do LRU só é apagado do disco depois de DELETE_GRACE_MILLIS: o caminho
+ * devolvido por get() continua válido por esse tempo, inclusive para o Tomcat, que abre
+ * o arquivo pelo nome (sendfile) só depois que o controller retorna.
+ *
+ * O hash faz parte do nome, então o conteúdo de um arquivo nunca muda:
+ * o navegador pode guardar a imagem para sempre (Cache-Control immutable).
+ *
+ * O índice (LRU) fica em memória e é reconstruído a partir da pasta no início,
+ * do arquivo mais antigo para o mais novo.
+ */
+@Service
+public class IconCache {
+
+    private static final Logger log = LoggerFactory.getLogger(IconCache.class);
+
+    // Hash do ícone: hexadecimal (SHA-1) na prática, mas aceita qualquer texto alfanumérico curto
+    private static final Pattern ICON_HASH = Pattern.compile("[A-Za-z0-9]{1,64}");
+
+    // Caminho público do endpoint que serve os ícones (ver IconController)
+    public static final String ICON_PATH = "/api/icons/";
+
+    // Maior ícone aceito da origem (ícones da Steam têm poucos KB)
+    private static final long MAX_ICON_BYTES = 1024 * 1024;
+
+    // Tempo entre sair do LRU e ser apagado do disco
+    static final long DELETE_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    // Máximo de ícones inexistentes lembrados (os mais antigos saem primeiro)
+    private static final int MAX_NOT_FOUND_ENTRIES = 10_000;
+
+    private final HttpClient httpClient;
+    private final UpstreamGuard upstreamGuard;
+    private final boolean enabled;
+    private final Path dir;
+    private final long maxBytes;
+    private final String originUrl;
+    private final Duration timeout;
+    private final long notFoundTtlMillis;
+
+    // Chave "appid/hash" -> tamanho do arquivo, em "access order" (LRU), protegido pelo lock do próprio mapa
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    // Ícones que saíram do LRU esperando para serem apagados (chave -> quando saíram),
+    // na ordem em que saíram; protegido pelo lock de "index"
+    private final LinkedHashMap<String, Long> pendingDeletes = new LinkedHashMap<>();
+    private long deleteGraceMillis = DELETE_GRACE_MILLIS;
+
+    // Ícones que a origem não tem (chave -> quando expira), protegido pelo lock do próprio mapa
+    private final LinkedHashMap<String, Long> notFoundUntil = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NOT_FOUND_ENTRIES;
+        }
+    };
+
+    // Downloads em andamento, para que pedidos simultâneos do mesmo ícone façam uma única chamada
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+
+    // Contadores para dimensionar o cache
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder notFoundHits = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IconCache(HttpClient steamHttpClient,
+                     UpstreamGuard upstreamGuard,
+                     @Value("${steam.icons.enabled:false}") boolean enabled,
+                     @Value("${steam.icons.dir:data/icons}") String dir,
+                     @Value("${steam.icons.max-bytes:268435456}") long maxBytes,
+                     @Value("${steam.icons.origin-url:" + SteamService.STEAM_MEDIA_URL + "}") String originUrl,
+                     @Value("${steam.icons.timeout-ms:5000}") long timeoutMillis,
+                     @Value("${steam.icons.not-found-ttl-seconds:300}") long notFoundTtlSeconds) {
+        this.httpClient = steamHttpClient;
+        this.upstreamGuard = upstreamGuard;
+        this.enabled = enabled;
+        this.dir = Paths.get(dir).toAbsolutePath();
+        this.maxBytes = maxBytes;
+        this.originUrl = originUrl.endsWith("/") ? originUrl : originUrl + "/";
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.notFoundTtlMillis = TimeUnit.SECONDS.toMillis(notFoundTtlSeconds);
+        if (enabled) {
+            loadIndex();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Prefixo das URLs de ícone entregues ao navegador
+     * (o endpoint local quando o cache está ligado, a Steam quando não está)
+     */
+    public String getIconBaseUrl() {
+        return enabled ? ICON_PATH : SteamService.STEAM_MEDIA_URL;
+    }
+
+    /**
+     * Se o hash tem um formato aceitável (evita montar caminhos com "..", "/" etc.)
+     */
+    public static boolean isValidHash(String hash) {
+        return hash != null && ICON_HASH.matcher(hash).matches();
+    }
+
+    /**
+     * Retorna o arquivo do ícone, baixando da origem se ainda não estiver no disco
+     * Um ícone do índice é devolvido sem olhar o disco: se o arquivo sumiu (apagado por fora),
+     * quem for abrir chama forget() e pede de novo
+     * @return Caminho do arquivo, ou null se a origem não tem esse ícone
+     * @throws IOException se a origem falhar ou não responder a tempo
+     * @throws com.perigosa.steamviewer.config.UpstreamThrottledException se o limite de taxa não liberou o download
+     */
+    public Path get(int appId, String hash) throws IOException {
+        if (!isValidHash(hash) || appId < 0) {
+            return null;
+        }
+        String key = appId + "/" + hash;
+        Path file = dir.resolve(appId + "/" + hash + ".jpg");
+
+        synchronized (index) {
+            if (index.get(key) != null) {
+                hits.increment();
+                return file;
+            }
+        }
+        if (isKnownNotFound(key)) {
+            notFoundHits.increment();
+            return null;
+        }
+
+        // Só quem cria o download chama a origem; os demais esperam o mesmo resultado
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> existing = downloads.putIfAbsent(key, download);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            misses.increment();
+            Path downloaded = fetch(appId, hash, file);
+            if (downloaded != null) {
+                store(key, Files.size(downloaded));
+            } else {
+                synchronized (notFoundUntil) {
+                    notFoundUntil.put(key, System.currentTimeMillis() + notFoundTtlMillis);
+                }
+            }
+            download.complete(downloaded);
+            return downloaded;
+
+        } catch (IOException | RuntimeException e) {
+            failures.increment();
+            download.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            downloads.remove(key, download);
+        }
+    }
+
+    /**
+     * Se a origem respondeu 404 para esse ícone há pouco tempo
+     */
+    private boolean isKnownNotFound(String key) {
+        synchronized (notFoundUntil) {
+            Long until = notFoundUntil.get(key);
+            if (until == null) {
+                return false;
+            }
+            if (System.currentTimeMillis() >= until) {
+                notFoundUntil.remove(key);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Tira o ícone do índice (o arquivo não existe mais): o próximo get() baixa de novo
+     */
+    public void forget(int appId, String hash) {
+        synchronized (index) {
+            Long size = index.remove(appId + "/" + hash);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    /**
+     * Retorna os contadores atuais do cache de ícones
+     */
+    public IconStats getStats() {
+        int size;
+        long bytes;
+        synchronized (index) {
+            size = index.size();
+            bytes = totalBytes;
+        }
+        return new IconStats(enabled, size, bytes, maxBytes, hits.sum(), misses.sum(),
+                notFound.sum(), notFoundHits.sum(), failures.sum(), evictions.sum());
+    }
+
+    /**
+     * Baixa o ícone da origem para um arquivo temporário e o move para o lugar definitivo
+     * (quem lê o arquivo nunca vê um ícone pela metade)
+     */
+    private Path fetch(int appId, String hash, Path file) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(originUrl + appId + "/" + hash + ".jpg"))
+                .timeout(timeout)
+                .GET()
+                .build();
+
+        // Mesmo limite de taxa da Steam API: URLs inventadas não viram chamadas sem limite
+        upstreamGuard.acquireRatePermit();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Download do ícone interrompido", e);
+        }
+
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 404) {
+                notFound.increment();
+                return null;
+            }
+            if (response.statusCode() != 200) {
+                throw new IOException("Origem dos ícones respondeu " + response.statusCode());
+            }
+
+            Files.createDirectories(file.getParent());
+            Path temp = Files.createTempFile(file.getParent(), hash, ".tmp");
+            try {
+                long size = Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+                if (size == 0 || size > MAX_ICON_BYTES) {
+                    throw new IOException("Ícone com tamanho inesperado: " + size + " bytes");
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return file;
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Registra o arquivo no índice e remove os menos usados se o total passou do limite
+     * Os removidos só são apagados do disco depois de deleteGraceMillis (ver DELETE_GRACE_MILLIS)
+     */
+    private void store(String key, long size) {
+        List<String> deletable = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (index) {
+            // Baixado de novo antes de ser apagado: o arquivo é o novo
+            pendingDeletes.remove(key);
+            Long previous = index.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+
+            // O ícone recém-baixado é o último da fila e nunca sai aqui
+            Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+            while (totalBytes > maxBytes && index.size() > 1) {
+                Map.Entry<String, Long> entry = eldest.next();
+                totalBytes -= entry.getValue();
+                pendingDeletes.put(entry.getKey(), now);
+                evictions.increment();
+                eldest.remove();
+            }
+
+            Iterator<Map.Entry<String, Long>> pending = pendingDeletes.entrySet().iterator();
+            while (pending.hasNext()) {
+                Map.Entry<String, Long> entry = pending.next();
+                if (now - entry.getValue() < deleteGraceMillis) {
+                    break;
+                }
+                deletable.add(entry.getKey());
+                pending.remove();
+            }
+        }
+
+        // Apaga fora do lock (IO); se o ícone foi baixado de novo nesse meio tempo, quem
+        // abrir o arquivo não o encontra, chama forget() e baixa mais uma vez
+        for (String evictedKey : deletable) {
+            try {
+                Files.deleteIfExists(dir.resolve(evictedKey + ".jpg"));
+            } catch (IOException e) {
+                log.warn("Erro ao remover ícone do cache: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reconstrói o índice a partir dos arquivos já baixados (mais antigos primeiro)
+     */
+    private void loadIndex() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        record IconFile(String key, long size, long modified) {
+        }
+
+        List<IconFile> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.find(dir, 2, (path, attributes) -> attributes.isRegularFile()
+                && path.getFileName().toString().endsWith(".jpg"))) {
+            paths.forEach(path -> {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    String name = path.getFileName().toString();
+                    String key = dir.relativize(path.getParent()) + "/" + name.substring(0, name.length() - 4);
+                    files.add(new IconFile(key, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                } catch (IOException e) {
+                    log.warn("Erro ao ler ícone do cache: {}", e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.error("Erro ao carregar o cache de ícones", e);
+            return;
+        }
+
+        files.sort(Comparator.comparingLong(IconFile::modified));
+        for (IconFile file : files) {
+            store(file.key(), file.size());
+        }
+    }
+
+    /**
+     * Espera o download feito por outra requisição
+     */
+    private static Path await(CompletableFuture<Path> download) throws IOException {
+        try {
+            return download.join();
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Classe para retornar os contadores do cache de ícones
+     */
+    public static class IconStats {
+        private final boolean enabled;
+        private final int size;
+        private final long totalBytes;
+        private final long maxBytes;
+        private final long hits;
+        private final long misses;
+        private final long notFound;
+        private final long notFoundHits;
+        private final long failures;
+        private final long evictions;
+
+        public IconStats(boolean enabled, int size, long totalBytes, long maxBytes, long hits,
+                         long misses, long notFound, long notFoundHits, long failures, long evictions) {
+            this.enabled = enabled;
+            this.size = size;
+            this.totalBytes = totalBytes;
+            this.maxBytes = maxBytes;
+            this.hits = hits;
+            this.misses = misses;
+            this.notFound = notFound;
+            this.notFoundHits = notFoundHits;
+            this.failures = failures;
+            this.evictions = evictions;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getSize() { return size; }
+        public long getTotalBytes() { return totalBytes; }
+        public long getMaxBytes() { return maxBytes; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getNotFound() { return notFound; }
+        public long getNotFoundHits() { return notFoundHits; }
+        public long getFailures() { return failures; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.LibrarySummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.IntToLongFunction;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Calcula o resumo de uma biblioteca (LibrarySummary) em uma única passada
+ *
+ * Antes, cada métrica percorria a lista de novo (soma, filtro + ordenação completa
+ * para o top 5, max com Long.parseLong a cada comparação, categorias...).
+ * Aqui tudo é acumulado no mesmo loop:
+ * - top K com um heap limitado a K elementos: O(n log k) em vez de ordenar tudo (O(n log n))
+ * - appId convertido para número uma única vez por jogo
+ *
+ * O loop trabalha só com índices, então serve tanto para List<Game> quanto para GameLibrary.
+ */
+public final class LibraryAnalytics {
+
+    // Quantidade de jogos no ranking de mais jogados
+    public static final int TOP_K = 5;
+
+    // Limites das categorias por tempo de jogo (em minutos)
+    static final int CASUAL_MAX_MINUTES = 180;    // até 3h
+    static final int REGULAR_MAX_MINUTES = 1200;  // até 20h
+
+    private static final LibrarySummary EMPTY = new LibrarySummary(0, 0, 0, 0, 0, List.of(), null, null,
+            List.of(), List.of(), List.of(), List.of());
+
+    private LibraryAnalytics() {
+    }
+
+    /**
+     * Percorre a lista uma vez e calcula todas as métricas
+     * @param games Lista de jogos (pode ser nula ou vazia)
+     * @return Resumo imutável (os Game do resumo são as mesmas instâncias da lista)
+     */
+    public static LibrarySummary summarize(List<Game> games) {
+        if (games == null || games.isEmpty()) {
+            return EMPTY;
+        }
+        Pass pass = new Pass(games.size(),
+                i -> games.get(i).getPlaytimeForever(),
+                i -> parseAppId(games.get(i).getAppId()));
+        return pass.toSummary(games::get, indexes -> {
+            List<Game> list = new ArrayList<>(indexes.length);
+            for (int index : indexes) {
+                list.add(games.get(index));
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Percorre a biblioteca compacta uma vez e calcula todas as métricas
+     * Só os poucos jogos do top 5 e o mais recente viram objetos Game; as categorias
+     * são visões sobre a biblioteca
+     * @param library Biblioteca (pode ser nula ou vazia)
+     * @return Resumo imutável
+     */
+    public static LibrarySummary summarize(GameLibrary library) {
+        if (library == null || library.isEmpty()) {
+            return EMPTY;
+        }
+        Pass pass = new Pass(library.size(), library::playtimeAt, library::appIdAt);
+        return pass.toSummary(library::toGame, library::asList);
+    }
+
+    private static long parseAppId(String appId) {
+        try {
+            return Long.parseLong(appId);
+        } catch (NumberFormatException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * A passada única: acumula totais, top K, maior appId e as categorias (como índices)
+     */
+    private static final class Pass {
+        final int size;
+        long totalMinutes;
+        long playedMinutes;
+        int played;
+        int mostRecentIndex = -1;
+        final int[] top;
+
+        // Índices de cada categoria
+        final IntBuffer neverPlayed = new IntBuffer();
+        final IntBuffer casual = new IntBuffer();
+        final IntBuffer regular = new IntBuffer();
+        final IntBuffer hardcore = new IntBuffer();
+
+        Pass(int size, IntUnaryOperator playtimeAt, IntToLongFunction appIdAt) {
+            this.size = size;
+            long mostRecentAppId = Long.MIN_VALUE;
+
+            // Heap com os K mais jogados; o topo é o "pior" deles (menor tempo, e entre empates o que veio depois)
+            PriorityQueue<Ranked> heap = new PriorityQueue<>(TOP_K + 1);
+
+            for (int i = 0; i < size; i++) {
+                int playtime = playtimeAt.applyAsInt(i);
+                totalMinutes += playtime;
+
+                // Maior appId (em caso de empate, mantém o primeiro, como o max() original)
+                long appId = appIdAt.applyAsLong(i);
+                if (mostRecentIndex < 0 || appId > mostRecentAppId) {
+                    mostRecentIndex = i;
+                    mostRecentAppId = appId;
+                }
+
+                if (playtime == 0) {
+                    neverPlayed.add(i);
+                    continue;
+                }
+
+                played++;
+                playedMinutes += playtime;
+                if (playtime <= CASUAL_MAX_MINUTES) {
+                    casual.add(i);
+                } else if (playtime <= REGULAR_MAX_MINUTES) {
+                    regular.add(i);
+                } else {
+                    hardcore.add(i);
+                }
+
+                // Só entra no heap se for melhor que o pior dos K atuais
+                if (heap.size() < TOP_K) {
+                    heap.add(new Ranked(playtime, i));
+                } else if (playtime > heap.peek().playtime) {
+                    heap.poll();
+                    heap.add(new Ranked(playtime, i));
+                }
+            }
+
+            // Esvazia o heap do pior para o melhor, preenchendo de trás para frente
+            top = new int[heap.size()];
+            for (int i = top.length - 1; i >= 0; i--) {
+                top[i] = heap.poll().index;
+            }
+        }
+
+        LibrarySummary toSummary(IntFunction<Game> gameAt, Function<int[], List<Game>> listOf) {
+            Game[] ranking = new Game[top.length];
+            for (int i = 0; i < top.length; i++) {
+                ranking[i] = gameAt.apply(top[i]);
+            }
+            List<Game> topPlayed = List.of(ranking);
+            Game longestSession = topPlayed.isEmpty() ? null : topPlayed.get(0);
+
+            return new LibrarySummary(size, totalMinutes, played, size - played, playedMinutes,
+                    topPlayed, gameAt.apply(mostRecentIndex), longestSession,
+                    listOf.apply(neverPlayed.toArray()), listOf.apply(casual.toArray()),
+                    listOf.apply(regular.toArray()), listOf.apply(hardcore.toArray()));
+        }
+    }
+
+    /**
+     * Lista de int que cresce conforme necessário (evita List<Integer>)
+     */
+    private static final class IntBuffer {
+        int[] values = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /**
+     * Jogo no heap do top K
+     * Ordem "natural" = do pior para o melhor: menor tempo primeiro; no empate, quem apareceu depois
+     * (assim o resultado fica igual ao da ordenação estável usada antes)
+     */
+    private record Ranked(int playtime, int index) implements Comparable<Ranked> {
+        @Override
+        public int compareTo(Ranked other) {
+            if (playtime != other.playtime) {
+                return Integer.compare(playtime, other.playtime);
+            }
+            return Integer.compare(other.index, index);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.config.UpstreamThrottledException;
+import com.perigosa.steamviewer.config.UpstreamUnavailableException;
+import com.perigosa.steamviewer.controller.GameController.BatchResult;
+import com.perigosa.steamviewer.controller.GameController.DashboardData;
+import com.perigosa.steamviewer.model.Game;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Serviço que busca bibliotecas de vários usuários de uma vez
+ *
+ * Cada SteamID vira uma tarefa no executor de fan-out (virtual threads quando disponíveis;
+ * senão um pool de steam.batch.concurrency threads com fila).
+ * O envio nunca bloqueia a thread da requisição: o limite de chamadas simultâneas à Steam API
+ * é um semáforo pego dentro da própria tarefa, e quem não consegue vaga até o fim do prazo
+ * do lote volta como "tempo esgotado" sem ter começado.
+ * Um erro em um SteamID não afeta os outros: ele volta como erro só naquele item.
+ */
+@Service
+public class LibraryBatchService {
+
+    private static final String TIMEOUT_ERROR = "Tempo esgotado";
+
+    @Autowired
+    private SteamService steamService;
+
+    @Autowired
+    private AsyncTaskExecutor steamFanOutExecutor;
+
+    // Tempo máximo para o lote inteiro
+    @Value("${steam.batch.timeout-seconds:60}")
+    private long timeoutSeconds;
+
+    // Máximo de bibliotecas sendo buscadas ao mesmo tempo (somando todos os lotes)
+    @Value("${steam.batch.concurrency:16}")
+    private int concurrency;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Busca as bibliotecas (e opcionalmente os dashboards) de vários usuários
+     * @param steamIds IDs dos usuários (duplicados são ignorados)
+     * @param includeGames Se deve incluir a lista de jogos em cada resultado
+     * @param includeDashboard Se deve incluir o dashboard em cada resultado
+     * @param sortBy Critério de ordenação da lista de jogos
+     * @return Um resultado por SteamID, na mesma ordem da entrada
+     */
+    public List<BatchResult> getLibraries(List<String> steamIds, boolean includeGames,
+                                          boolean includeDashboard, String sortBy) {
+        List<String> uniqueIds = new ArrayList<>(new LinkedHashSet<>(steamIds));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+
+        // Dispara todas as buscas de uma vez; cada tarefa espera sua vaga no semáforo
+        // (submit devolve um FutureTask, então cancel(true) interrompe a busca em andamento)
+        List<Future<BatchResult>> futures = new ArrayList<>(uniqueIds.size());
+        for (String steamId : uniqueIds) {
+            futures.add(steamFanOutExecutor.submit(
+                    () -> loadWithPermit(steamId, deadline, includeGames, includeDashboard, sortBy)));
+        }
+
+        // Junta os resultados respeitando o tempo máximo do lote
+        List<BatchResult> results = new ArrayList<>(uniqueIds.size());
+        for (int i = 0; i < uniqueIds.size(); i++) {
+            Future<BatchResult> future = futures.get(i);
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                results.add(future.get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                results.add(BatchResult.error(uniqueIds.get(i), TIMEOUT_ERROR));
+            } catch (ExecutionException e) {
+                results.add(BatchResult.error(uniqueIds.get(i), describeError(e.getCause())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Busca em lote interrompida", e);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Espera uma vaga (no máximo até o prazo do lote) e busca a biblioteca
+     * Sem vaga a tempo, a busca nem começa e o item volta como tempo esgotado
+     */
+    private BatchResult loadWithPermit(String steamId, long deadline, boolean includeGames,
+                                       boolean includeDashboard, String sortBy) {
+        try {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !permits.tryAcquire(remaining, TimeUnit.NANOSECONDS)) {
+                return BatchResult.error(steamId, TIMEOUT_ERROR);
+            }
+        } catch (InterruptedException e) {
+            // Lote cancelado enquanto esperava a vaga
+            Thread.currentThread().interrupt();
+            return BatchResult.error(steamId, TIMEOUT_ERROR);
+        }
+        try {
+            // A vaga pode ter sido liberada pelo cancelamento de outra busca no fim do prazo:
+            // nesse caso o lote já acabou e não faz sentido chamar a Steam API
+            if (deadline - System.nanoTime() <= 0) {
+                return BatchResult.error(steamId, TIMEOUT_ERROR);
+            }
+            return loadOne(steamId, includeGames, includeDashboard, sortBy);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Busca a biblioteca de um único usuário e monta o resultado (ou o erro) dele
+     */
+    private BatchResult loadOne(String steamId, boolean includeGames, boolean includeDashboard, String sortBy) {
+        try {
+            // Nome customizado que não existe é erro do item, não uma biblioteca vazia
+            String resolvedId = steamService.resolveSteamId(steamId);
+            if (resolvedId == null) {
+                return BatchResult.error(steamId, "Usuário não encontrado na Steam");
+            }
+            CachedLibrary library = steamService.getCachedLibraryOrThrow(resolvedId);
+            List<Game> sortedGames = includeGames ? steamService.sortGames(library, sortBy) : null;
+            DashboardData dashboard = includeDashboard ? steamService.calculateDashboard(library) : null;
+            return BatchResult.ok(steamId, library.size(), sortedGames, dashboard);
+        } catch (RuntimeException e) {
+            return BatchResult.error(steamId, describeError(e));
+        }
+    }
+
+    /**
+     * Monta uma mensagem de erro para o cliente
+     * Não usamos e.getMessage() direto porque ele pode conter a URL com a chave da API
+     */
+    private static String describeError(Throwable e) {
+        if (e instanceof UpstreamThrottledException throttled) {
+            return "Limite de requisições da Steam API atingido, tente novamente em "
+                    + throttled.getRetryAfterSeconds() + "s";
+        }
+        if (e instanceof UpstreamUnavailableException unavailable) {
+            return "Steam API indisponível, tente novamente em " + unavailable.getRetryAfterSeconds() + "s";
+        }
+        if (e instanceof RestClientResponseException responseException) {
+            return "Steam API respondeu com status " + responseException.getStatusCode().value();
+        }
+        if (e instanceof ResourceAccessException) {
+            return "Steam API inacessível";
+        }
+        return "Erro ao buscar biblioteca";
+    }
+}
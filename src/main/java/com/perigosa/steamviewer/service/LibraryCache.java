@@ -0,0 +1,583 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache em memória das bibliotecas de jogos, indexado por SteamID
+ *
+ * Evita que a mesma biblioteca seja buscada várias vezes na Steam API em sequência
+ * (ex: lista + dashboard) ou em paralelo (vários usuários abrindo o mesmo perfil).
+ *
+ * - TTL configurável: entradas mais antigas que o TTL são recarregadas
+ * - TTL menor para bibliotecas vazias (perfil privado ou inexistente), que podem mudar logo
+ * - Limite por "peso" (número total de jogos guardados, mais as respostas JSON guardadas
+ *   junto com cada biblioteca), com remoção LRU
+ * - Single-flight: buscas simultâneas do mesmo SteamID compartilham uma única requisição
+ * - Entradas expiradas são entregues ao loader, que pode só atualizar o que mudou
+ * - Versão assíncrona (getAsync): a carga é cancelada quando todos os interessados desistem
+ *
+ * @Component indica que esta classe é um componente gerenciado pelo Spring
+ */
+@Component
+public class LibraryCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryCache.class);
+
+    // Tempo de vida de cada entrada (em segundos)
+    private final long ttlSeconds;
+
+    // Tempo de vida das bibliotecas vazias (em segundos)
+    private final long emptyTtlSeconds;
+
+    // Peso máximo do cache: soma do número de jogos de todas as bibliotecas guardadas
+    // (as respostas serializadas entram convertidas em jogos, ver BYTES_PER_WEIGHT)
+    private final long maxWeight;
+
+    // Bytes de resposta serializada que valem 1 de peso: mais ou menos o JSON de um jogo na lista,
+    // então uma biblioteca com a lista guardada pesa cerca do dobro de uma sem
+    static final long BYTES_PER_WEIGHT = 128;
+
+    // LinkedHashMap em "access order" mantém a entrada menos usada no início (LRU)
+    // Todo acesso é protegido pelo lock do próprio mapa
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    // Cargas em andamento: quem chega durante uma carga aguarda o mesmo resultado
+    private final Map<String, CompletableFuture<CachedLibrary>> inFlight = new ConcurrentHashMap<>();
+
+    // Peso atual (protegido pelo lock de "entries")
+    private long currentWeight;
+
+    // Contadores para dimensionar o cache
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder cancelledLoads = new LongAdder();
+
+    // Threads para atualizações em segundo plano (daemon para não segurar o desligamento)
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "library-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LibraryCache(long ttlSeconds, long maxWeight) {
+        this(ttlSeconds, ttlSeconds, maxWeight);
+    }
+
+    @Autowired
+    public LibraryCache(@Value("${steam.cache.ttl-seconds:300}") long ttlSeconds,
+                        @Value("${steam.cache.empty-ttl-seconds:60}") long emptyTtlSeconds,
+                        @Value("${steam.cache.max-weight:200000}") long maxWeight) {
+        this.ttlSeconds = ttlSeconds;
+        this.emptyTtlSeconds = emptyTtlSeconds;
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Retorna a biblioteca do cache ou carrega usando o loader informado
+     *
+     * Se outra thread já estiver carregando o mesmo SteamID, aguarda o resultado dela
+     * em vez de fazer uma nova requisição. Erros do loader não são guardados no cache.
+     *
+     * @param steamId ID do usuário Steam
+     * @param loader Função que busca a biblioteca na origem
+     * @return Biblioteca (imutável) do usuário, com as ordenações já calculadas para ela
+     */
+    public CachedLibrary get(String steamId, Function<String, GameLibrary> loader) {
+        return get(steamId, (id, stale) -> new CachedLibrary(loader.apply(id), System.currentTimeMillis()));
+    }
+
+    /**
+     * Mesmo que get(steamId, loader), mas o loader recebe a entrada expirada (se ainda existir)
+     * para poder atualizar só o que mudou em vez de buscar a biblioteca inteira
+     *
+     * @param steamId ID do usuário Steam
+     * @param refresher Função que monta a nova entrada (a entrada expirada pode ser null)
+     * @return Entrada do cache
+     */
+    public CachedLibrary get(String steamId, Refresher refresher) {
+        CachedLibrary stale;
+        synchronized (entries) {
+            Entry entry = entries.get(steamId);
+            if (entry != null && !isExpired(entry)) {
+                hits.increment();
+                return entry.library();
+            }
+            stale = entry != null ? entry.library() : null;
+        }
+        misses.increment();
+
+        CompletableFuture<CachedLibrary> future = new CompletableFuture<>();
+        CompletableFuture<CachedLibrary> existing = inFlight.putIfAbsent(steamId, future);
+        if (existing instanceof AsyncLoad load) {
+            // Carga assíncrona em andamento: entra como mais um interessado (ela não é cancelada enquanto esperamos)
+            if (!load.addWaiter()) {
+                return get(steamId, refresher);
+            }
+            try {
+                return await(load);
+            } finally {
+                release(steamId, load);
+            }
+        }
+        if (existing != null) {
+            // Já existe uma carga em andamento para este SteamID
+            return await(existing);
+        }
+
+        try {
+            // Outra thread pode ter terminado a carga entre a consulta e o registro acima
+            CachedLibrary cached = getIfPresent(steamId);
+            if (cached != null) {
+                future.complete(cached);
+                return cached;
+            }
+
+            loads.increment();
+            CachedLibrary library = put(steamId, refresher.refresh(steamId, stale));
+            // Sai do inFlight antes de avisar os interessados (ver refreshAfterLoad)
+            inFlight.remove(steamId, future);
+            future.complete(library);
+            return library;
+        } catch (RuntimeException e) {
+            loadFailures.increment();
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(steamId, future);
+        }
+    }
+
+    /**
+     * Versão assíncrona de get(steamId, refresher): não bloqueia quem chamou
+     *
+     * Se a entrada está no cache, retorna um future já completo (sem trocar de thread).
+     * Senão a carga roda no executor informado, com o mesmo single-flight do get síncrono.
+     *
+     * Cada chamada recebe o seu próprio future. Cancelar esse future (ex: tempo da requisição
+     * esgotado, cliente desconectou) tira o interessado da carga; quando não sobra nenhum
+     * interessado, a carga é cancelada e a thread dela é interrompida, o que cancela
+     * a chamada em andamento para a Steam API.
+     *
+     * @param steamId ID do usuário Steam
+     * @param refresher Função que monta a nova entrada (a entrada expirada pode ser null)
+     * @param executor Onde a carga roda quando precisa ir na origem
+     * @return Future com a entrada do cache (ou o erro do refresher)
+     */
+    public CompletableFuture<CachedLibrary> getAsync(String steamId, Refresher refresher, Executor executor) {
+        CachedLibrary stale;
+        synchronized (entries) {
+            Entry entry = entries.get(steamId);
+            if (entry != null && !isExpired(entry)) {
+                hits.increment();
+                return CompletableFuture.completedFuture(entry.library());
+            }
+            stale = entry != null ? entry.library() : null;
+        }
+        misses.increment();
+
+        AsyncLoad load = new AsyncLoad();
+        CompletableFuture<CachedLibrary> existing = inFlight.putIfAbsent(steamId, load);
+        if (existing instanceof AsyncLoad running) {
+            return running.addWaiter() ? waiter(steamId, running) : getAsync(steamId, refresher, executor);
+        }
+        if (existing != null) {
+            // Carga síncrona (ou em segundo plano) em andamento: só acompanha o resultado
+            return existing.copy();
+        }
+
+        load.task = new FutureTask<>(() -> {
+            try {
+                // Outra carga pode ter terminado entre a consulta e o registro acima
+                CachedLibrary cached = getIfPresent(steamId);
+                if (cached != null) {
+                    load.complete(cached);
+                    return;
+                }
+                loads.increment();
+                CachedLibrary library = put(steamId, refresher.refresh(steamId, stale));
+                inFlight.remove(steamId, load);
+                load.complete(library);
+            } catch (RuntimeException e) {
+                if (!load.isDone()) {
+                    loadFailures.increment();
+                }
+                load.completeExceptionally(e);
+            } finally {
+                inFlight.remove(steamId, load);
+            }
+        }, null);
+        try {
+            executor.execute(load.task);
+        } catch (RuntimeException e) {
+            // Executor recusou a tarefa (ex: desligando)
+            inFlight.remove(steamId, load);
+            load.completeExceptionally(e);
+        }
+        return waiter(steamId, load);
+    }
+
+    /**
+     * Future de um interessado na carga: cancelar ele só tira este interessado
+     */
+    private CompletableFuture<CachedLibrary> waiter(String steamId, AsyncLoad load) {
+        CompletableFuture<CachedLibrary> waiter = load.copy();
+        waiter.whenComplete((library, error) -> {
+            if (waiter.isCancelled()) {
+                release(steamId, load);
+            } else {
+                load.waiters.decrementAndGet();
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * Tira um interessado da carga; o último a sair de uma carga ainda em andamento cancela a carga
+     */
+    private void release(String steamId, AsyncLoad load) {
+        if (load.waiters.decrementAndGet() == 0 && !load.isDone()) {
+            cancelledLoads.increment();
+            inFlight.remove(steamId, load);
+            load.task.cancel(true);
+            load.cancel(false);
+        }
+    }
+
+    /**
+     * Carga iniciada por getAsync: sabe quantos interessados ainda esperam por ela
+     * e qual tarefa interromper quando todos desistirem
+     */
+    private static final class AsyncLoad extends CompletableFuture<CachedLibrary> {
+        // Começa com 1: quem iniciou a carga
+        private final AtomicInteger waiters = new AtomicInteger(1);
+        private volatile FutureTask<Void> task;
+
+        /**
+         * Entra como mais um interessado, se a carga ainda não foi abandonada por todos
+         */
+        boolean addWaiter() {
+            while (true) {
+                int current = waiters.get();
+                if (current == 0) {
+                    return false;
+                }
+                if (waiters.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Atualiza uma biblioteca em segundo plano, sem bloquear quem chamou
+     *
+     * Se já houver uma carga em andamento para o SteamID, não faz nada.
+     * Em caso de erro, a entrada atual do cache é mantida.
+     */
+    public void refreshAsync(String steamId, Function<String, GameLibrary> loader) {
+        CompletableFuture<CachedLibrary> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(steamId, future) != null) {
+            return;
+        }
+        backgroundRefreshes.increment();
+        refreshExecutor.execute(() -> {
+            try {
+                loads.increment();
+                future.complete(put(steamId, loader.apply(steamId)));
+            } catch (RuntimeException e) {
+                loadFailures.increment();
+                future.completeExceptionally(e);
+                log.warn("Erro ao atualizar biblioteca {} em segundo plano: {}", steamId, e.getMessage());
+            } finally {
+                inFlight.remove(steamId, future);
+            }
+        });
+    }
+
+    /**
+     * Agenda uma atualização em segundo plano para quando a carga em andamento terminar
+     *
+     * Feito para ser chamado de dentro de um loader (ex: entrada montada a partir do snapshot):
+     * nesse momento a própria carga está no inFlight, então refreshAsync não faria nada.
+     * Se a carga falhar, nada é agendado (a próxima requisição carrega de novo).
+     */
+    public void refreshAfterLoad(String steamId, Function<String, GameLibrary> loader) {
+        CompletableFuture<CachedLibrary> current = inFlight.get(steamId);
+        if (current == null) {
+            refreshAsync(steamId, loader);
+            return;
+        }
+        current.whenComplete((library, error) -> {
+            if (error == null) {
+                refreshAsync(steamId, loader);
+            }
+        });
+    }
+
+    /**
+     * Retorna a biblioteca guardada (se existir e não estiver expirada), sem carregar
+     */
+    public CachedLibrary getIfPresent(String steamId) {
+        synchronized (entries) {
+            Entry entry = entries.get(steamId);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry)) {
+                removeEntry(steamId, entry);
+                expirations.increment();
+                return null;
+            }
+            return entry.library();
+        }
+    }
+
+    /**
+     * Guarda uma biblioteca no cache, removendo as menos usadas se passar do peso máximo
+     * @return A entrada criada para a biblioteca
+     */
+    public CachedLibrary put(String steamId, GameLibrary library) {
+        return put(steamId, new CachedLibrary(library, System.currentTimeMillis()));
+    }
+
+    /**
+     * Guarda uma entrada já montada (ex: atualização parcial de uma entrada anterior)
+     * @return A própria entrada
+     */
+    public CachedLibrary put(String steamId, CachedLibrary library) {
+        Entry entry = new Entry(library);
+        synchronized (entries) {
+            // Registrado antes de pesar: resposta guardada depois disso recalcula o peso
+            library.onSerializedResponseStored(() -> reweigh(steamId, entry));
+            entry.weight = weightOf(library);
+            Entry previous = entries.put(steamId, entry);
+            if (previous != null) {
+                currentWeight -= previous.weight();
+            }
+            currentWeight += entry.weight();
+            evictIfNeeded(steamId);
+        }
+        return entry.library();
+    }
+
+    /**
+     * Recalcula o peso de uma entrada que ganhou uma resposta serializada
+     * (se ela ainda for a entrada atual do SteamID) e remove as menos usadas se passar do máximo
+     */
+    private void reweigh(String steamId, Entry entry) {
+        synchronized (entries) {
+            if (entries.get(steamId) != entry) {
+                return;
+            }
+            long weight = weightOf(entry.library());
+            currentWeight += weight - entry.weight;
+            entry.weight = weight;
+            evictIfNeeded(steamId);
+        }
+    }
+
+    /**
+     * Remove uma biblioteca do cache
+     */
+    public void invalidate(String steamId) {
+        synchronized (entries) {
+            Entry entry = entries.get(steamId);
+            if (entry != null) {
+                removeEntry(steamId, entry);
+            }
+        }
+    }
+
+    /**
+     * Retorna os contadores atuais do cache
+     */
+    public CacheStats getStats() {
+        int size;
+        long weight;
+        synchronized (entries) {
+            size = entries.size();
+            weight = currentWeight;
+        }
+        return new CacheStats(size, weight, maxWeight, ttlSeconds, emptyTtlSeconds,
+                hits.sum(), misses.sum(), loads.sum(), loadFailures.sum(),
+                evictions.sum(), expirations.sum(), backgroundRefreshes.sum(), cancelledLoads.sum(), inFlight.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Remove entradas do início do mapa (menos usadas) até voltar ao peso máximo
+     * A entrada recém-inserida só é removida se sozinha já passar do limite
+     */
+    private void evictIfNeeded(String justInserted) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (currentWeight > maxWeight && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getKey().equals(justInserted) && entries.size() > 1) {
+                continue;
+            }
+            currentWeight -= eldest.getValue().weight();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    private void removeEntry(String steamId, Entry entry) {
+        entries.remove(steamId);
+        currentWeight -= entry.weight();
+    }
+
+    private boolean isExpired(Entry entry) {
+        long ttl = entry.library().isEmpty() ? emptyTtlSeconds : ttlSeconds;
+        return System.currentTimeMillis() - entry.library().loadedAt() > ttl * 1000;
+    }
+
+    /**
+     * Aguarda uma carga feita por outra thread, repassando o erro original
+     */
+    private static CachedLibrary await(CompletableFuture<CachedLibrary> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrompido aguardando carga da biblioteca");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Monta a nova entrada de um SteamID a partir da entrada expirada (null se não houver)
+     */
+    @FunctionalInterface
+    public interface Refresher {
+        CachedLibrary refresh(String steamId, CachedLibrary stale);
+    }
+
+    /**
+     * Peso de uma biblioteca: número de jogos (mínimo 1, para contar bibliotecas vazias)
+     * mais os bytes das respostas serializadas guardadas nela
+     */
+    private static long weightOf(CachedLibrary library) {
+        return Math.max(1, library.size()) + library.serializedBytes() / BYTES_PER_WEIGHT;
+    }
+
+    /**
+     * Entrada do cache (a biblioteca já guarda o momento em que foi carregada)
+     * O peso fica guardado na entrada para o total poder ser corrigido quando ele muda
+     */
+    private static final class Entry {
+        private final CachedLibrary library;
+
+        // Peso contado em currentWeight (protegido pelo lock de entries)
+        private long weight;
+
+        Entry(CachedLibrary library) {
+            this.library = library;
+        }
+
+        CachedLibrary library() {
+            return library;
+        }
+
+        long weight() {
+            return weight;
+        }
+    }
+
+    /**
+     * Classe para retornar os contadores do cache
+     */
+    public static class CacheStats {
+        private final int size;
+        private final long weight;
+        private final long maxWeight;
+        private final long ttlSeconds;
+        private final long emptyTtlSeconds;
+        private final long hits;
+        private final long misses;
+        private final long loads;
+        private final long loadFailures;
+        private final long evictions;
+        private final long expirations;
+        private final long backgroundRefreshes;
+        private final long cancelledLoads;
+        private final int inFlightLoads;
+
+        public CacheStats(int size, long weight, long maxWeight, long ttlSeconds, long emptyTtlSeconds,
+                          long hits, long misses, long loads, long loadFailures,
+                          long evictions, long expirations, long backgroundRefreshes, long cancelledLoads,
+                          int inFlightLoads) {
+            this.size = size;
+            this.weight = weight;
+            this.maxWeight = maxWeight;
+            this.ttlSeconds = ttlSeconds;
+            this.emptyTtlSeconds = emptyTtlSeconds;
+            this.hits = hits;
+            this.misses = misses;
+            this.loads = loads;
+            this.loadFailures = loadFailures;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.backgroundRefreshes = backgroundRefreshes;
+            this.cancelledLoads = cancelledLoads;
+            this.inFlightLoads = inFlightLoads;
+        }
+
+        // Getters
+        public int getSize() { return size; }
+        public long getWeight() { return weight; }
+        public long getMaxWeight() { return maxWeight; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public long getEmptyTtlSeconds() { return emptyTtlSeconds; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getLoads() { return loads; }
+        public long getLoadFailures() { return loadFailures; }
+        public long getEvictions() { return evictions; }
+        public long getExpirations() { return expirations; }
+        public long getBackgroundRefreshes() { return backgroundRefreshes; }
+        public long getCancelledLoads() { return cancelledLoads; }
+        public int getInFlightLoads() { return inFlightLoads; }
+
+        // Taxa de acerto (0.0 a 1.0)
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.perigosa.steamviewer.service;
+
+/**
+ * Resultado da busca de uma biblioteca
+ *
+ * Diferencia "o usuário não tem jogos" (EMPTY) de "a Steam API não respondeu" (UNAVAILABLE)
+ * e de "a chamada foi segurada por limite de uso" (THROTTLED). Nos dois últimos casos
+ * não há biblioteca, só o tempo sugerido para tentar de novo.
+ * NOT_FOUND indica um nome customizado (ou link de perfil) que não existe na Steam.
+ *
+ * @param status Situação da busca
+ * @param library Entrada do cache (vazia quando a Steam API não respondeu)
+ * @param retryAfterSeconds Segundos até valer a pena tentar de novo (0 quando disponível)
+ */
+public record LibraryResult(Status status, CachedLibrary library, long retryAfterSeconds) {
+
+    public enum Status { OK, EMPTY, NOT_FOUND, UNAVAILABLE, THROTTLED }
+
+    /**
+     * Biblioteca carregada (OK ou EMPTY, conforme ela tenha jogos)
+     */
+    public static LibraryResult of(CachedLibrary library) {
+        return new LibraryResult(library.isEmpty() ? Status.EMPTY : Status.OK, library, 0);
+    }
+
+    public static LibraryResult notFound() {
+        return new LibraryResult(Status.NOT_FOUND, CachedLibrary.empty(), 0);
+    }
+
+    public static LibraryResult unavailable(long retryAfterSeconds) {
+        return new LibraryResult(Status.UNAVAILABLE, CachedLibrary.empty(), retryAfterSeconds);
+    }
+
+    public static LibraryResult throttled(long retryAfterSeconds) {
+        return new LibraryResult(Status.THROTTLED, CachedLibrary.empty(), retryAfterSeconds);
+    }
+
+    /**
+     * Se existe biblioteca para responder (mesmo que vazia)
+     */
+    public boolean isAvailable() {
+        return status == Status.OK || status == Status.EMPTY;
+    }
+}
@@ -0,0 +1,536 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Armazena em disco a última versão de cada biblioteca buscada na Steam API
+ *
+ * Depois de um restart/deploy, o cache em memória começa vazio. Com este store ligado,
+ * a primeira consulta de um SteamID pode ser respondida com a biblioteca salva em disco
+ * enquanto uma atualização é feita em segundo plano.
+ *
+ * Formato do arquivo (append-only), um registro por biblioteca salva:
+ *   [int tamanho do corpo][int CRC32 do corpo][corpo]
+ * Corpo:
+ *   [byte versão][UTF steamId][long fetchedAt][int quantidade de jogos]
+ *   e para cada jogo: [int appId][int playtime][UTF nome][byte tipo do ícone][hash do ícone]
+ * O hash do ícone (40 caracteres hexadecimais) é guardado como 20 bytes crus, do mesmo
+ * jeito que fica na GameLibrary; hashes fora desse formato são guardados como texto.
+ * Registros de uma versão anterior do formato são ignorados (a biblioteca é buscada de novo).
+ *
+ * O índice (SteamID -> posição do registro mais recente) só é montado no primeiro acesso,
+ * e os registros só são decodificados quando alguém pede aquele SteamID.
+ *
+ * Leituras e gravações no arquivo não seguram o lock do índice: cada gravação reserva sua faixa
+ * no fim do arquivo e escreve em paralelo com as outras. A compactação roda em uma thread de
+ * segundo plano; só a troca do arquivo compactado pelo atual bloqueia (por pouco tempo) quem lê e grava.
+ */
+@Component
+public class LibrarySnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LibrarySnapshotStore.class);
+
+    private static final byte FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+
+    // Tipos de ícone gravados no arquivo
+    private static final byte ICON_NONE = 0;
+    private static final byte ICON_HASH_BYTES = 1;
+    private static final byte ICON_TEXT = 2;
+
+    // Liga/desliga o store (desligado por padrão)
+    @Value("${steam.snapshot.enabled:false}")
+    private boolean enabled;
+
+    // Caminho do arquivo de snapshots
+    @Value("${steam.snapshot.file:data/library-snapshots.bin}")
+    private String filePath;
+
+    // Idade máxima de um snapshot para ainda ser usado (e mantido na compactação)
+    @Value("${steam.snapshot.max-age-hours:24}")
+    private long maxAgeHours;
+
+    // Tamanho mínimo do arquivo para considerar compactação
+    @Value("${steam.snapshot.compact-min-bytes:8388608}")
+    private long compactMinBytes;
+
+    // Arquivo aberto; usado só com channelLock: leitura/gravação com o lock compartilhado,
+    // troca pelo arquivo compactado com o lock exclusivo
+    private FileChannel channel;
+    private final ReadWriteLock channelLock = new ReentrantReadWriteLock();
+
+    // SteamID -> registro mais recente (null até o primeiro acesso), protegido por this
+    private Map<String, RecordRef> index;
+
+    // Bytes ocupados pelos registros mais recentes de cada SteamID
+    private long liveBytes;
+
+    // Fim do arquivo, incluindo as faixas já reservadas por gravações em andamento
+    private long fileEnd;
+
+    // Uma compactação por vez (a de segundo plano e a chamada direta de compact())
+    private final Object compactionLock = new Object();
+
+    // Thread da compactação em segundo plano (daemon para não segurar o desligamento)
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Se já existe uma compactação esperando na fila
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+    /**
+     * Snapshot de uma biblioteca lida do disco
+     */
+    public record Snapshot(GameLibrary library, long fetchedAt) {
+    }
+
+    /**
+     * Posição de um registro dentro do arquivo
+     */
+    private record RecordRef(long offset, int totalSize, long fetchedAt) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Busca o snapshot mais recente de um SteamID, se existir e ainda não passou da idade máxima
+     * @return Snapshot ou null
+     */
+    public Snapshot find(String steamId) {
+        if (!enabled) {
+            return null;
+        }
+        channelLock.readLock().lock();
+        try {
+            RecordRef ref;
+            synchronized (this) {
+                ensureIndexed();
+                ref = index.get(steamId);
+            }
+            if (ref == null || isTooOld(ref.fetchedAt())) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(ref.totalSize() - HEADER_SIZE);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, ref.offset() + HEADER_SIZE + buffer.position()) < 0) {
+                    return null;
+                }
+            }
+            RecordHeader record = decode(buffer.array());
+            return record != null ? record.snapshot() : null;
+        } catch (IOException e) {
+            log.error("Erro ao ler snapshot da biblioteca", e);
+            return null;
+        } finally {
+            channelLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Grava a biblioteca no fim do arquivo e agenda a compactação se houver muitos registros antigos
+     */
+    public void save(String steamId, GameLibrary library) {
+        if (!enabled) {
+            return;
+        }
+        boolean compact;
+        channelLock.readLock().lock();
+        try {
+            long fetchedAt = System.currentTimeMillis();
+            byte[] body = encode(steamId, library, fetchedAt);
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + body.length);
+            buffer.putInt(body.length).putInt(crc(body)).put(body).flip();
+
+            // Reserva a faixa no fim do arquivo; a escrita acontece fora do lock do índice
+            long offset;
+            synchronized (this) {
+                ensureIndexed();
+                offset = fileEnd;
+                fileEnd += buffer.remaining();
+            }
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, offset + buffer.position());
+            }
+            synchronized (this) {
+                track(steamId, new RecordRef(offset, HEADER_SIZE + body.length, fetchedAt));
+                compact = shouldCompact();
+            }
+        } catch (IOException e) {
+            log.error("Erro ao gravar snapshot da biblioteca", e);
+            return;
+        } finally {
+            channelLock.readLock().unlock();
+        }
+        if (compact) {
+            scheduleCompaction();
+        }
+    }
+
+    /**
+     * Reescreve o arquivo mantendo apenas o registro mais recente de cada SteamID
+     * que ainda está dentro da idade máxima
+     *
+     * A cópia é feita sem bloquear find() e save(); os registros gravados durante a cópia
+     * entram no arquivo novo na hora da troca, que é a única parte com o lock exclusivo.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            if (!enabled) {
+                return;
+            }
+            Map<String, RecordRef> copied;
+            channelLock.readLock().lock();
+            try {
+                synchronized (this) {
+                    ensureIndexed();
+                    copied = new HashMap<>(index);
+                }
+            } finally {
+                channelLock.readLock().unlock();
+            }
+
+            Path path = Paths.get(filePath);
+            Path tmp = path.resolveSibling(path.getFileName() + ".compact");
+            Map<String, RecordRef> compacted = new HashMap<>();
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                long position;
+                channelLock.readLock().lock();
+                try {
+                    position = copyLive(copied, out, compacted, 0);
+                } finally {
+                    channelLock.readLock().unlock();
+                }
+                out.force(true);
+
+                channelLock.writeLock().lock();
+                try {
+                    // Registros gravados enquanto a cópia acontecia
+                    Map<String, RecordRef> added = new HashMap<>();
+                    synchronized (this) {
+                        for (Map.Entry<String, RecordRef> entry : index.entrySet()) {
+                            if (!entry.getValue().equals(copied.get(entry.getKey()))) {
+                                added.put(entry.getKey(), entry.getValue());
+                            }
+                        }
+                    }
+                    position = copyLive(added, out, compacted, position);
+                    out.force(true);
+
+                    // Troca o arquivo com o antigo ainda aberto: se a troca falhar, nada muda
+                    try {
+                        Files.move(tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    FileChannel previous = channel;
+                    try {
+                        channel = openChannel(path);
+                    } catch (IOException e) {
+                        // O arquivo já é o compactado: o próximo acesso reabre e monta o índice de novo
+                        channel = null;
+                        synchronized (this) {
+                            index = null;
+                        }
+                        throw e;
+                    } finally {
+                        previous.close();
+                    }
+                    synchronized (this) {
+                        index = compacted;
+                        liveBytes = position;
+                        fileEnd = position;
+                    }
+                } finally {
+                    channelLock.writeLock().unlock();
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /**
+     * Copia para "out" os registros que ainda estão dentro da idade máxima
+     * @return Posição no arquivo novo depois do último registro copiado
+     */
+    private long copyLive(Map<String, RecordRef> refs, FileChannel out, Map<String, RecordRef> compacted,
+                          long position) throws IOException {
+        for (Map.Entry<String, RecordRef> entry : refs.entrySet()) {
+            RecordRef ref = entry.getValue();
+            if (isTooOld(ref.fetchedAt())) {
+                continue;
+            }
+            long copied = 0;
+            while (copied < ref.totalSize()) {
+                copied += channel.transferTo(ref.offset() + copied, ref.totalSize() - copied, out);
+            }
+            compacted.put(entry.getKey(), new RecordRef(position, ref.totalSize(), ref.fetchedAt()));
+            position += ref.totalSize();
+        }
+        return position;
+    }
+
+    /**
+     * Agenda a compactação na thread de segundo plano
+     */
+    private void scheduleCompaction() {
+        if (!compactionPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compactionExecutor.execute(() -> {
+                compactionPending.set(false);
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    log.error("Erro ao compactar snapshots de bibliotecas", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Desligando: a compactação fica para a próxima gravação
+            compactionPending.set(false);
+        }
+    }
+
+    /**
+     * Retorna estatísticas do arquivo de snapshots
+     */
+    public synchronized SnapshotStats getStats() {
+        if (!enabled || index == null) {
+            return new SnapshotStats(enabled, 0, 0, 0);
+        }
+        return new SnapshotStats(true, index.size(), fileEnd, liveBytes);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        compactionExecutor.shutdown();
+        channelLock.writeLock().lock();
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            channelLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Monta o índice lendo apenas os cabeçalhos e o início de cada registro
+     * Um registro incompleto ou corrompido no fim do arquivo (ex: queda no meio da escrita) é descartado
+     */
+    private void ensureIndexed() throws IOException {
+        if (index != null) {
+            return;
+        }
+        Path path = Paths.get(filePath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = openChannel(path);
+        index = new HashMap<>();
+        liveBytes = 0;
+
+        long size = channel.size();
+        long offset = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            channel.read(header, offset);
+            header.flip();
+            int bodyLength = header.getInt();
+            int expectedCrc = header.getInt();
+            if (bodyLength <= 0 || offset + HEADER_SIZE + bodyLength > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(bodyLength);
+            channel.read(body, offset + HEADER_SIZE);
+            if (crc(body.array()) != expectedCrc) {
+                break;
+            }
+            RecordHeader record = readHeader(body.array());
+            track(record.steamId(), new RecordRef(offset, HEADER_SIZE + bodyLength, record.fetchedAt()));
+            offset += HEADER_SIZE + bodyLength;
+        }
+
+        if (offset < size) {
+            log.warn("Snapshot de bibliotecas com final inválido, descartando {} bytes", size - offset);
+            channel.truncate(offset);
+        }
+        fileEnd = offset;
+    }
+
+    /**
+     * Registra a posição do registro mais recente de um SteamID
+     * Duas gravações simultâneas do mesmo SteamID: vale a que ficou mais para o fim do arquivo
+     */
+    private void track(String steamId, RecordRef ref) {
+        RecordRef previous = index.get(steamId);
+        if (previous != null && previous.offset() > ref.offset()) {
+            return;
+        }
+        index.put(steamId, ref);
+        if (previous != null) {
+            liveBytes -= previous.totalSize();
+        }
+        liveBytes += ref.totalSize();
+    }
+
+    /**
+     * Compacta quando o arquivo passou do tamanho mínimo e mais da metade dele são registros antigos
+     */
+    private boolean shouldCompact() {
+        return fileEnd >= compactMinBytes && liveBytes * 2 < fileEnd;
+    }
+
+    private boolean isTooOld(long fetchedAt) {
+        return System.currentTimeMillis() - fetchedAt > maxAgeHours * 3600_000L;
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static int crc(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Codifica uma biblioteca no formato binário descrito no cabeçalho da classe
+     */
+    static byte[] encode(String steamId, GameLibrary library, long fetchedAt) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + library.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        out.writeUTF(steamId);
+        out.writeLong(fetchedAt);
+        out.writeInt(library.size());
+
+        byte[] hash = new byte[GameLibrary.ICON_HASH_BYTES];
+        for (int i = 0; i < library.size(); i++) {
+            out.writeInt(library.appIdAt(i));
+            out.writeInt(library.playtimeAt(i));
+            out.writeUTF(library.nameAt(i) == null ? "" : library.nameAt(i));
+
+            if (library.copyIconHash(i, hash)) {
+                out.writeByte(ICON_HASH_BYTES);
+                out.write(hash);
+            } else if (library.iconHashAt(i) != null) {
+                out.writeByte(ICON_TEXT);
+                out.writeUTF(library.iconHashAt(i));
+            } else {
+                out.writeByte(ICON_NONE);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodifica um registro completo
+     * @return Registro ou null se foi gravado em outra versão do formato
+     */
+    static RecordHeader decode(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        if (in.readByte() != FORMAT_VERSION) {
+            return null;
+        }
+        String steamId = in.readUTF();
+        long fetchedAt = in.readLong();
+        int count = in.readInt();
+
+        GameLibrary.Builder library = GameLibrary.builder(count, SteamService.STEAM_MEDIA_URL);
+        byte[] hash = new byte[GameLibrary.ICON_HASH_BYTES];
+        for (int i = 0; i < count; i++) {
+            int appId = in.readInt();
+            int playtime = in.readInt();
+            String name = GameNameTable.canonical(appId, in.readUTF());
+            switch (in.readByte()) {
+                case ICON_HASH_BYTES:
+                    in.readFully(hash);
+                    library.addRaw(appId, name, playtime, hash);
+                    break;
+                case ICON_TEXT:
+                    library.add(appId, name, playtime, in.readUTF());
+                    break;
+                case ICON_NONE:
+                default:
+                    library.addRaw(appId, name, playtime, null);
+            }
+        }
+        return new RecordHeader(steamId, fetchedAt, new Snapshot(library.build(), fetchedAt));
+    }
+
+    /**
+     * Lê só o SteamID e a data de um registro (usado para montar o índice)
+     */
+    private static RecordHeader readHeader(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        in.readByte();
+        String steamId = in.readUTF();
+        long fetchedAt = in.readLong();
+        return new RecordHeader(steamId, fetchedAt, null);
+    }
+
+    private record RecordHeader(String steamId, long fetchedAt, Snapshot snapshot) {
+    }
+
+    /**
+     * Classe para retornar estatísticas do arquivo de snapshots
+     */
+    public static class SnapshotStats {
+        private final boolean enabled;
+        private final int libraries;
+        private final long fileBytes;
+        private final long liveBytes;
+
+        public SnapshotStats(boolean enabled, int libraries, long fileBytes, long liveBytes) {
+            this.enabled = enabled;
+            this.libraries = libraries;
+            this.fileBytes = fileBytes;
+            this.liveBytes = liveBytes;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getLibraries() { return libraries; }
+        public long getFileBytes() { return fileBytes; }
+        public long getLiveBytes() { return liveBytes; }
+    }
+}
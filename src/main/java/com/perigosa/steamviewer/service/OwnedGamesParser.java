@@ -0,0 +1,127 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.perigosa.steamviewer.model.GameLibrary;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Leitor "streaming" da resposta do IPlayerService/GetOwnedGames
+ *
+ * Em vez de montar primeiro um SteamApiResponse com a lista de GameData e depois
+ * converter tudo para Game (duas listas completas na memória), lê o JSON token
+ * a token e grava cada jogo direto na GameLibrary (arrays compactos). Campos que
+ * não usamos (playtime_windows_forever, rtime_last_played, etc.) são pulados sem criar objetos.
+ */
+public final class OwnedGamesParser {
+
+    // JsonFactory é thread-safe e pode ser compartilhada
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private OwnedGamesParser() {
+    }
+
+    /**
+     * Resultado da leitura
+     * @param library Jogos encontrados
+     * @param visible Se a resposta trouxe "game_count" (perfis privados retornam "response" vazio)
+     */
+    public record Result(GameLibrary library, boolean visible) {
+    }
+
+    /**
+     * Lê a resposta da Steam API e retorna os jogos encontrados
+     * @param body Corpo da resposta (JSON)
+     * @param iconBaseUrl Prefixo das URLs de ícone
+     * @return Biblioteca (vazia se a resposta não tiver o campo "games")
+     */
+    public static GameLibrary parse(InputStream body, String iconBaseUrl) throws IOException {
+        return read(body, iconBaseUrl).library();
+    }
+
+    /**
+     * Mesmo que parse, mas informa também se a biblioteca estava visível
+     * (diferencia "perfil sem jogos" de "perfil privado")
+     */
+    public static Result read(InputStream body, String iconBaseUrl) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new Result(GameLibrary.empty(), false);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("response".equals(field) && value == JsonToken.START_OBJECT) {
+                    return parseResponse(parser, iconBaseUrl);
+                }
+                parser.skipChildren();
+            }
+            return new Result(GameLibrary.empty(), false);
+        }
+    }
+
+    /**
+     * Lê o conteúdo do objeto "response": game_count (para dimensionar a lista) e games
+     */
+    private static Result parseResponse(JsonParser parser, String iconBaseUrl) throws IOException {
+        int expectedCount = 16;
+        boolean visible = false;
+        GameLibrary.Builder games = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("game_count".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                expectedCount = Math.max(0, parser.getIntValue());
+                visible = true;
+            } else if ("games".equals(field) && value == JsonToken.START_ARRAY) {
+                games = GameLibrary.builder(expectedCount, iconBaseUrl);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    parseGame(parser, games);
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        GameLibrary library = games != null ? games.build() : GameLibrary.empty();
+        return new Result(library, visible || games != null);
+    }
+
+    /**
+     * Lê um jogo (o parser está no START_OBJECT do jogo) e adiciona na biblioteca
+     */
+    private static void parseGame(JsonParser parser, GameLibrary.Builder games) throws IOException {
+        int appId = 0;
+        String name = null;
+        int playtime = 0;
+        String iconHash = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "appid":
+                    appId = parser.getValueAsInt();
+                    break;
+                case "name":
+                    name = parser.getValueAsString();
+                    break;
+                case "playtime_forever":
+                    playtime = parser.getValueAsInt();
+                    break;
+                case "img_icon_url":
+                    iconHash = parser.getValueAsString();
+                    break;
+                default:
+                    if (value.isStructStart()) {
+                        parser.skipChildren();
+                    }
+            }
+        }
+
+        games.add(appId, GameNameTable.canonical(appId, name), playtime, iconHash);
+    }
+}
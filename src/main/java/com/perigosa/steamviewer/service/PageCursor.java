@@ -0,0 +1,55 @@
+package com.perigosa.steamviewer.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginação da lista de jogos
+ *
+ * Guarda a versão da biblioteca, a ordenação e a posição da próxima página.
+ * Para o cliente é um texto opaco (Base64 sem padding, seguro para URL).
+ * Com a versão no cursor, dá para detectar que a biblioteca mudou entre uma página e outra.
+ */
+public record PageCursor(String version, SortKey sortKey, int offset) {
+
+    private static final String PREFIX = "v1";
+
+    /**
+     * Converte o cursor no texto enviado ao cliente
+     */
+    public String encode() {
+        String raw = PREFIX + ":" + version + ":" + sortKey.getParameter() + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê o texto recebido do cliente
+     * @throws IllegalArgumentException se o cursor for inválido
+     */
+    public static PageCursor decode(String cursor) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        String[] parts = raw.split(":");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        SortKey sortKey = SortKey.fromParameter(parts[2]);
+        if (!sortKey.getParameter().equalsIgnoreCase(parts[2])) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        int offset;
+        try {
+            offset = Integer.parseInt(parts[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+        return new PageCursor(parts[1], sortKey, offset);
+    }
+}
@@ -0,0 +1,711 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Histórico do tempo de jogo (playtime_forever) de cada jogo dos usuários consultados
+ *
+ * Cada vez que uma biblioteca é carregada ou atualizada, os jogos cujo tempo aumentou desde
+ * a última amostra viram uma nova amostra (steamId, appId, data, tempo). Jogos que não mudaram
+ * não gravam nada, então o histórico cresce com o quanto o usuário joga, e não com o tamanho
+ * da biblioteca ou com a quantidade de consultas. O playtime_forever só cresce: um valor menor
+ * que o último gravado vem de dados antigos (ex: snapshot em disco) e é ignorado.
+ *
+ * Formato (append-only), em segmentos de tamanho fixo mapeados em memória (history-00000001.seg, ...):
+ *   [int magic][int versão][8 bytes reservados]
+ *   e registros de 20 bytes: [long steamId][int appId][int data em segundos][int playtime]
+ * Um registro com steamId 0 marca o fim dos dados do segmento. A primeira vez que um usuário
+ * aparece grava um registro com appId 0 (início do acompanhamento), mesmo sem jogos jogados.
+ *
+ * Quando o segmento ativo enche, ele é fechado e um novo é aberto; os segmentos fechados são então
+ * compactados em segundo plano: as amostras mais antigas que steam.history.raw-days ficam só com a
+ * última de cada dia por jogo (downsampling). Quem grava (a carga da biblioteca) só paga a troca de segmento.
+ *
+ * Em memória ficam só o último tempo de cada jogo por usuário (para saber o que mudou) e a posição
+ * das amostras de cada usuário nos segmentos; as consultas leem as amostras direto do arquivo mapeado.
+ */
+@Component
+public class PlaytimeHistoryStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PlaytimeHistoryStore.class);
+
+    private static final int MAGIC = 0x53475648; // "SGVH"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 20;
+
+    // appId do registro que marca o início do acompanhamento de um usuário
+    private static final int TRACKING_START = 0;
+
+    private static final String SEGMENT_PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    // Liga/desliga o histórico (desligado por padrão)
+    @Value("${steam.history.enabled:false}")
+    private boolean enabled;
+
+    // Pasta dos segmentos
+    @Value("${steam.history.dir:data/history}")
+    private String dirPath;
+
+    // Tamanho de cada segmento (16 MB = ~840 mil amostras)
+    @Value("${steam.history.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    // Amostras mais antigas que isso ficam só com a última de cada dia na compactação
+    @Value("${steam.history.raw-days:30}")
+    private int rawDays;
+
+    // Janela do bloco "tempo jogado nos últimos N dias" do dashboard
+    @Value("${steam.history.dashboard-days:14}")
+    private int dashboardDays;
+
+    // Segmentos em ordem de gravação (o último é o ativo); null até o primeiro acesso
+    private List<Segment> segments;
+
+    // SteamID64 -> último tempo de cada jogo e posição das amostras
+    private Map<Long, UserHistory> users;
+
+    private long samples;
+
+    // Uma compactação por vez (a de segundo plano e a chamada direta de compact())
+    private final Object compactionLock = new Object();
+
+    // Thread da compactação em segundo plano (daemon para não segurar o desligamento)
+    private final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "history-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Se já existe uma compactação esperando na fila (trocas seguidas de segmento viram uma só)
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+
+    /**
+     * Uma amostra do histórico
+     * @param appId Jogo
+     * @param timestamp Momento da amostra (segundos desde 1970)
+     * @param playtimeForever Tempo total do jogo naquele momento, em minutos
+     */
+    public record Sample(int appId, long timestamp, int playtimeForever) {
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getDashboardDays() {
+        return dashboardDays;
+    }
+
+    /**
+     * Grava as amostras dos jogos cujo tempo aumentou desde a última amostra
+     * Bibliotecas vazias (perfil privado, Steam fora do ar) não mudam o histórico
+     */
+    public void record(String steamId, GameLibrary library) {
+        record(steamId, library, System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Mesmo que record, com o momento da amostra informado (em segundos)
+     */
+    void record(String steamId, GameLibrary library, long timestamp) {
+        long id = parseSteamId(steamId);
+        if (!enabled || id <= 0 || library.isEmpty()) {
+            return;
+        }
+        long[] games = sortedGames(library);
+        int now = (int) timestamp;
+        synchronized (this) {
+            try {
+                ensureLoaded();
+                UserHistory user = users.get(id);
+                if (user == null) {
+                    user = new UserHistory(now);
+                    users.put(id, user);
+                    append(id, TRACKING_START, now, 0, user);
+                }
+                for (long game : games) {
+                    int appId = (int) (game >>> 32);
+                    int playtime = (int) game;
+                    if (appId != TRACKING_START && playtime > user.lastPlaytime(appId)) {
+                        append(id, appId, now, playtime, user);
+                    }
+                }
+            } catch (IOException e) {
+                log.error("Erro ao gravar histórico de tempo de jogo", e);
+            }
+        }
+    }
+
+    /**
+     * Amostras de um usuário dentro do período, em ordem de data
+     * @param appId Só as amostras deste jogo (null para todos)
+     * @param from Início do período em segundos (inclusivo)
+     * @param to Fim do período em segundos (inclusivo)
+     * @param maxSamples Quantidade máxima de amostras (as mais antigas do período primeiro)
+     * @return Amostras, ou lista vazia se o usuário não tem histórico
+     */
+    public synchronized List<Sample> samples(String steamId, Integer appId, long from, long to, int maxSamples) {
+        List<Sample> result = new ArrayList<>();
+        UserHistory user = findUser(steamId);
+        if (user == null) {
+            return result;
+        }
+        for (int i = 0; i < user.count && result.size() < maxSamples; i++) {
+            long position = user.positions[i];
+            int sampleAppId = appIdAt(position);
+            long timestamp = Integer.toUnsignedLong(timestampAt(position));
+            if (sampleAppId == TRACKING_START || (appId != null && sampleAppId != appId)
+                    || timestamp < from || timestamp > to) {
+                continue;
+            }
+            result.add(new Sample(sampleAppId, timestamp, playtimeAt(position)));
+        }
+        return result;
+    }
+
+    /**
+     * Tempo jogado desde o momento informado, por jogo (só jogos com tempo ganho)
+     *
+     * Para cada jogo: tempo da última amostra - tempo no início da janela (última amostra
+     * até o início; 0 se o jogo ainda não tinha sido jogado). Se o acompanhamento do usuário
+     * começou depois do início da janela, conta só a partir do início do acompanhamento.
+     *
+     * @return Ganho por jogo ou null se o usuário não tem histórico
+     */
+    public synchronized PlaytimeGain gainedSince(String steamId, long since) {
+        UserHistory user = findUser(steamId);
+        if (user == null) {
+            return null;
+        }
+        long windowStart = Math.max(since, Integer.toUnsignedLong(user.firstSeen));
+        Map<Integer, int[]> startAndLast = new HashMap<>();
+        for (int i = 0; i < user.count; i++) {
+            long position = user.positions[i];
+            int appId = appIdAt(position);
+            if (appId == TRACKING_START) {
+                continue;
+            }
+            int playtime = playtimeAt(position);
+            int[] values = startAndLast.computeIfAbsent(appId, id -> new int[2]);
+            if (Integer.toUnsignedLong(timestampAt(position)) <= windowStart) {
+                values[0] = playtime;
+            }
+            values[1] = playtime;
+        }
+
+        Map<Integer, Integer> gained = new HashMap<>();
+        startAndLast.forEach((appId, values) -> {
+            if (values[1] > values[0]) {
+                gained.put(appId, values[1] - values[0]);
+            }
+        });
+        return new PlaytimeGain(windowStart, gained);
+    }
+
+    /**
+     * Ganho de tempo de jogo de um usuário em uma janela
+     * @param windowStart Início efetivo da janela (segundos)
+     * @param minutesByAppId Minutos ganhos por jogo
+     */
+    public record PlaytimeGain(long windowStart, Map<Integer, Integer> minutesByAppId) {
+    }
+
+    /**
+     * Reescreve os segmentos fechados com as amostras antigas reduzidas à última de cada dia
+     *
+     * Uma amostra mais antiga que steam.history.raw-days sai se existe outra amostra do mesmo jogo,
+     * do mesmo usuário, no mesmo dia (UTC) e também antiga. O segmento ativo não é alterado.
+     * A leitura e a gravação dos arquivos novos acontecem sem bloquear record() e as consultas
+     * (os segmentos fechados não mudam mais); só a troca dos arquivos e a nova montagem do índice
+     * em memória a partir do disco seguram o lock.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            List<Segment> sealed;
+            synchronized (this) {
+                if (!enabled) {
+                    return;
+                }
+                ensureLoaded();
+                sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            }
+            if (sealed.isEmpty()) {
+                return;
+            }
+            List<Path> outputs = writeCompacted(sealed);
+            synchronized (this) {
+                // Fechado (ou recarregado) enquanto os arquivos novos eram gravados: descarta
+                if (segments == null || segments.size() <= sealed.size()
+                        || !segments.subList(0, sealed.size()).equals(sealed)) {
+                    for (Path output : outputs) {
+                        Files.deleteIfExists(output);
+                    }
+                    return;
+                }
+                // Troca os arquivos: cada segmento novo ocupa o lugar de um antigo (mesma ordem de nomes)
+                for (int i = 0; i < sealed.size(); i++) {
+                    Path path = sealed.get(i).path;
+                    if (i < outputs.size()) {
+                        Files.move(outputs.get(i), path, StandardCopyOption.REPLACE_EXISTING,
+                                StandardCopyOption.ATOMIC_MOVE);
+                    } else {
+                        Files.delete(path);
+                    }
+                }
+                reload();
+            }
+        }
+    }
+
+    /**
+     * Agenda a compactação dos segmentos fechados na thread de segundo plano
+     */
+    private void scheduleCompaction() {
+        if (!compactionPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            compactionExecutor.execute(() -> {
+                compactionPending.set(false);
+                try {
+                    compact();
+                } catch (IOException | RuntimeException e) {
+                    log.error("Erro ao compactar histórico de tempo de jogo", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Desligando: a compactação fica para a próxima troca de segmento
+            compactionPending.set(false);
+        }
+    }
+
+    /**
+     * Grava em arquivos temporários as amostras dos segmentos fechados que continuam
+     * @return Arquivos novos, na ordem dos segmentos que eles substituem
+     */
+    private List<Path> writeCompacted(List<Segment> sealed) throws IOException {
+        long cutoff = System.currentTimeMillis() / 1000 - (long) rawDays * SECONDS_PER_DAY;
+
+        // Marca as amostras que saem (um BitSet por segmento fechado), lendo os registros
+        // na ordem de gravação: a amostra anterior do mesmo usuário e jogo sai se for do mesmo dia
+        BitSet[] dropped = new BitSet[sealed.size()];
+        Map<UserGame, Long> previousByGame = new HashMap<>();
+        for (int s = 0; s < sealed.size(); s++) {
+            Segment segment = sealed.get(s);
+            dropped[s] = new BitSet(segment.count);
+            for (int r = 0; r < segment.count; r++) {
+                int offset = HEADER_SIZE + r * RECORD_SIZE;
+                int appId = segment.buffer.getInt(offset + 8);
+                if (appId == TRACKING_START) {
+                    continue;
+                }
+                long timestamp = Integer.toUnsignedLong(segment.buffer.getInt(offset + 12));
+                Long previous = previousByGame.put(new UserGame(segment.buffer.getLong(offset), appId), position(s, r));
+                if (previous == null || timestamp >= cutoff) {
+                    continue;
+                }
+                Segment previousSegment = sealed.get(segmentOf(previous));
+                long previousTimestamp = Integer.toUnsignedLong(
+                        previousSegment.buffer.getInt(HEADER_SIZE + recordOf(previous) * RECORD_SIZE + 12));
+                if (previousTimestamp / SECONDS_PER_DAY == timestamp / SECONDS_PER_DAY) {
+                    dropped[segmentOf(previous)].set(recordOf(previous));
+                }
+            }
+        }
+
+        // Copia as amostras que ficam para segmentos novos, na mesma ordem
+        int capacity = capacity(segmentBytes);
+        List<Path> outputs = new ArrayList<>();
+        ByteBuffer out = null;
+        for (int s = 0; s < sealed.size(); s++) {
+            Segment segment = sealed.get(s);
+            for (int r = 0; r < segment.count; r++) {
+                if (dropped[s].get(r)) {
+                    continue;
+                }
+                if (out == null || out.position() == HEADER_SIZE + capacity * RECORD_SIZE) {
+                    if (out != null) {
+                        outputs.add(writeTemporary(sealed.get(outputs.size()).path, out));
+                    }
+                    out = ByteBuffer.allocate(HEADER_SIZE + capacity * RECORD_SIZE);
+                    out.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(0);
+                }
+                out.put(segment.buffer.slice(HEADER_SIZE + r * RECORD_SIZE, RECORD_SIZE));
+            }
+        }
+        if (out != null) {
+            outputs.add(writeTemporary(sealed.get(outputs.size()).path, out));
+        }
+        return outputs;
+    }
+
+    /**
+     * Chave de um jogo de um usuário na compactação
+     */
+    private record UserGame(long steamId, int appId) {
+    }
+
+    /**
+     * Retorna estatísticas do histórico
+     */
+    public synchronized HistoryStats getStats() {
+        if (!enabled || segments == null) {
+            return new HistoryStats(enabled, 0, 0, 0, 0);
+        }
+        long fileBytes = 0;
+        for (Segment segment : segments) {
+            fileBytes += HEADER_SIZE + (long) segment.count * RECORD_SIZE;
+        }
+        return new HistoryStats(true, users.size(), samples, segments.size(), fileBytes);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        compactionExecutor.shutdown();
+        unmap();
+    }
+
+    /**
+     * Grava o segmento ativo no disco e solta os segmentos (o próximo acesso abre de novo)
+     */
+    private void unmap() {
+        if (segments != null) {
+            for (Segment segment : segments) {
+                if (!segment.buffer.isReadOnly()) {
+                    segment.buffer.force();
+                }
+            }
+        }
+        segments = null;
+        users = null;
+    }
+
+    private UserHistory findUser(String steamId) {
+        long id = parseSteamId(steamId);
+        if (!enabled || id <= 0) {
+            return null;
+        }
+        try {
+            ensureLoaded();
+        } catch (IOException e) {
+            log.error("Erro ao ler histórico de tempo de jogo", e);
+            return null;
+        }
+        return users.get(id);
+    }
+
+    /**
+     * Grava um registro no segmento ativo
+     * Quando ele enche, é fechado e um novo é aberto; a compactação fica para a thread de segundo plano
+     */
+    private void append(long steamId, int appId, int timestamp, int playtime, UserHistory user) throws IOException {
+        Segment active = segments.get(segments.size() - 1);
+        if (active.count == capacity(active.buffer.capacity())) {
+            active.buffer.force();
+            int sealedIndex = segments.size() - 1;
+            Path sealedPath = active.path;
+            segments.set(sealedIndex, new Segment(sealedPath, mapReadOnly(sealedPath), active.count));
+            active = createSegment(active.sequence() + 1);
+            segments.add(active);
+            scheduleCompaction();
+        }
+
+        int offset = HEADER_SIZE + active.count * RECORD_SIZE;
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(offset + 8, appId);
+        buffer.putInt(offset + 12, timestamp);
+        buffer.putInt(offset + 16, playtime);
+        // O steamId por último: é ele que marca o registro como gravado
+        buffer.putLong(offset, steamId);
+
+        user.add(position(segments.size() - 1, active.count), appId, playtime);
+        active.count++;
+        samples++;
+    }
+
+    /**
+     * Abre os segmentos e monta o índice em memória lendo todos os registros
+     */
+    private void ensureLoaded() throws IOException {
+        if (segments != null) {
+            return;
+        }
+        Path dir = Paths.get(dirPath);
+        Files.createDirectories(dir);
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+
+        List<Segment> loaded = new ArrayList<>();
+        users = new HashMap<>();
+        samples = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            boolean last = i == paths.size() - 1;
+            MappedByteBuffer buffer = last ? mapReadWrite(path, Math.max(segmentBytes, (int) Files.size(path)))
+                    : mapReadOnly(path);
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                log.warn("Segmento de histórico inválido, ignorando: {}", path);
+                continue;
+            }
+            Segment segment = new Segment(path, buffer, 0);
+            loaded.add(segment);
+            replay(loaded.size() - 1, segment);
+        }
+        if (loaded.isEmpty() || loaded.get(loaded.size() - 1).buffer.isReadOnly()) {
+            long sequence = loaded.isEmpty() ? 1 : loaded.get(loaded.size() - 1).sequence() + 1;
+            loaded.add(createSegment(sequence));
+        }
+        segments = loaded;
+    }
+
+    /**
+     * Lê os registros de um segmento até o primeiro vazio (ou incompleto)
+     */
+    private void replay(int segmentIndex, Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = capacity(buffer.capacity());
+        while (segment.count < capacity) {
+            int offset = HEADER_SIZE + segment.count * RECORD_SIZE;
+            long steamId = buffer.getLong(offset);
+            int timestamp = buffer.getInt(offset + 12);
+            if (steamId == 0 || timestamp == 0) {
+                break;
+            }
+            int appId = buffer.getInt(offset + 8);
+            UserHistory user = users.computeIfAbsent(steamId, id -> new UserHistory(timestamp));
+            user.add(position(segmentIndex, segment.count), appId, buffer.getInt(offset + 16));
+            segment.count++;
+            samples++;
+        }
+    }
+
+    private void reload() throws IOException {
+        unmap();
+        ensureLoaded();
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        Path path = Paths.get(dirPath).resolve(String.format("%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        MappedByteBuffer buffer = mapReadWrite(path, segmentBytes);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, FORMAT_VERSION);
+        return new Segment(path, buffer, 0);
+    }
+
+    private Path writeTemporary(Path target, ByteBuffer data) throws IOException {
+        Path tmp = target.resolveSibling(target.getFileName() + ".compact");
+        data.flip();
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(true);
+        }
+        return tmp;
+    }
+
+    private static MappedByteBuffer mapReadWrite(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static MappedByteBuffer mapReadOnly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static int capacity(int bytes) {
+        return (bytes - HEADER_SIZE) / RECORD_SIZE;
+    }
+
+    // Posição de um registro: índice do segmento nos 32 bits altos, índice do registro nos baixos
+    private static long position(int segment, int record) {
+        return ((long) segment << 32) | record;
+    }
+
+    private static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    private static int recordOf(long position) {
+        return (int) position;
+    }
+
+    private int appIdAt(long position) {
+        return segments.get(segmentOf(position)).buffer.getInt(HEADER_SIZE + recordOf(position) * RECORD_SIZE + 8);
+    }
+
+    private int timestampAt(long position) {
+        return segments.get(segmentOf(position)).buffer.getInt(HEADER_SIZE + recordOf(position) * RECORD_SIZE + 12);
+    }
+
+    private int playtimeAt(long position) {
+        return segments.get(segmentOf(position)).buffer.getInt(HEADER_SIZE + recordOf(position) * RECORD_SIZE + 16);
+    }
+
+    /**
+     * SteamID64 numérico (o histórico só guarda IDs já resolvidos)
+     * @return ID ou -1 se não for numérico
+     */
+    private static long parseSteamId(String steamId) {
+        try {
+            return Long.parseLong(steamId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Jogos da biblioteca em ordem de AppID (AppID nos 32 bits altos, tempo de jogo nos baixos)
+     */
+    private static long[] sortedGames(GameLibrary library) {
+        long[] games = new long[library.size()];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = ((long) library.appIdAt(i) << 32) | (library.playtimeAt(i) & 0xFFFFFFFFL);
+        }
+        Arrays.sort(games);
+        return games;
+    }
+
+    /**
+     * Converte segundos desde 1970 para o formato de data usado nas respostas
+     */
+    public static String formatTimestamp(long seconds) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(seconds), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    /**
+     * Um segmento aberto
+     * @param count Registros gravados
+     */
+    private static final class Segment {
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int count;
+
+        private Segment(Path path, MappedByteBuffer buffer, int count) {
+            this.path = path;
+            this.buffer = buffer;
+            this.count = count;
+        }
+
+        long sequence() {
+            String name = path.getFileName().toString();
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        }
+    }
+
+    /**
+     * Histórico de um usuário em memória
+     * Último tempo de cada jogo (AppIDs em ordem crescente) e posições das amostras em ordem de gravação
+     */
+    private static final class UserHistory {
+        private final int firstSeen;
+        private int[] appIds = new int[8];
+        private int[] playtimes = new int[8];
+        private int games;
+        private long[] positions = new long[8];
+        private int count;
+
+        private UserHistory(int firstSeen) {
+            this.firstSeen = firstSeen;
+        }
+
+        int lastPlaytime(int appId) {
+            int index = Arrays.binarySearch(appIds, 0, games, appId);
+            return index >= 0 ? playtimes[index] : 0;
+        }
+
+        void add(long position, int appId, int playtime) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = position;
+
+            int index = Arrays.binarySearch(appIds, 0, games, appId);
+            if (index >= 0) {
+                playtimes[index] = playtime;
+                return;
+            }
+            // As amostras de uma carga são gravadas em ordem de AppID: quase sempre entra no fim
+            int insertAt = -index - 1;
+            if (games == appIds.length) {
+                appIds = Arrays.copyOf(appIds, games * 2);
+                playtimes = Arrays.copyOf(playtimes, games * 2);
+            }
+            System.arraycopy(appIds, insertAt, appIds, insertAt + 1, games - insertAt);
+            System.arraycopy(playtimes, insertAt, playtimes, insertAt + 1, games - insertAt);
+            appIds[insertAt] = appId;
+            playtimes[insertAt] = playtime;
+            games++;
+        }
+    }
+
+    /**
+     * Classe para retornar estatísticas do histórico
+     */
+    public static class HistoryStats {
+        private final boolean enabled;
+        private final int users;
+        private final long samples;
+        private final int segments;
+        private final long bytes;
+
+        public HistoryStats(boolean enabled, int users, long samples, int segments, long bytes) {
+            this.enabled = enabled;
+            this.users = users;
+            this.samples = samples;
+            this.segments = segments;
+            this.bytes = bytes;
+        }
+
+        // Getters
+        public boolean isEnabled() { return enabled; }
+        public int getUsers() { return users; }
+        public long getSamples() { return samples; }
+        public int getSegments() { return segments; }
+        public long getBytes() { return bytes; }
+    }
+}
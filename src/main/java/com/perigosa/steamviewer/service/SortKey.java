@@ -0,0 +1,157 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Critérios de ordenação da biblioteca
+ *
+ * Cada critério calcula uma permutação de índices (int[]) sobre a GameLibrary.
+ * A permutação é guardada no CachedLibrary, então pedidos repetidos com a mesma
+ * ordenação não ordenam de novo.
+ *
+ * Para adicionar um critério novo basta criar uma constante aqui.
+ * Empates mantêm a ordem original da biblioteca (ordenação estável).
+ */
+public enum SortKey {
+
+    // Tempo de jogo, do maior para o menor (padrão)
+    PLAYTIME("playtime", true) {
+        @Override
+        int[] computeOrder(GameLibrary library) {
+            // Cada chave junta o tempo (negativo, para ficar decrescente) e o índice em um long,
+            // então um único Arrays.sort de primitivos resolve
+            long[] keys = new long[library.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (-(long) library.playtimeAt(i) << 32) | i;
+            }
+            return indexesOf(keys);
+        }
+    },
+
+    // Nome em ordem alfabética, respeitando maiúsculas/minúsculas e acentos do português
+    NAME("name", false) {
+        @Override
+        int[] computeOrder(GameLibrary library) {
+            Collator collator = nameCollator();
+
+            // CollationKey é calculada uma vez por jogo; comparar chaves é bem mais barato
+            // que chamar collator.compare a cada comparação da ordenação
+            CollationKey[] keys = new CollationKey[library.size()];
+            Integer[] indexes = new Integer[library.size()];
+            for (int i = 0; i < keys.length; i++) {
+                String name = library.nameAt(i);
+                keys[i] = name == null ? null : collator.getCollationKey(name);
+                indexes[i] = i;
+            }
+            // Jogos sem nome ficam no fim
+            Arrays.sort(indexes, (a, b) -> {
+                if (keys[a] == null || keys[b] == null) {
+                    return keys[a] == null ? (keys[b] == null ? 0 : 1) : -1;
+                }
+                return keys[a].compareTo(keys[b]);
+            });
+
+            int[] order = new int[indexes.length];
+            for (int i = 0; i < indexes.length; i++) {
+                order[i] = indexes[i];
+            }
+            return order;
+        }
+    },
+
+    // AppID crescente
+    APPID("appid", false) {
+        @Override
+        int[] computeOrder(GameLibrary library) {
+            long[] keys = new long[library.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ((long) library.appIdAt(i) << 32) | i;
+            }
+            return indexesOf(keys);
+        }
+    },
+
+    // Jogos nunca jogados primeiro (na ordem da biblioteca), depois os demais por tempo de jogo
+    NEVER_PLAYED_FIRST("neverPlayed", true) {
+        @Override
+        int[] computeOrder(GameLibrary library) {
+            int[] order = new int[library.size()];
+            int position = 0;
+            for (int i = 0; i < order.length; i++) {
+                if (library.playtimeAt(i) == 0) {
+                    order[position++] = i;
+                }
+            }
+            // Na ordem por tempo de jogo os nunca jogados são os últimos: basta copiar o começo dela
+            System.arraycopy(PLAYTIME.computeOrder(library), 0, order, position, order.length - position);
+            return order;
+        }
+    };
+
+    // Idioma usado na ordenação por nome
+    private static final Collator NAME_COLLATOR = Collator.getInstance(Locale.forLanguageTag("pt-BR"));
+
+    // Valor aceito no parâmetro sortBy
+    private final String parameter;
+
+    // Se a ordem depende do tempo de jogo (muda quando só os tempos são atualizados)
+    private final boolean usesPlaytime;
+
+    SortKey(String parameter, boolean usesPlaytime) {
+        this.parameter = parameter;
+        this.usesPlaytime = usesPlaytime;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public boolean usesPlaytime() {
+        return usesPlaytime;
+    }
+
+    /**
+     * Calcula a permutação de índices da biblioteca para este critério
+     */
+    abstract int[] computeOrder(GameLibrary library);
+
+    /**
+     * Collator usado na ordenação por nome
+     * Collator não é thread-safe: cada ordenação usa sua própria cópia
+     */
+    static Collator nameCollator() {
+        return (Collator) NAME_COLLATOR.clone();
+    }
+
+    /**
+     * Converte o parâmetro sortBy (sem diferenciar maiúsculas/minúsculas)
+     * Valores desconhecidos ou ausentes usam PLAYTIME, como antes
+     */
+    public static SortKey fromParameter(String sortBy) {
+        if (sortBy != null) {
+            for (SortKey key : values()) {
+                if (key.parameter.equalsIgnoreCase(sortBy) || key.name().equalsIgnoreCase(sortBy)) {
+                    return key;
+                }
+            }
+        }
+        return PLAYTIME;
+    }
+
+    /**
+     * Ordena as chaves (valor nos 32 bits altos, índice nos baixos) e devolve só os índices
+     */
+    private static int[] indexesOf(long[] keys) {
+        Arrays.sort(keys);
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+}
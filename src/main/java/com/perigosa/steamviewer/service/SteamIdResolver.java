@@ -0,0 +1,308 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.ResolveVanityResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converte o que o usuário digitou (SteamID64, nome customizado ou link do perfil) em SteamID64
+ *
+ * Nomes customizados (steamcommunity.com/id/nome) são resolvidos no ISteamUser/ResolveVanityURL.
+ * O resultado fica em cache:
+ * - nome encontrado: por bastante tempo (o SteamID de um nome quase nunca muda)
+ * - nome inexistente: por pouco tempo, para que buscas repetidas de um nome errado
+ *   não gastem chamadas da Steam API, mas um nome recém-criado apareça logo
+ * Erros da Steam API não ficam no cache.
+ * Pedidos simultâneos do mesmo nome fora do cache esperam uma única chamada à Steam API.
+ */
+@Service
+public class SteamIdResolver {
+
+    // SteamID64 de contas individuais: 17 dígitos começando com 7656119
+    private static final Pattern STEAM_ID64 = Pattern.compile("7656119\\d{10}");
+
+    // Nomes customizados aceitos pela Steam
+    private static final Pattern VANITY_NAME = Pattern.compile("[A-Za-z0-9_-]{2,32}");
+
+    // Links do perfil: .../profiles/{SteamID64} ou .../id/{nome}
+    private static final Pattern PROFILE_URL = Pattern.compile(
+            "(?:https?://)?(?:www\\.)?steamcommunity\\.com/(profiles|id)/([^/?#]+)/?.*", Pattern.CASE_INSENSITIVE);
+
+    // Caminho do método que resolve nomes customizados
+    private static final String RESOLVE_VANITY_PATH = "/ISteamUser/ResolveVanityURL/v0001/";
+
+    private final RestTemplate restTemplate;
+    private final String steamApiBaseUrl;
+    private final String steamApiKey;
+
+    // Tempo de vida das resoluções encontradas e das não encontradas (em ms)
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+
+    // Máximo de nomes guardados (os menos usados saem primeiro)
+    private final int maxEntries;
+
+    // LinkedHashMap em "access order" (LRU), protegido pelo lock do próprio mapa
+    private final LinkedHashMap<String, Entry> entries;
+
+    // Consultas em andamento, para que pedidos simultâneos do mesmo nome façam uma única chamada
+    private final ConcurrentHashMap<String, CompletableFuture<String>> lookups = new ConcurrentHashMap<>();
+
+    // Contadores para dimensionar o cache
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder notFound = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SteamIdResolver(RestTemplate steamRestTemplate,
+                           @Value("${steam.api.base-url:https://api.steampowered.com}") String steamApiBaseUrl,
+                           @Value("${steam.api.key}") String steamApiKey,
+                           @Value("${steam.vanity.ttl-hours:24}") long ttlHours,
+                           @Value("${steam.vanity.negative-ttl-seconds:300}") long negativeTtlSeconds,
+                           @Value("${steam.vanity.max-entries:10000}") int maxEntries) {
+        this.restTemplate = steamRestTemplate;
+        this.steamApiBaseUrl = steamApiBaseUrl;
+        this.steamApiKey = steamApiKey;
+        this.ttlMillis = TimeUnit.HOURS.toMillis(ttlHours);
+        this.negativeTtlMillis = TimeUnit.SECONDS.toMillis(negativeTtlSeconds);
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > SteamIdResolver.this.maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Resolve a entrada do usuário para um SteamID64
+     * @param input SteamID64, nome customizado ou link do perfil
+     * @return SteamID64, ou null se o nome não existe
+     * @throws RestClientException se a Steam API falhar
+     */
+    public String resolve(String input) {
+        String value = input == null ? "" : input.trim();
+
+        Matcher profileUrl = PROFILE_URL.matcher(value);
+        if (profileUrl.matches()) {
+            value = profileUrl.group(2);
+            if (profileUrl.group(1).equalsIgnoreCase("profiles")) {
+                return STEAM_ID64.matcher(value).matches() ? value : null;
+            }
+        }
+
+        if (STEAM_ID64.matcher(value).matches()) {
+            return value;
+        }
+        if (!VANITY_NAME.matcher(value).matches()) {
+            // Não é um nome válido na Steam: nem precisa perguntar
+            return null;
+        }
+
+        // A Steam não diferencia maiúsculas de minúsculas nos nomes customizados
+        String vanityName = value.toLowerCase(Locale.ROOT);
+        Entry cached = lookup(vanityName);
+        if (cached != null) {
+            return cached.steamId();
+        }
+
+        // Só quem cria a consulta chama a Steam API; os demais esperam o mesmo resultado
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> existing = lookups.putIfAbsent(vanityName, lookup);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            misses.increment();
+            String steamId = fetch(vanityName);
+            store(vanityName, steamId);
+            lookup.complete(steamId);
+            return steamId;
+
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+
+        } finally {
+            lookups.remove(vanityName, lookup);
+        }
+    }
+
+    /**
+     * Resolve sem chamar a Steam API: SteamID64, link de perfil com SteamID64 ou nome já no cache
+     * @return SteamID64, ou null se precisaria perguntar à Steam (ou se o nome não existe)
+     */
+    public String resolveCached(String input) {
+        String value = input == null ? "" : input.trim();
+
+        Matcher profileUrl = PROFILE_URL.matcher(value);
+        if (profileUrl.matches()) {
+            value = profileUrl.group(2);
+            if (profileUrl.group(1).equalsIgnoreCase("profiles")) {
+                return STEAM_ID64.matcher(value).matches() ? value : null;
+            }
+        }
+        if (STEAM_ID64.matcher(value).matches()) {
+            return value;
+        }
+        if (!VANITY_NAME.matcher(value).matches()) {
+            return null;
+        }
+        Entry cached = lookup(value.toLowerCase(Locale.ROOT));
+        return cached != null ? cached.steamId() : null;
+    }
+
+    /**
+     * Retorna os contadores atuais do cache de nomes
+     */
+    public VanityStats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new VanityStats(size, maxEntries, TimeUnit.MILLISECONDS.toSeconds(ttlMillis),
+                TimeUnit.MILLISECONDS.toSeconds(negativeTtlMillis), hits.sum(), negativeHits.sum(),
+                misses.sum(), notFound.sum(), failures.sum(), evictions.sum());
+    }
+
+    private Entry lookup(String vanityName) {
+        synchronized (entries) {
+            Entry entry = entries.get(vanityName);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= entry.expiresAt()) {
+                entries.remove(vanityName);
+                return null;
+            }
+            if (entry.steamId() != null) {
+                hits.increment();
+            } else {
+                negativeHits.increment();
+            }
+            return entry;
+        }
+    }
+
+    private void store(String vanityName, String steamId) {
+        long ttl = steamId != null ? ttlMillis : negativeTtlMillis;
+        synchronized (entries) {
+            entries.put(vanityName, new Entry(steamId, System.currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Pergunta à Steam API qual o SteamID64 do nome
+     */
+    private String fetch(String vanityName) {
+        URI uri = UriComponentsBuilder.fromUriString(steamApiBaseUrl + RESOLVE_VANITY_PATH)
+                .queryParam("key", steamApiKey)
+                .queryParam("vanityurl", vanityName)
+                .encode()
+                .build()
+                .toUri();
+        try {
+            ResolveVanityResponse body = restTemplate.getForObject(uri, ResolveVanityResponse.class);
+            ResolveVanityResponse.ResponseData response = body != null ? body.getResponse() : null;
+            if (response != null && response.getSuccess() == ResolveVanityResponse.SUCCESS
+                    && response.getSteamId() != null && STEAM_ID64.matcher(response.getSteamId()).matches()) {
+                return response.getSteamId();
+            }
+            notFound.increment();
+            return null;
+
+        } catch (RestClientException e) {
+            failures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Espera a consulta feita por outra requisição (o erro dela volta como o mesmo erro)
+     */
+    private static String await(CompletableFuture<String> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Resolução guardada (steamId null = nome inexistente)
+     */
+    private record Entry(String steamId, long expiresAt) {
+    }
+
+    /**
+     * Classe para retornar os contadores do cache de nomes
+     */
+    public static class VanityStats {
+        private final int size;
+        private final int maxEntries;
+        private final long ttlSeconds;
+        private final long negativeTtlSeconds;
+        private final long hits;
+        private final long negativeHits;
+        private final long misses;
+        private final long notFound;
+        private final long failures;
+        private final long evictions;
+
+        public VanityStats(int size, int maxEntries, long ttlSeconds, long negativeTtlSeconds, long hits,
+                           long negativeHits, long misses, long notFound, long failures, long evictions) {
+            this.size = size;
+            this.maxEntries = maxEntries;
+            this.ttlSeconds = ttlSeconds;
+            this.negativeTtlSeconds = negativeTtlSeconds;
+            this.hits = hits;
+            this.negativeHits = negativeHits;
+            this.misses = misses;
+            this.notFound = notFound;
+            this.failures = failures;
+            this.evictions = evictions;
+        }
+
+        // Getters
+        public int getSize() { return size; }
+        public int getMaxEntries() { return maxEntries; }
+        public long getTtlSeconds() { return ttlSeconds; }
+        public long getNegativeTtlSeconds() { return negativeTtlSeconds; }
+        public long getHits() { return hits; }
+        public long getNegativeHits() { return negativeHits; }
+        public long getMisses() { return misses; }
+        public long getNotFound() { return notFound; }
+        public long getFailures() { return failures; }
+        public long getEvictions() { return evictions; }
+
+        public double getHitRate() {
+            long total = hits + negativeHits + misses;
+            return total == 0 ? 0.0 : (double) (hits + negativeHits) / total;
+        }
+    }
+}
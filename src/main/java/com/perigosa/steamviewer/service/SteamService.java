@@ -1,20 +1,54 @@
 package com.perigosa.steamviewer.service;
 
+import com.perigosa.steamviewer.config.UpstreamThrottledException;
+import com.perigosa.steamviewer.config.UpstreamUnavailableException;
 import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameField;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.LibrarySummary;
 import com.perigosa.steamviewer.model.SteamApiResponse;
 import com.perigosa.steamviewer.controller.GameController.DashboardData;
+import com.perigosa.steamviewer.controller.GameController.GamePage;
+import com.perigosa.steamviewer.controller.GameController.HistoryPoint;
+import com.perigosa.steamviewer.controller.GameController.OverviewData;
+import com.perigosa.steamviewer.controller.GameController.PlaytimeHistory;
+import com.perigosa.steamviewer.controller.GameController.RecentGame;
+import com.perigosa.steamviewer.controller.GameController.RecentPlaytime;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.HttpClientErrorException;
 
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -24,188 +58,769 @@ import java.util.stream.Collectors;
 @Service
 public class SteamService {
 
+    private static final Logger log = LoggerFactory.getLogger(SteamService.class);
+
     // Chave da Steam API carregada das variáveis de ambiente/configuração
     // NUNCA colocar chaves diretamente no código!
     @Value("${steam.api.key}")
     private String steamApiKey;
 
-    // URL base da Steam API para obter jogos de um usuário
-    private static final String STEAM_API_URL = "https://api.steampowered.com/IPlayerService/GetOwnedGames/v0001/";
+    // URL base da Steam API (pode apontar para um stub local nos testes de carga)
+    @Value("${steam.api.base-url:https://api.steampowered.com}")
+    private String steamApiBaseUrl;
+
+    // Caminho do método que retorna os jogos de um usuário
+    private static final String OWNED_GAMES_PATH = "/IPlayerService/GetOwnedGames/v0001/";
+
+    // Caminho do método que retorna os jogos jogados nas últimas duas semanas
+    private static final String RECENTLY_PLAYED_PATH = "/IPlayerService/GetRecentlyPlayedGames/v0001/";
+
+    // Atualização parcial das bibliotecas expiradas (só os tempos dos jogos jogados recentemente)
+    @Value("${steam.refresh.incremental-enabled:true}")
+    private boolean incrementalRefreshEnabled;
+
+    // Intervalo máximo entre duas cargas completas (GetOwnedGames) da mesma biblioteca
+    @Value("${steam.refresh.full-interval-minutes:60}")
+    private long fullRefreshIntervalMinutes;
+
+    // Máximo de amostras em uma resposta do histórico
+    static final int HISTORY_MAX_SAMPLES = 10_000;
+
+    // Jogos listados no bloco "tempo jogado nos últimos N dias" do dashboard
+    private static final int RECENT_PLAYTIME_TOP_GAMES = 5;
+
+    // Retry-After sugerido quando a Steam API falha por timeout ou erro de rede
+    private static final long UNAVAILABLE_RETRY_AFTER_SECONDS = 5;
 
     // URL base para construir URLs das imagens dos jogos
-    private static final String STEAM_MEDIA_URL = "https://media.steampowered.com/steamcommunity/public/images/apps/";
+    static final String STEAM_MEDIA_URL = "https://media.steampowered.com/steamcommunity/public/images/apps/";
 
     // RestTemplate é uma classe do Spring para fazer requisições HTTP
     private final RestTemplate restTemplate;
 
-    // Construtor que inicializa o RestTemplate
-    public SteamService() {
-        this.restTemplate = new RestTemplate();
+    // Cache das bibliotecas já buscadas (evita chamadas repetidas para a Steam API)
+    @Autowired
+    private LibraryCache libraryCache;
+
+    // Resolve nomes customizados e links de perfil para SteamID64 (com cache)
+    @Autowired
+    private SteamIdResolver steamIdResolver;
+
+    // Cópia em disco das bibliotecas (opcional), usada para responder rápido após um restart
+    @Autowired
+    private LibrarySnapshotStore snapshotStore;
+
+    // Quantos usuários têm cada jogo e quanto tempo jogaram (ranking global)
+    @Autowired
+    private GamePopularityIndex popularityIndex;
+
+    // Histórico do tempo de jogo em disco (opcional)
+    @Autowired
+    private PlaytimeHistoryStore historyStore;
+
+    // Onde rodam as buscas na Steam API no modo de execução assíncrono (ver ExecutorConfig)
+    @Autowired
+    private TaskExecutor steamRequestExecutor;
+
+    // Cache local dos ícones (define o prefixo das URLs de ícone)
+    @Autowired
+    private IconCache iconCache;
+
+    // Métricas (expostas em /actuator/prometheus), todas registradas uma vez no construtor
+    // Tamanho das bibliotecas buscadas na Steam API (número de jogos)
+    private final DistributionSummary librarySize;
+
+    // Tempo para converter a resposta da Steam API em GameLibrary
+    private final Timer conversionTimer;
+
+    // Tempo para calcular o resumo (dashboard, estatísticas, categorias)
+    private final Timer aggregationTimer;
+
+    // Chamadas ao GetOwnedGames por resultado (registradas uma vez, fora do caminho das requisições)
+    private static final List<String> UPSTREAM_OUTCOMES =
+            List.of("ok", "empty", "private", "throttled", "unavailable", "timeout", "error");
+    private final Map<String, Timer> upstreamRequestTimers;
+
+    // Atualizações de bibliotecas do cache, por tipo
+    private final Counter snapshotRefreshes;
+    private final Counter fullRefreshes;
+    private final Counter unchangedRefreshes;
+    private final Counter incrementalRefreshes;
+
+    // Construtor que recebe o RestTemplate configurado em SteamHttpClientConfig
+    // (pool de conexões, timeouts e gzip) e o registro de métricas do Actuator
+    public SteamService(RestTemplate steamRestTemplate, MeterRegistry meterRegistry) {
+        this.restTemplate = steamRestTemplate;
+        this.librarySize = DistributionSummary.builder("steam.library.size")
+                .description("Número de jogos das bibliotecas buscadas na Steam API")
+                .baseUnit("games")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(100_000.0)
+                .register(meterRegistry);
+        this.conversionTimer = Timer.builder("steam.library.conversion")
+                .description("Leitura da resposta da Steam API para GameLibrary")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.aggregationTimer = Timer.builder("steam.library.aggregation")
+                .description("Cálculo do resumo da biblioteca (dashboard, estatísticas e categorias)")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        Map<String, Timer> timers = new HashMap<>();
+        for (String outcome : UPSTREAM_OUTCOMES) {
+            timers.put(outcome, Timer.builder("steam.upstream.requests")
+                    .description("Chamadas ao GetOwnedGames da Steam API")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.upstreamRequestTimers = Map.copyOf(timers);
+        this.snapshotRefreshes = refreshCounter(meterRegistry, "snapshot");
+        this.fullRefreshes = refreshCounter(meterRegistry, "full");
+        this.unchangedRefreshes = refreshCounter(meterRegistry, "unchanged");
+        this.incrementalRefreshes = refreshCounter(meterRegistry, "incremental");
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String type) {
+        return Counter.builder("steam.library.refresh")
+                .description("Atualizações de bibliotecas do cache (full = GetOwnedGames, "
+                        + "incremental/unchanged = GetRecentlyPlayedGames, snapshot = cópia em disco)")
+                .tag("type", type)
+                .register(meterRegistry);
     }
 
     /**
      * Método principal que busca os jogos de um usuário Steam
-     * @param steamId ID do usuário Steam (pode ser SteamID64 ou nome customizado)
+     * @param steamId ID do usuário Steam (SteamID64, nome customizado ou link do perfil)
      * @return Lista de jogos do usuário
      */
     public List<Game> getUserGames(String steamId) {
-        try {
-            // Monta a URL completa com os parâmetros necessários
-            String url = buildApiUrl(steamId);
+        return getUserLibrary(steamId).asList();
+    }
+
+    /**
+     * Mesmo que getUserGames, mas repassa o erro da Steam API em vez de retornar lista vazia
+     * Útil quando quem chama precisa diferenciar "sem jogos" de "falhou" (ex: busca em lote)
+     * @throws RestClientException se a requisição falhar
+     */
+    public List<Game> getUserGamesOrThrow(String steamId) {
+        return getUserLibraryOrThrow(steamId).asList();
+    }
 
-            // Faz a requisição para a Steam API e mapeia a resposta para nossa classe
-            SteamApiResponse response = restTemplate.getForObject(url, SteamApiResponse.class);
+    /**
+     * Busca a biblioteca de um usuário no formato compacto (GameLibrary)
+     * @param steamId ID do usuário Steam
+     * @return Biblioteca do usuário (vazia se a Steam API falhar)
+     */
+    public GameLibrary getUserLibrary(String steamId) {
+        return getCachedLibrary(steamId).library();
+    }
 
-            // Verifica se a resposta é válida
-            if (response == null || response.getResponse() == null || response.getResponse().getGames() == null) {
-                return new ArrayList<>(); // Retorna lista vazia se não encontrou nada
-            }
+    /**
+     * Mesmo que getUserLibrary, mas repassa o erro da Steam API
+     * @throws RestClientException se a requisição falhar
+     */
+    public GameLibrary getUserLibraryOrThrow(String steamId) {
+        return getCachedLibraryOrThrow(steamId).library();
+    }
 
-            // Converte os dados da API para nosso modelo Game e retorna
-            return convertToGameList(response.getResponse().getGames());
+    /**
+     * Busca a entrada do cache da biblioteca (biblioteca + ordenações já calculadas)
+     * @param steamId ID do usuário Steam
+     * @return Entrada do cache (vazia se a Steam API falhar)
+     */
+    public CachedLibrary getCachedLibrary(String steamId) {
+        try {
+            return getCachedLibraryOrThrow(steamId);
 
         } catch (RestClientException e) {
             // Se der erro na requisição (usuário não existe, API fora do ar, etc.)
-            System.err.println("Erro ao buscar jogos do Steam: " + e.getMessage());
-            return new ArrayList<>();
+            // O erro não fica no cache, então a próxima chamada tenta de novo
+            log.warn("Erro ao buscar jogos do Steam: {}", e.getMessage());
+            return CachedLibrary.empty();
         }
     }
 
     /**
-     * Calcula todas as métricas para o dashboard
-     * @param games Lista de jogos do usuário
-     * @return Dados consolidados do dashboard
+     * Busca a entrada do cache dizendo por que ela pode estar vazia
+     * Diferente de getCachedLibrary, separa "sem jogos" de "Steam indisponível" e "limite de uso atingido",
+     * para o controller responder 503 + Retry-After em vez de uma lista vazia
+     * @param steamId ID do usuário Steam
+     * @return Resultado com a biblioteca ou o motivo da falha
      */
-    public DashboardData calculateDashboard(List<Game> games) {
-        if (games == null || games.isEmpty()) {
-            return new DashboardData(0, 0, 0.0, new ArrayList<>(), null,
-                    LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    public LibraryResult getLibraryResult(String steamId) {
+        try {
+            String resolvedId = steamIdResolver.resolve(steamId);
+            if (resolvedId == null) {
+                return LibraryResult.notFound();
+            }
+            return LibraryResult.of(libraryCache.get(resolvedId, this::loadCacheEntry));
+
+        } catch (RestClientException e) {
+            return toLibraryResult(e);
         }
+    }
 
-        // 1. Total de jogos
-        int totalGames = games.size();
+    /**
+     * Versão não bloqueante de getLibraryResult (modo de execução assíncrono)
+     *
+     * Biblioteca no cache: o future já vem completo, sem trocar de thread.
+     * Senão a busca roda no steamRequestExecutor. Cancelar o future retornado
+     * (tempo da requisição esgotado, cliente desconectou) cancela a chamada para a Steam API
+     * quando ninguém mais espera pela mesma biblioteca.
+     * @param steamId ID do usuário Steam
+     * @return Future com a biblioteca ou o motivo da falha (nunca completa com erro da Steam)
+     */
+    public CompletableFuture<LibraryResult> getLibraryResultAsync(String steamId) {
+        String resolvedId = steamIdResolver.resolveCached(steamId);
+        if (resolvedId == null) {
+            // Nome customizado fora do cache: resolve e busca juntos, numa tarefa cancelável
+            CompletableFuture<LibraryResult> result = new CompletableFuture<>();
+            FutureTask<LibraryResult> task = new FutureTask<>(() -> getLibraryResult(steamId)) {
+                @Override
+                protected void done() {
+                    try {
+                        result.complete(get());
+                    } catch (CancellationException e) {
+                        result.cancel(false);
+                    } catch (InterruptedException | ExecutionException e) {
+                        result.completeExceptionally(e.getCause() != null ? e.getCause() : e);
+                    }
+                }
+            };
+            result.whenComplete((value, error) -> {
+                if (result.isCancelled()) {
+                    task.cancel(true);
+                }
+            });
+            steamRequestExecutor.execute(task);
+            return result;
+        }
 
-        // 2. Total de minutos/horas jogados
-        int totalMinutes = games.stream()
-                .mapToInt(Game::getPlaytimeForever)
-                .sum();
-        double totalHours = Math.round(totalMinutes / 60.0 * 10) / 10.0;
+        CompletableFuture<CachedLibrary> load = libraryCache.getAsync(resolvedId, this::loadCacheEntry, steamRequestExecutor);
+        CompletableFuture<LibraryResult> result = load.handle((library, error) -> {
+            if (error == null) {
+                return LibraryResult.of(library);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof RestClientException e) {
+                return toLibraryResult(e);
+            }
+            throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+        });
+        // Quem desiste do resultado desiste também da carga
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                load.cancel(true);
+            }
+        });
+        return result;
+    }
 
-        // 3. Top 5 jogos mais jogados
-        List<Game> top5MostPlayed = games.stream()
-                .filter(game -> game.getPlaytimeForever() > 0) // Apenas jogos com tempo de jogo
-                .sorted(Comparator.comparingInt(Game::getPlaytimeForever).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
+    /**
+     * Traduz o erro da Steam API no motivo da falha
+     */
+    private LibraryResult toLibraryResult(RestClientException e) {
+        if (e instanceof UpstreamThrottledException throttled) {
+            return LibraryResult.throttled(throttled.getRetryAfterSeconds());
+        }
+        if (e instanceof UpstreamUnavailableException unavailable) {
+            return LibraryResult.unavailable(unavailable.getRetryAfterSeconds());
+        }
+        // Erro 4xx (ex: SteamID inválido): a Steam respondeu, só não há biblioteca
+        log.warn("Erro ao buscar jogos do Steam: {}", e.getMessage());
+        if (e instanceof HttpClientErrorException) {
+            return LibraryResult.of(CachedLibrary.empty());
+        }
+        // Timeout ou erro de rede
+        return LibraryResult.unavailable(UNAVAILABLE_RETRY_AFTER_SECONDS);
+    }
 
-        // 4. Jogo mais recentemente adicionado (usando appId como aproximação)
-        // Como a Steam API não retorna data de adição, usamos o maior appId como proxy
-        Game mostRecentGame = games.stream()
-                .max(Comparator.comparing(game -> Long.parseLong(game.getAppId())))
-                .orElse(null);
+    /**
+     * Converte nome customizado (ou link de perfil) em SteamID64
+     * @param steamId SteamID64, nome customizado ou link de perfil
+     * @return SteamID64, ou null se o nome não existe na Steam
+     * @throws RestClientException se a Steam API falhar ao resolver o nome
+     */
+    public String resolveSteamId(String steamId) {
+        return steamIdResolver.resolve(steamId);
+    }
 
-        // 5. Timestamp de geração
-        String generatedAt = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    /**
+     * Mesmo que getCachedLibrary, mas repassa o erro da Steam API
+     * @throws RestClientException se a requisição falhar
+     */
+    public CachedLibrary getCachedLibraryOrThrow(String steamId) {
+        // Nome customizado vira SteamID64; nome inexistente vira biblioteca vazia
+        String resolvedId = steamIdResolver.resolve(steamId);
+        if (resolvedId == null) {
+            return CachedLibrary.empty();
+        }
+        // Busca no cache; se não tiver, faz uma única requisição mesmo com chamadas simultâneas
+        return libraryCache.get(resolvedId, this::loadCacheEntry);
+    }
 
-        return new DashboardData(totalGames, totalMinutes, totalHours,
-                top5MostPlayed, mostRecentGame, generatedAt);
+    /**
+     * Monta a entrada do cache e conta a biblioteca no índice global de popularidade
+     * (o índice aplica só a diferença para a versão anterior do usuário)
+     * e no histórico de tempo de jogo (só os jogos cujo tempo aumentou)
+     */
+    private CachedLibrary loadCacheEntry(String steamId, CachedLibrary stale) {
+        CachedLibrary entry = refreshUserLibrary(steamId, stale);
+        if (stale == null || entry.library() != stale.library()) {
+            popularityIndex.record(steamId, entry.library());
+            historyStore.record(steamId, entry.library());
+        }
+        return entry;
     }
 
     /**
-     * Obtém estatísticas detalhadas dos jogos (método auxiliar)
-     * @param games Lista de jogos
-     * @return Mapa com estatísticas detalhadas
+     * Jogos mais populares entre todos os usuários já consultados
      */
-    public Map<String, Object> getDetailedStats(List<Game> games) {
-        Map<String, Object> stats = new HashMap<>();
+    public GamePopularityIndex.TopGames getGlobalTop(GamePopularityIndex.Ranking ranking, int limit) {
+        return popularityIndex.top(ranking, limit);
+    }
+
+    public boolean isHistoryEnabled() {
+        return historyStore.isEnabled();
+    }
+
+    /**
+     * Histórico do tempo de jogo de um usuário, lido do disco (sem chamar a Steam API)
+     * @param steamId ID do usuário Steam
+     * @param appId Só um jogo (null para todos)
+     * @param from Início do período em segundos
+     * @param to Fim do período em segundos
+     * @return Histórico, ou null se o histórico está desligado ou o nome customizado não existe
+     */
+    public PlaytimeHistory getPlaytimeHistory(String steamId, Integer appId, long from, long to) {
+        if (!historyStore.isEnabled()) {
+            return null;
+        }
+        String resolvedId = steamIdResolver.resolve(steamId);
+        if (resolvedId == null) {
+            return null;
+        }
+        List<PlaytimeHistoryStore.Sample> samples =
+                historyStore.samples(resolvedId, appId, from, to, HISTORY_MAX_SAMPLES);
+        List<HistoryPoint> points = new ArrayList<>(samples.size());
+        for (PlaytimeHistoryStore.Sample sample : samples) {
+            points.add(new HistoryPoint(sample.appId(),
+                    PlaytimeHistoryStore.formatTimestamp(sample.timestamp()), sample.playtimeForever()));
+        }
+        return new PlaytimeHistory(resolvedId, appId, PlaytimeHistoryStore.formatTimestamp(from),
+                PlaytimeHistoryStore.formatTimestamp(to), points, samples.size() == HISTORY_MAX_SAMPLES);
+    }
 
-        if (games == null || games.isEmpty()) {
-            stats.put("totalGames", 0);
-            stats.put("gamesWithPlaytime", 0);
-            stats.put("gamesNeverPlayed", 0);
-            stats.put("averagePlaytime", 0.0);
-            stats.put("longestSession", null);
-            return stats;
+    /**
+     * Bloco "tempo jogado nos últimos N dias" do dashboard, calculado só com o histórico
+     *
+     * O início da janela é arredondado para a hora cheia: dentro da mesma hora o bloco
+     * não muda enquanto a biblioteca não mudar (o ETag do dashboard usa a mesma hora).
+     *
+     * @param steamId ID do usuário Steam
+     * @param library Biblioteca do cache (usada só para os nomes dos jogos)
+     * @return Bloco do dashboard, ou null se o histórico está desligado ou o usuário não tem histórico
+     */
+    public RecentPlaytime getRecentPlaytime(String steamId, CachedLibrary library) {
+        if (!historyStore.isEnabled()) {
+            return null;
+        }
+        String resolvedId = steamIdResolver.resolve(steamId);
+        if (resolvedId == null) {
+            return null;
+        }
+        int days = historyStore.getDashboardDays();
+        long since = TimeUnit.HOURS.toSeconds(historyWindowHour()) - TimeUnit.DAYS.toSeconds(days);
+        PlaytimeHistoryStore.PlaytimeGain gain = historyStore.gainedSince(resolvedId, since);
+        if (gain == null) {
+            return null;
         }
 
-        // Jogos com tempo de jogo
-        List<Game> playedGames = games.stream()
-                .filter(game -> game.getPlaytimeForever() > 0)
+        long totalMinutes = 0;
+        for (int minutes : gain.minutesByAppId().values()) {
+            totalMinutes += minutes;
+        }
+        List<Map.Entry<Integer, Integer>> top = gain.minutesByAppId().entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(RECENT_PLAYTIME_TOP_GAMES)
                 .collect(Collectors.toList());
 
-        // Jogos nunca jogados
-        int neverPlayed = games.size() - playedGames.size();
+        // Nomes dos jogos do top (uma passada na biblioteca)
+        Map<Integer, String> names = new HashMap<>();
+        for (Map.Entry<Integer, Integer> entry : top) {
+            names.put(entry.getKey(), null);
+        }
+        GameLibrary games = library.library();
+        for (int i = 0; i < games.size(); i++) {
+            if (names.containsKey(games.appIdAt(i))) {
+                names.put(games.appIdAt(i), games.nameAt(i));
+            }
+        }
 
-        // Tempo médio de jogo (apenas jogos jogados)
-        double averagePlaytime = playedGames.stream()
-                .mapToInt(Game::getPlaytimeForever)
-                .average()
-                .orElse(0.0);
-        averagePlaytime = Math.round(averagePlaytime / 60.0 * 10) / 10.0; // Converter para horas
+        List<RecentGame> recentGames = new ArrayList<>(top.size());
+        for (Map.Entry<Integer, Integer> entry : top) {
+            recentGames.add(new RecentGame(entry.getKey(), names.get(entry.getKey()), entry.getValue()));
+        }
+        return new RecentPlaytime(days, PlaytimeHistoryStore.formatTimestamp(gain.windowStart()),
+                totalMinutes, recentGames);
+    }
 
-        // Jogo com mais horas
-        Game longestSession = playedGames.stream()
-                .max(Comparator.comparingInt(Game::getPlaytimeForever))
-                .orElse(null);
+    /**
+     * Hora cheia atual (horas desde 1970), usada no início da janela do bloco de tempo recente
+     */
+    public long historyWindowHour() {
+        return TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis());
+    }
 
-        stats.put("totalGames", games.size());
-        stats.put("gamesWithPlaytime", playedGames.size());
-        stats.put("gamesNeverPlayed", neverPlayed);
-        stats.put("averagePlaytime", averagePlaytime);
-        stats.put("longestSession", longestSession);
+    /**
+     * Monta a entrada do cache quando ela não existe ou expirou
+     *
+     * Se a entrada expirada tem jogos e a última carga completa é recente, faz a atualização
+     * parcial: busca só os jogos jogados nas últimas duas semanas (GetRecentlyPlayedGames,
+     * resposta pequena) e corrige o tempo de jogo deles na biblioteca guardada.
+     * A carga completa (GetOwnedGames) acontece na primeira vez, a cada
+     * steam.refresh.full-interval-minutes e quando aparece um jogo que não estava na biblioteca.
+     */
+    private CachedLibrary refreshUserLibrary(String steamId, CachedLibrary stale) {
+        if (stale == null) {
+            return firstLoad(steamId);
+        }
+        if (stale.isEmpty() || !incrementalRefreshEnabled
+                || System.currentTimeMillis() - stale.fullLoadedAt()
+                        >= TimeUnit.MINUTES.toMillis(fullRefreshIntervalMinutes)) {
+            return fullRefresh(steamId);
+        }
 
-        return stats;
+        Map<Integer, Integer> recentPlaytimes;
+        try {
+            recentPlaytimes = fetchRecentPlaytimes(steamId);
+        } catch (HttpClientErrorException e) {
+            // Método recusado para esta chave/perfil: segue com a carga completa
+            recentPlaytimes = null;
+        }
+        if (recentPlaytimes == null) {
+            // Perfil ficou privado (ou sem acesso aos jogos recentes): a carga completa confirma
+            return fullRefresh(steamId);
+        }
+
+        CachedLibrary patched = applyRecentPlaytimes(steamId, stale, recentPlaytimes);
+        if (patched != null) {
+            return patched;
+        }
+
+        // Jogo novo: carga completa. Os jogos recentes que continuarem fora da biblioteca
+        // (gratuitos jogados sem estar na conta) não devem forçar outra carga completa
+        CachedLibrary full = fullRefresh(steamId);
+        Set<Integer> untracked = new HashSet<>(recentPlaytimes.keySet());
+        GameLibrary library = full.library();
+        for (int i = 0; i < library.size(); i++) {
+            untracked.remove(library.appIdAt(i));
+        }
+        return untracked.isEmpty() ? full : full.withUntrackedAppIds(untracked);
     }
 
     /**
-     * Obtém jogos por categorias de tempo de jogo
-     * @param games Lista de jogos
-     * @return Mapa com jogos categorizados por tempo
+     * Primeira carga da biblioteca (nada no cache)
+     *
+     * Se existir um snapshot recente em disco, ele é usado imediatamente e a biblioteca
+     * é buscada na Steam API em segundo plano, assim que esta carga termina
+     * (a entrada não conta como carga completa: fullLoadedAt é o momento do snapshot).
+     * Sem snapshot, busca direto na Steam API.
      */
-    public Map<String, List<Game>> categorizeGamesByPlaytime(List<Game> games) {
-        Map<String, List<Game>> categories = new HashMap<>();
+    private CachedLibrary firstLoad(String steamId) {
+        LibrarySnapshotStore.Snapshot snapshot = snapshotStore.find(steamId);
+        if (snapshot == null) {
+            return fullRefresh(steamId);
+        }
+        snapshotRefreshes.increment();
+        libraryCache.refreshAfterLoad(steamId, id -> {
+            GameLibrary library = fetchAndStoreUserLibrary(id);
+            popularityIndex.record(id, library);
+            historyStore.record(id, library);
+            return library;
+        });
+        return CachedLibrary.fromSnapshot(snapshot.library().withIconBaseUrl(iconCache.getIconBaseUrl()),
+                System.currentTimeMillis(), snapshot.fetchedAt());
+    }
+
+    private CachedLibrary fullRefresh(String steamId) {
+        GameLibrary library = fetchAndStoreUserLibrary(steamId);
+        fullRefreshes.increment();
+        return new CachedLibrary(library, System.currentTimeMillis());
+    }
+
+    /**
+     * Aplica os tempos de jogo recentes na biblioteca guardada
+     * @return Nova entrada, ou null se algum jogo recente não está na biblioteca (precisa de carga completa)
+     */
+    private CachedLibrary applyRecentPlaytimes(String steamId, CachedLibrary stale,
+                                               Map<Integer, Integer> recentPlaytimes) {
+        GameLibrary library = stale.library();
+        Set<Integer> missing = new HashSet<>(recentPlaytimes.keySet());
+        int[] playtimes = null;
+        for (int i = 0; i < library.size() && !missing.isEmpty(); i++) {
+            Integer playtime = recentPlaytimes.get(library.appIdAt(i));
+            if (playtime == null || !missing.remove(library.appIdAt(i))) {
+                continue;
+            }
+            if (playtime != library.playtimeAt(i)) {
+                if (playtimes == null) {
+                    playtimes = library.copyPlaytimes();
+                }
+                playtimes[i] = playtime;
+            }
+        }
+        if (!stale.untrackedAppIds().containsAll(missing)) {
+            return null;
+        }
 
-        if (games == null || games.isEmpty()) {
-            categories.put("neverPlayed", new ArrayList<>());
-            categories.put("casual", new ArrayList<>());
-            categories.put("regular", new ArrayList<>());
-            categories.put("hardcore", new ArrayList<>());
-            return categories;
-        }
-
-        // Categorizar jogos por tempo de jogo
-        List<Game> neverPlayed = new ArrayList<>();    // 0 minutos
-        List<Game> casual = new ArrayList<>();         // 1-180 minutos (1-3h)
-        List<Game> regular = new ArrayList<>();        // 181-1200 minutos (3-20h)
-        List<Game> hardcore = new ArrayList<>();       // >1200 minutos (>20h)
-
-        for (Game game : games) {
-            int playtime = game.getPlaytimeForever();
-
-            if (playtime == 0) {
-                neverPlayed.add(game);
-            } else if (playtime <= 180) {
-                casual.add(game);
-            } else if (playtime <= 1200) {
-                regular.add(game);
+        long now = System.currentTimeMillis();
+        if (playtimes == null) {
+            // Nada mudou: a entrada nova reaproveita ordenações, resumo e versão
+            unchangedRefreshes.increment();
+            return stale.withPlaytimes(library, now);
+        }
+        GameLibrary updated = library.withPlaytimes(playtimes);
+        snapshotStore.save(steamId, updated);
+        incrementalRefreshes.increment();
+        return stale.withPlaytimes(updated, now);
+    }
+
+    /**
+     * Busca na Steam API o tempo total dos jogos jogados nas últimas duas semanas
+     * @return AppID -> playtime_forever, ou null se o perfil é privado
+     * @throws RestClientException se a requisição falhar
+     */
+    private Map<Integer, Integer> fetchRecentPlaytimes(String steamId) {
+        String url = steamApiBaseUrl + RECENTLY_PLAYED_PATH +
+                "?key=" + steamApiKey +
+                "&steamid=" + steamId +
+                "&format=json";
+        SteamApiResponse body = restTemplate.getForObject(url, SteamApiResponse.class);
+        SteamApiResponse.ResponseData response = body != null ? body.getResponse() : null;
+        if (response == null || response.getTotalCount() == null) {
+            return null;
+        }
+
+        Map<Integer, Integer> playtimes = new HashMap<>();
+        if (response.getGames() != null) {
+            for (SteamApiResponse.GameData game : response.getGames()) {
+                playtimes.put(game.getAppId(), game.getPlaytimeForever());
+            }
+        }
+        return playtimes;
+    }
+
+    /**
+     * Busca na Steam API e grava o resultado no snapshot em disco (se ligado)
+     */
+    private GameLibrary fetchAndStoreUserLibrary(String steamId) {
+        GameLibrary library = fetchUserLibrary(steamId);
+        snapshotStore.save(steamId, library);
+        return library;
+    }
+
+    /**
+     * Busca os jogos de um usuário diretamente na Steam API (sem cache)
+     * @param steamId ID do usuário Steam
+     * @return Biblioteca do usuário
+     * @throws RestClientException se a requisição falhar
+     */
+    private GameLibrary fetchUserLibrary(String steamId) {
+        // Monta a URL completa com os parâmetros necessários
+        String url = buildApiUrl(steamId);
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            // Faz a requisição e lê a resposta em streaming, gravando cada jogo direto
+            // nos arrays da GameLibrary (sem objetos intermediários por jogo)
+            OwnedGamesParser.Result result = restTemplate.execute(url, HttpMethod.GET, null,
+                    response -> {
+                        long parseStart = System.nanoTime();
+                        try {
+                            return OwnedGamesParser.read(response.getBody(), iconCache.getIconBaseUrl());
+                        } finally {
+                            conversionTimer.record(System.nanoTime() - parseStart, TimeUnit.NANOSECONDS);
+                        }
+                    });
+
+            // Retorna biblioteca vazia se não encontrou nada
+            GameLibrary library = result != null ? result.library() : GameLibrary.empty();
+            if (!library.isEmpty()) {
+                outcome = "ok";
             } else {
-                hardcore.add(game);
+                outcome = result != null && result.visible() ? "empty" : "private";
             }
+            librarySize.record(library.size());
+            return library;
+
+        } catch (UpstreamThrottledException e) {
+            outcome = "throttled";
+            throw e;
+        } catch (UpstreamUnavailableException e) {
+            outcome = "unavailable";
+            throw e;
+        } catch (RestClientException e) {
+            outcome = isTimeout(e) ? "timeout" : "error";
+            throw e;
+        } finally {
+            upstreamRequestTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+    }
+
+    /**
+     * Verifica se o erro foi timeout (a causa fica dentro da ResourceAccessException)
+     */
+    private static boolean isTimeout(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpTimeoutException || cause instanceof SocketTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcula o resumo da biblioteca em uma única passada
+     * Base para o dashboard, as estatísticas detalhadas e as categorias
+     * @param games Lista de jogos do usuário
+     * @return Resumo imutável com todas as métricas
+     */
+    public LibrarySummary summarize(List<Game> games) {
+        return aggregationTimer.record(() -> LibraryAnalytics.summarize(games));
+    }
+
+    /**
+     * Calcula o resumo direto da biblioteca compacta (sem criar um Game por jogo)
+     */
+    public LibrarySummary summarize(GameLibrary library) {
+        return aggregationTimer.record(() -> LibraryAnalytics.summarize(library));
+    }
+
+    /**
+     * Calcula todas as métricas para o dashboard
+     * @param games Lista de jogos do usuário
+     * @return Dados consolidados do dashboard
+     */
+    public DashboardData calculateDashboard(List<Game> games) {
+        return toDashboard(summarize(games));
+    }
+
+    /**
+     * Calcula todas as métricas para o dashboard a partir da biblioteca compacta
+     */
+    public DashboardData calculateDashboard(GameLibrary library) {
+        return toDashboard(summarize(library));
+    }
+
+    /**
+     * Calcula o dashboard de uma biblioteca do cache
+     * O generatedAt é o momento em que o conteúdo da biblioteca foi montado: enquanto ele não mudar
+     * (mesmo com atualizações que não alteram nada), o dashboard é sempre o mesmo
+     * (pode ser cacheado pelo cliente com ETag, e os bytes da resposta reaproveitados)
+     */
+    public DashboardData calculateDashboard(CachedLibrary library) {
+        // A biblioteca vazia usada quando a Steam API falha não tem momento de carga
+        long computedAt = library.computedAt() > 0 ? library.computedAt() : System.currentTimeMillis();
+        String generatedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(computedAt), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        return toDashboard(library.summary(this::summarize), generatedAt);
+    }
+
+    /**
+     * Monta o dashboard a partir de um resumo já calculado
+     */
+    public DashboardData toDashboard(LibrarySummary summary) {
+        // Timestamp de geração
+        return toDashboard(summary, LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+    }
+
+    private DashboardData toDashboard(LibrarySummary summary, String generatedAt) {
+        return new DashboardData(
+                summary.getTotalGames(),
+                (int) Math.min(summary.getTotalMinutes(), Integer.MAX_VALUE),
+                summary.getTotalHours(),
+                new ArrayList<>(summary.getTopPlayed()),   // Top 5 jogos mais jogados
+                summary.getMostRecentGame(),              // Maior appId como aproximação do mais recente
+                generatedAt);
+    }
+
+    /**
+     * Obtém estatísticas detalhadas dos jogos (método auxiliar)
+     * @param games Lista de jogos
+     * @return Mapa com estatísticas detalhadas
+     */
+    public Map<String, Object> getDetailedStats(List<Game> games) {
+        return toDetailedStats(summarize(games));
+    }
 
-        categories.put("neverPlayed", neverPlayed);
-        categories.put("casual", casual);
-        categories.put("regular", regular);
-        categories.put("hardcore", hardcore);
+    /**
+     * Monta as estatísticas detalhadas a partir de um resumo já calculado
+     */
+    public Map<String, Object> toDetailedStats(LibrarySummary summary) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("totalGames", summary.getTotalGames());
+        stats.put("gamesWithPlaytime", summary.getPlayedGames());
+        stats.put("gamesNeverPlayed", summary.getNeverPlayedGames());
+        stats.put("averagePlaytime", summary.getAveragePlayedHours()); // Em horas, apenas jogos jogados
+        stats.put("longestSession", summary.getLongestSession());
+        return stats;
+    }
+
+    /**
+     * Obtém jogos por categorias de tempo de jogo
+     * @param games Lista de jogos
+     * @return Mapa com jogos categorizados por tempo
+     */
+    public Map<String, List<Game>> categorizeGamesByPlaytime(List<Game> games) {
+        return toCategories(summarize(games));
+    }
 
+    /**
+     * Monta as categorias por tempo de jogo a partir de um resumo já calculado
+     * - neverPlayed: 0 minutos
+     * - casual: 1-180 minutos (1-3h)
+     * - regular: 181-1200 minutos (3-20h)
+     * - hardcore: >1200 minutos (>20h)
+     */
+    public Map<String, List<Game>> toCategories(LibrarySummary summary) {
+        Map<String, List<Game>> categories = new HashMap<>();
+        categories.put("neverPlayed", new ArrayList<>(summary.getNeverPlayed()));
+        categories.put("casual", new ArrayList<>(summary.getCasual()));
+        categories.put("regular", new ArrayList<>(summary.getRegular()));
+        categories.put("hardcore", new ArrayList<>(summary.getHardcore()));
         return categories;
     }
 
+    /**
+     * Monta a visão geral da biblioteca: lista ordenada, dashboard, estatísticas e categorias
+     *
+     * Tudo sai da mesma biblioteca do cache (uma única busca na Steam API) e as três
+     * últimas partes saem do mesmo resumo, calculado uma vez só por biblioteca.
+     * As partes não pedidas ficam null (e não aparecem no JSON).
+     *
+     * @param library Biblioteca do cache
+     * @param sortBy Critério de ordenação da lista
+     * @return Visão geral com as partes pedidas
+     */
+    public OverviewData getOverview(CachedLibrary library, String sortBy, boolean includeGames,
+                                    boolean includeDashboard, boolean includeStats, boolean includeCategories) {
+        return new OverviewData(
+                includeGames ? sortGames(library, sortBy) : null,
+                includeDashboard ? calculateDashboard(library) : null,
+                includeStats ? toDetailedStats(library.summary(this::summarize)) : null,
+                includeCategories ? toCategories(library.summary(this::summarize)) : null);
+    }
+
     /**
      * Constrói a URL completa para chamar a Steam API
      */
     private String buildApiUrl(String steamId) {
-        return STEAM_API_URL +
+        return steamApiBaseUrl + OWNED_GAMES_PATH +
                 "?key=" + steamApiKey +  // Agora usa a variável injetada
                 "&steamid=" + steamId +
                 "&include_appinfo=true" +  // Inclui informações do app (nome, etc.)
@@ -214,17 +829,18 @@ public class SteamService {
 
     /**
      * Converte a lista de GameData (formato da API) para lista de Game (nosso modelo)
+     * Caminho antigo (antes do OwnedGamesParser), mantido para comparação nos benchmarks
      */
-    private List<Game> convertToGameList(List<SteamApiResponse.GameData> gameDataList) {
+    static List<Game> convertToGameList(List<SteamApiResponse.GameData> gameDataList) {
         return gameDataList.stream()
-                .map(this::convertToGame)  // Converte cada GameData em Game
+                .map(SteamService::convertToGame)  // Converte cada GameData em Game
                 .collect(Collectors.toList());
     }
 
     /**
      * Converte um GameData individual em Game
      */
-    private Game convertToGame(SteamApiResponse.GameData gameData) {
+    private static Game convertToGame(SteamApiResponse.GameData gameData) {
         // Constrói a URL completa da imagem
         String fullImageUrl = buildImageUrl(gameData.getAppId(), gameData.getImgIconUrl());
 
@@ -239,7 +855,7 @@ public class SteamService {
     /**
      * Constrói a URL completa da imagem do jogo
      */
-    private String buildImageUrl(int appId, String imgIconUrl) {
+    static String buildImageUrl(int appId, String imgIconUrl) {
         // Verificar se imgIconUrl é válido
         if (imgIconUrl == null || imgIconUrl.trim().isEmpty() || "undefined".equals(imgIconUrl)) {
             return ""; // Retorna vazio se não tem imagem válida
@@ -250,6 +866,74 @@ public class SteamService {
         return STEAM_MEDIA_URL + appId + "/" + imgIconUrl.trim() + ".jpg";
     }
 
+    /**
+     * Aplica a ordenação solicitada: "name", "appid", "neverPlayed" ou "playtime" (padrão)
+     */
+    public List<Game> sortGames(List<Game> games, String sortBy) {
+        switch (SortKey.fromParameter(sortBy)) {
+            case NAME:
+                return sortByName(games);
+            case APPID:
+                return sortByAppId(games);
+            case NEVER_PLAYED_FIRST:
+                return sortNeverPlayedFirst(games);
+            default:
+                return sortByPlaytime(games);
+        }
+    }
+
+    /**
+     * Aplica a ordenação na biblioteca do cache
+     * A permutação de índices de cada critério é calculada uma única vez por biblioteca;
+     * a lista retornada só cria cada Game quando ele é lido (ex: na serialização)
+     */
+    public List<Game> sortGames(CachedLibrary library, String sortBy) {
+        return library.sorted(SortKey.fromParameter(sortBy));
+    }
+
+    /**
+     * Busca jogos da biblioteca pelo nome (prefixo e erros de digitação)
+     * O índice de busca é montado uma vez por biblioteca do cache
+     */
+    public List<Game> searchGames(CachedLibrary library, String query, int limit) {
+        int[] matches = library.searchIndex().search(library.library(), query, limit);
+        return library.library().asList(matches);
+    }
+
+    /**
+     * Lista completa na ordem pedida, só com os campos informados (projeção)
+     */
+    public List<Map<String, Object>> projectGames(CachedLibrary library, String sortBy, Set<GameField> fields) {
+        return GameField.project(library.library(), library.sortOrder(SortKey.fromParameter(sortBy)), fields);
+    }
+
+    /**
+     * Monta uma página da lista de jogos
+     *
+     * As páginas saem da ordenação já guardada no CachedLibrary, então buscar a página
+     * seguinte não busca nem ordena a biblioteca de novo.
+     *
+     * @param library Biblioteca do cache
+     * @param sortKey Critério de ordenação
+     * @param offset Posição do primeiro jogo da página
+     * @param limit Quantidade máxima de jogos na página
+     * @param fields Campos pedidos (null para o Game completo)
+     * @return Página com o total de jogos e o cursor da próxima página (null se for a última)
+     */
+    public GamePage getPage(CachedLibrary library, SortKey sortKey, int offset, int limit, Set<GameField> fields) {
+        int[] order = library.sortOrder(sortKey);
+        int from = Math.min(offset, order.length);
+        int to = (int) Math.min((long) from + limit, order.length);
+        int[] pageOrder = Arrays.copyOfRange(order, from, to);
+
+        List<?> items = fields == null
+                ? library.library().asList(pageOrder)
+                : GameField.project(library.library(), pageOrder, fields);
+        String nextCursor = to < order.length ? new PageCursor(library.version(), sortKey, to).encode() : null;
+
+        return new GamePage(items, order.length, from, limit, sortKey.getParameter(), nextCursor);
+    }
+
     /**
      * Ordena a lista de jogos por horas jogadas (decrescente)
      */
@@ -260,11 +944,30 @@ public class SteamService {
     }
 
     /**
-     * Ordena a lista de jogos por nome (alfabética)
+     * Ordena a lista de jogos por nome (alfabética, respeitando acentos e maiúsculas/minúsculas)
      */
     public List<Game> sortByName(List<Game> games) {
         return games.stream()
-                .sorted(Comparator.comparing(Game::getName))
+                .sorted(Comparator.comparing(Game::getName, Comparator.nullsLast(SortKey.nameCollator())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Ordena a lista de jogos por appId (crescente)
+     */
+    public List<Game> sortByAppId(List<Game> games) {
+        return games.stream()
+                .sorted(Comparator.comparingLong(game -> Long.parseLong(game.getAppId())))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Jogos nunca jogados primeiro, depois os demais por horas jogadas (decrescente)
+     */
+    public List<Game> sortNeverPlayedFirst(List<Game> games) {
+        return games.stream()
+                .sorted(Comparator.comparing((Game game) -> game.getPlaytimeForever() != 0)
+                        .thenComparing(Comparator.comparingInt(Game::getPlaytimeForever).reversed()))
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+}
@@ -73,7 +73,7 @@ class SteamAPI {
     /**
      * Busca jogos de um usuário Steam
      * @param {string} steamId - ID do usuário Steam
-     * @param {string} sortBy - Critério de ordenação ('name' ou 'playtime')
+     * @param {string} sortBy - Critério de ordenação ('name', 'playtime', 'appid' ou 'neverPlayed')
      * @returns {Promise<Array>} - Lista de jogos
      */
     static async getUserGames(steamId, sortBy = 'playtime') {
@@ -83,8 +83,8 @@ class SteamAPI {
                 throw new Error('Steam ID é obrigatório e deve ser uma string');
             }
 
-            if (!['name', 'playtime'].includes(sortBy)) {
-                throw new Error('sortBy deve ser "name" ou "playtime"');
+            if (!['name', 'playtime', 'appid', 'neverPlayed'].includes(sortBy)) {
+                throw new Error('sortBy deve ser "name", "playtime", "appid" ou "neverPlayed"');
             }
 
             // Construir URL
@@ -153,6 +153,72 @@ class SteamAPI {
         }
     }
 
+    /**
+     * Busca uma página da lista de jogos
+     * @param {string} steamId - ID do usuário Steam
+     * @param {Object} options - { sortBy, limit, cursor, fields } (todos opcionais)
+     * @returns {Promise<Object>} - { items, total_count, offset, limit, sort_by, next_cursor }
+     *          Sem next_cursor, é a última página. Status 409 = a biblioteca mudou, recomece do início.
+     */
+    static async getUserGamesPage(steamId, { sortBy = 'playtime', limit = 100, cursor = null, fields = null } = {}) {
+        if (!steamId || typeof steamId !== 'string') {
+            throw new Error('Steam ID é obrigatório e deve ser uma string');
+        }
+
+        const params = new URLSearchParams({ sortBy, limit: String(limit) });
+        if (cursor) {
+            params.set('cursor', cursor);
+        }
+        if (fields) {
+            params.set('fields', Array.isArray(fields) ? fields.join(',') : fields);
+        }
+
+        const url = `${API_CONFIG.BASE_URL}/${encodeURIComponent(steamId)}?${params}`;
+        const response = await fetch(url, {
+            method: 'GET',
+            headers: API_CONFIG.HEADERS,
+            signal: AbortSignal.timeout(API_CONFIG.TIMEOUT)
+        });
+
+        if (!response.ok) {
+            const errorMessage = await this.handleErrorResponse(response);
+            throw new Error(errorMessage);
+        }
+
+        return await response.json();
+    }
+
+    /**
+     * Busca jogos da biblioteca pelo nome (aceita o começo das palavras e erros de digitação)
+     * @param {string} steamId - ID do usuário Steam
+     * @param {string} query - Texto digitado
+     * @param {number} limit - Quantidade máxima de jogos (máximo 100)
+     * @returns {Promise<Array>} - Jogos encontrados, do mais relevante para o menos
+     */
+    static async searchUserGames(steamId, query, limit = 20) {
+        if (!steamId || typeof steamId !== 'string') {
+            throw new Error('Steam ID é obrigatório e deve ser uma string');
+        }
+        if (!query || !query.trim()) {
+            return [];
+        }
+
+        const params = new URLSearchParams({ q: query, limit: String(limit) });
+        const url = `${API_CONFIG.BASE_URL}/${encodeURIComponent(steamId)}/search?${params}`;
+        const response = await fetch(url, {
+            method: 'GET',
+            headers: API_CONFIG.HEADERS,
+            signal: AbortSignal.timeout(API_CONFIG.TIMEOUT)
+        });
+
+        if (!response.ok) {
+            const errorMessage = await this.handleErrorResponse(response);
+            throw new Error(errorMessage);
+        }
+
+        return await response.json();
+    }
+
 /**
  * Obtém dados do dashboard de um usuário Steam - VERSÃO CORRIGIDA
  * @param {string} steamId - ID do usuário Steam
@@ -187,24 +253,7 @@ static async getUserDashboard(steamId) {
         console.log('📊 DEBUG - Dashboard recebido (snake_case):', dashboard);
 
         // CORREÇÃO PRINCIPAL: Converter snake_case para camelCase
-        const convertedDashboard = {
-            totalGames: dashboard.total_games || 0,
-            totalMinutes: dashboard.total_minutes || 0,
-            totalHours: dashboard.total_hours || 0,
-            top5MostPlayed: (dashboard.top5_most_played || []).map(game => ({
-                appId: game.app_id,
-                name: game.name,
-                playtimeForever: game.playtime_forever,
-                imgIconUrl: game.img_icon_url
-            })),
-            mostRecentGame: dashboard.most_recent_game ? {
-                appId: dashboard.most_recent_game.app_id,
-                name: dashboard.most_recent_game.name,
-                playtimeForever: dashboard.most_recent_game.playtime_forever,
-                imgIconUrl: dashboard.most_recent_game.img_icon_url
-            } : null,
-            generatedAt: dashboard.generated_at
-        };
+        const convertedDashboard = this.convertDashboard(dashboard);
 
         console.log('✅ DEBUG - Dashboard convertido (camelCase):', convertedDashboard);
         return convertedDashboard;
@@ -215,6 +264,92 @@ static async getUserDashboard(steamId) {
     }
 }
 
+    /**
+     * Converte o dashboard da API (snake_case) para camelCase
+     * @param {Object} dashboard - Dashboard como veio da API
+     * @returns {Object} - Dashboard em camelCase
+     */
+    static convertDashboard(dashboard) {
+        const convertGame = game => ({
+            appId: game.app_id,
+            name: game.name,
+            playtimeForever: game.playtime_forever,
+            imgIconUrl: game.img_icon_url
+        });
+
+        return {
+            totalGames: dashboard.total_games || 0,
+            totalMinutes: dashboard.total_minutes || 0,
+            totalHours: dashboard.total_hours || 0,
+            top5MostPlayed: (dashboard.top5_most_played || []).map(convertGame),
+            mostRecentGame: dashboard.most_recent_game ? convertGame(dashboard.most_recent_game) : null,
+            generatedAt: dashboard.generated_at,
+            // Só existe com o histórico de tempo de jogo ligado no servidor
+            recentPlaytime: dashboard.recent_playtime ? {
+                days: dashboard.recent_playtime.days,
+                since: dashboard.recent_playtime.since,
+                totalMinutes: dashboard.recent_playtime.total_minutes || 0,
+                topGames: (dashboard.recent_playtime.top_games || []).map(game => ({
+                    appId: game.app_id,
+                    name: game.name,
+                    minutes: game.minutes
+                }))
+            } : null
+        };
+    }
+
+    /**
+     * Busca a visão geral da biblioteca em uma única requisição
+     * (lista ordenada, dashboard, estatísticas e categorias; cada parte pode ser deixada de fora)
+     * @param {string} steamId - ID do usuário Steam
+     * @param {Object} options - sortBy e as partes desejadas (includeGames, includeDashboard, includeStats, includeCategories)
+     * @returns {Promise<Object>} - { games, dashboard, stats, categories } (partes não pedidas ficam undefined)
+     */
+    static async getUserOverview(steamId, {
+        sortBy = 'playtime',
+        includeGames = true,
+        includeDashboard = true,
+        includeStats = true,
+        includeCategories = true
+    } = {}) {
+        if (!steamId || typeof steamId !== 'string') {
+            throw new Error('Steam ID é obrigatório e deve ser uma string');
+        }
+
+        const params = new URLSearchParams({
+            sortBy,
+            includeGames: String(includeGames),
+            includeDashboard: String(includeDashboard),
+            includeStats: String(includeStats),
+            includeCategories: String(includeCategories)
+        });
+
+        const url = `${API_CONFIG.BASE_URL}/${encodeURIComponent(steamId)}/overview?${params}`;
+        const response = await fetch(url, {
+            method: 'GET',
+            headers: API_CONFIG.HEADERS,
+            signal: AbortSignal.timeout(API_CONFIG.TIMEOUT)
+        });
+
+        if (!response.ok) {
+            const errorMessage = await this.handleErrorResponse(response);
+            throw new Error(errorMessage);
+        }
+
+        const overview = await response.json();
+        return {
+            games: overview.games ? overview.games.map(game => ({
+                appId: game.app_id,
+                name: game.name,
+                playtimeForever: game.playtime_forever || 0,
+                imgIconUrl: game.img_icon_url || ''
+            })) : undefined,
+            dashboard: overview.dashboard ? this.convertDashboard(overview.dashboard) : undefined,
+            stats: overview.stats,
+            categories: overview.categories
+        };
+    }
+
     /**
      * Formata dados do dashboard para exibição
      * @param {Object} dashboard - Dados brutos do dashboard
@@ -294,10 +429,17 @@ static async getUserDashboard(steamId) {
                     return 'Requisição inválida. Verifique o Steam ID informado.';
                 case 404:
                     return 'Steam ID não encontrado ou perfil inexistente.';
+                case 409:
+                    return 'A biblioteca foi atualizada durante a paginação. Carregue novamente.';
                 case 500:
                     return 'Erro interno do servidor. Tente novamente mais tarde.';
-                case 503:
-                    return 'Serviço temporariamente indisponível.';
+                case 503: {
+                    // A Steam API está instável ou limitando as chamadas; o Retry-After diz quando tentar de novo
+                    const retryAfter = response.headers.get('Retry-After');
+                    return retryAfter ?
+                        `A Steam está indisponível no momento. Tente novamente em ${retryAfter}s.` :
+                        'Serviço temporariamente indisponível.';
+                }
                 default:
                     return `Erro HTTP ${response.status}: ${errorData || 'Erro desconhecido'}`;
             }
@@ -306,6 +448,20 @@ static async getUserDashboard(steamId) {
         }
     }
 
+    /**
+     * Extrai o Steam ID (ou nome customizado) de um link do perfil
+     * Ex: https://steamcommunity.com/id/gaben/ -> gaben
+     * @param {string} input - Texto digitado pelo usuário
+     * @returns {string} - Steam ID, nome customizado ou o próprio texto
+     */
+    static extractSteamId(input) {
+        if (!input || typeof input !== 'string') {
+            return input;
+        }
+        const match = input.trim().match(/steamcommunity\.com\/(?:id|profiles)\/([^/?#]+)/i);
+        return match ? match[1] : input.trim();
+    }
+
     /**
      * Valida se um Steam ID está no formato correto
      * @param {string} steamId - Steam ID para validar
@@ -322,7 +478,10 @@ static async getUserDashboard(steamId) {
         // Também aceitar IDs com 17 dígitos que começam com 76561198
         const alternativeRegex = /^76561198\d{9}$/;
 
-        return steamIdRegex.test(steamId) || alternativeRegex.test(steamId);
+        // Nome customizado do perfil (resolvido pelo backend)
+        const vanityRegex = /^[A-Za-z0-9_-]{2,32}$/;
+
+        return steamIdRegex.test(steamId) || alternativeRegex.test(steamId) || vanityRegex.test(steamId);
     }
 
     /**
@@ -41,7 +41,11 @@ class SteamGameViewer {
             playedGamesText: document.getElementById('playedGamesText'),
             collectorBadge: document.getElementById('collectorBadge'),
             marathonBadge: document.getElementById('marathonBadge'),
-            dashboardTimestamp: document.getElementById('dashboardTimestamp')
+            dashboardTimestamp: document.getElementById('dashboardTimestamp'),
+            recentPlaytimeCard: document.getElementById('recentPlaytimeCard'),
+            recentPlaytimeTitle: document.getElementById('recentPlaytimeTitle'),
+            recentPlaytimeTotal: document.getElementById('recentPlaytimeTotal'),
+            recentPlaytimeList: document.getElementById('recentPlaytimeList')
         };
 
         // Estado da aplicação
@@ -208,7 +212,7 @@ class SteamGameViewer {
             return; // Previne múltiplas submissões
         }
 
-        const steamId = this.elements.steamIdInput.value.trim();
+        const steamId = SteamAPI.extractSteamId(this.elements.steamIdInput.value.trim());
         const sortBy = this.elements.sortBySelect.value;
 
         // Validações
@@ -220,7 +224,7 @@ class SteamGameViewer {
 
         if (!SteamAPI.isValidSteamId(steamId)) {
             this.showMessage(
-                'Steam ID inválido. Deve ter 17 dígitos e começar com 765611980.',
+                'Steam ID inválido. Use o ID de 17 dígitos (765611980...), o nome customizado ou o link do perfil.',
                 'error'
             );
             this.elements.steamIdInput.focus();
@@ -245,7 +249,14 @@ class SteamGameViewer {
 
             console.log('🔍 Iniciando busca:', { steamId, sortBy });
 
-            const games = await SteamAPI.getUserGames(steamId, sortBy);
+            // Lista e dashboard em uma única requisição (o dashboard fica pronto para o botão)
+            this.state.currentDashboard = null;
+            const { games, dashboard } = await SteamAPI.getUserOverview(steamId, {
+                sortBy,
+                includeStats: false,
+                includeCategories: false
+            });
+            this.state.currentDashboard = dashboard;
 
             if (games.length === 0) {
                 this.showMessage(
@@ -298,7 +309,12 @@ class SteamGameViewer {
         const stats = SteamAPI.calculateGameStats(games);
 
         // Atualizar cabeçalho
-        const sortText = sortBy === 'name' ? 'por Nome' : 'por Horas Jogadas';
+        const sortTexts = {
+            name: 'por Nome',
+            appid: 'por App ID',
+            neverPlayed: 'Nunca Jogados Primeiro'
+        };
+        const sortText = sortTexts[sortBy] || 'por Horas Jogadas';
         this.elements.resultsTitle.innerHTML = `
             <i class="fas fa-trophy"></i>
             Biblioteca de Jogos (${sortText})
@@ -515,8 +531,9 @@ class SteamGameViewer {
         try {
             this.setDashboardLoading(true);
 
+            // Usa o dashboard que veio junto com a lista; só busca se ainda não tiver
             const { steamId } = this.state.lastSearchParams;
-            const dashboardData = await SteamAPI.getUserDashboard(steamId);
+            const dashboardData = this.state.currentDashboard || await SteamAPI.getUserDashboard(steamId);
 
             this.state.currentDashboard = dashboardData;
             this.displayDashboard(dashboardData);
@@ -590,7 +607,10 @@ class SteamGameViewer {
         // 4. Estatísticas
         this.displayGameStats(formatted, dashboardData);
 
-        // 5. Timestamp
+        // 5. Tempo jogado nos últimos dias (histórico)
+        this.displayRecentPlaytime(dashboardData.recentPlaytime);
+
+        // 6. Timestamp
         if (formatted.generatedAt) {
             const date = new Date(formatted.generatedAt);
             const dateStr = date.toLocaleString('pt-BR');
@@ -601,6 +621,46 @@ class SteamGameViewer {
         }
     }
 
+    /**
+     * Exibe o tempo jogado nos últimos dias (o card fica escondido sem histórico)
+     */
+    displayRecentPlaytime(recentPlaytime) {
+        if (!recentPlaytime) {
+            this.elements.recentPlaytimeCard.style.display = 'none';
+            return;
+        }
+
+        this.elements.recentPlaytimeCard.style.display = '';
+        this.elements.recentPlaytimeTitle.textContent = `Últimos ${recentPlaytime.days} dias`;
+        this.elements.recentPlaytimeTotal.textContent = recentPlaytime.totalMinutes > 0 ?
+            SteamAPI.formatPlaytimeHours(recentPlaytime.totalMinutes) : '0h';
+
+        if (recentPlaytime.topGames.length === 0) {
+            this.elements.recentPlaytimeList.innerHTML = `
+                <div class="no-recent-game">
+                    <i class="fas fa-bed"></i>
+                    Nenhum jogo jogado no período
+                </div>
+            `;
+            return;
+        }
+
+        this.elements.recentPlaytimeList.innerHTML = recentPlaytime.topGames.map((game, index) => {
+            const name = game.name || `App ${game.appId}`;
+            return `
+                <div class="top-game-item">
+                    <div class="game-rank">${index + 1}</div>
+                    <div class="top-game-info">
+                        <div class="top-game-name" title="${this.escapeHtml(name)}">
+                            ${this.escapeHtml(this.truncateText(name, 25))}
+                        </div>
+                        <div class="top-game-time">+${SteamAPI.formatPlaytimeHours(game.minutes)}</div>
+                    </div>
+                </div>
+            `;
+        }).join('');
+    }
+
     /**
      * Exibe o top 5 de jogos mais jogados
      */
@@ -778,7 +838,7 @@ displayGameStats(formatted, dashboardData) {
      * Validação visual do Steam ID
      */
     validateSteamIdInput() {
-        const steamId = this.elements.steamIdInput.value.trim();
+        const steamId = SteamAPI.extractSteamId(this.elements.steamIdInput.value.trim());
         const inputWrapper = this.elements.steamIdInput.parentElement;
 
         inputWrapper.classList.remove('valid', 'invalid');
@@ -0,0 +1,208 @@
+package com.perigosa.steamviewer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamGuardTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final MockClientHttpRequest request =
+			new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.steampowered.com/test"));
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private UpstreamGuard guard(double ratePerSecond, int burst, int failureThreshold, int concurrency) {
+		return guard(ratePerSecond, burst, failureThreshold, concurrency, 0);
+	}
+
+	private UpstreamGuard guard(double ratePerSecond, int burst, int failureThreshold, int concurrency,
+								long slotWaitMillis) {
+		return new UpstreamGuard(new UpstreamGuard.Settings(ratePerSecond, burst, 0, slotWaitMillis,
+				failureThreshold, 30, concurrency, concurrency, 2000), clock::get);
+	}
+
+	private ClientHttpRequestExecution respondWith(HttpStatus status) {
+		return (request, body) -> {
+			calls.incrementAndGet();
+			return new MockClientHttpResponse(new byte[0], status);
+		};
+	}
+
+	private void advanceSeconds(long seconds) {
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+	}
+
+	@Test
+	void throttlesWhenTokensRunOut() throws Exception {
+		UpstreamGuard guard = guard(1, 2, 5, 8);
+
+		guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(UpstreamThrottledException.class)
+				.extracting(e -> ((UpstreamThrottledException) e).getRetryAfterSeconds())
+				.isEqualTo(1L);
+		assertThat(calls).hasValue(2);
+
+		// Um segundo depois o balde tem um token de novo
+		advanceSeconds(1);
+		guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		assertThat(calls).hasValue(3);
+	}
+
+	@Test
+	void opensCircuitAfterConsecutiveFailuresAndClosesAfterProbe() throws Exception {
+		UpstreamGuard guard = guard(100, 100, 3, 8);
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.BAD_GATEWAY)))
+					.isInstanceOf(UpstreamUnavailableException.class)
+					.isNotInstanceOf(UpstreamThrottledException.class);
+		}
+		assertThat(guard.getState()).isEqualTo(UpstreamGuard.CircuitState.OPEN);
+
+		// Circuito aberto: falha na hora, sem chamar a Steam
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(UpstreamUnavailableException.class)
+				.extracting(e -> ((UpstreamUnavailableException) e).getRetryAfterSeconds())
+				.isEqualTo(30L);
+		assertThat(calls).hasValue(3);
+
+		// Passado o tempo aberto, a chamada de teste bem-sucedida fecha o circuito
+		advanceSeconds(30);
+		assertThat(guard.getState()).isEqualTo(UpstreamGuard.CircuitState.HALF_OPEN);
+		guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		assertThat(guard.getState()).isEqualTo(UpstreamGuard.CircuitState.CLOSED);
+		assertThat(guard.getStats().getCircuitOpens()).isEqualTo(1);
+	}
+
+	@Test
+	void limitsConcurrencyAndBacksOffOnFailure() throws Exception {
+		UpstreamGuard guard = guard(100, 100, 10, 4);
+
+		List<ClientHttpResponse> open = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			open.add(guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)));
+		}
+		// 4 respostas ainda abertas: a quinta chamada passa do limite
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(UpstreamThrottledException.class);
+
+		// Fechar uma resposta libera a vaga
+		open.get(0).close();
+		open.set(0, guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)));
+		open.forEach(ClientHttpResponse::close);
+
+		// Um 429 reduz o limite pela metade e respeita o Retry-After da Steam
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.TOO_MANY_REQUESTS)))
+				.isInstanceOf(UpstreamThrottledException.class);
+		assertThat(guard.getStats().getConcurrencyLimit()).isEqualTo(2);
+	}
+
+	@Test
+	void waitsForSlotInsteadOfFailing() throws Exception {
+		UpstreamGuard guard = guard(100, 100, 5, 1, 5000);
+		ClientHttpResponse first = guard.intercept(request, new byte[0], respondWith(HttpStatus.OK));
+
+		// A segunda chamada espera a vaga da primeira em vez de ser recusada
+		CompletableFuture<ClientHttpResponse> second = CompletableFuture.supplyAsync(() -> {
+			try {
+				return guard.intercept(request, new byte[0], respondWith(HttpStatus.OK));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		Thread.sleep(100);
+		assertThat(second).isNotDone();
+		assertThat(calls).hasValue(1);
+
+		first.close();
+		second.get(5, TimeUnit.SECONDS).close();
+		assertThat(calls).hasValue(2);
+		assertThat(guard.getStats().getThrottled()).isZero();
+	}
+
+	@Test
+	void refusedSlotReturnsItsToken() throws Exception {
+		// Relógio parado: o balde só tem os 2 tokens iniciais
+		UpstreamGuard guard = guard(1, 2, 5, 1);
+		ClientHttpResponse first = guard.intercept(request, new byte[0], respondWith(HttpStatus.OK));
+
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(UpstreamThrottledException.class)
+				.hasMessageContaining("simultâneas");
+		first.close();
+
+		// O token da chamada recusada voltou para o balde
+		guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		assertThat(calls).hasValue(2);
+	}
+
+	@Test
+	void interruptWhileWaitingForSlotCancelsTheCall() throws Exception {
+		UpstreamGuard guard = guard(100, 100, 5, 1, 5000);
+		ClientHttpResponse first = guard.intercept(request, new byte[0], respondWith(HttpStatus.OK));
+
+		Thread.currentThread().interrupt();
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(InterruptedIOException.class);
+		assertThat(Thread.interrupted()).isTrue();
+
+		first.close();
+		assertThat(calls).hasValue(1);
+		assertThat(guard.getStats().getInFlight()).isZero();
+		assertThat(guard.getStats().getFailures()).isZero();
+		assertThat(guard.getStats().getAvailableTokens()).isEqualTo(99.0);
+	}
+
+	@Test
+	void localCancellationIsNotCountedAsSteamFailure() throws Exception {
+		UpstreamGuard guard = guard(100, 100, 2, 4);
+		// Como o HttpClient do JDK reporta a interrupção da thread
+		ClientHttpRequestExecution interrupted = (request, body) -> {
+			calls.incrementAndGet();
+			Thread.currentThread().interrupt();
+			throw new IOException("Request was interrupted", new InterruptedException());
+		};
+
+		for (int i = 0; i < 3; i++) {
+			assertThatThrownBy(() -> guard.intercept(request, new byte[0], interrupted))
+					.isInstanceOf(IOException.class);
+			assertThat(Thread.interrupted()).isTrue();
+		}
+		assertThat(guard.getState()).isEqualTo(UpstreamGuard.CircuitState.CLOSED);
+		assertThat(guard.getStats().getFailures()).isZero();
+		assertThat(guard.getStats().getConcurrencyLimit()).isEqualTo(4);
+		assertThat(guard.getStats().getInFlight()).isZero();
+
+		// Timeout de verdade continua contando como falha
+		ClientHttpRequestExecution timeout = (request, body) -> {
+			throw new SocketTimeoutException("Read timed out");
+		};
+		assertThatThrownBy(() -> guard.intercept(request, new byte[0], timeout))
+				.isInstanceOf(SocketTimeoutException.class);
+		assertThat(guard.getStats().getFailures()).isEqualTo(1);
+		assertThat(guard.getStats().getConcurrencyLimit()).isEqualTo(2);
+	}
+}
@@ -0,0 +1,118 @@
+package com.perigosa.steamviewer.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamHttpInterceptorTests {
+
+	private static final String HOST = "api.steampowered.com";
+
+	private final MockClientHttpRequest request =
+			new MockClientHttpRequest(HttpMethod.GET, URI.create("https://" + HOST + "/test"));
+
+	private static ClientHttpRequestExecution respondWith(HttpStatus status) {
+		return (request, body) -> new MockClientHttpResponse(new byte[0], status);
+	}
+
+	@Test
+	void permitIsHeldUntilTheResponseIsClosed() throws Exception {
+		UpstreamHttpInterceptor interceptor = new UpstreamHttpInterceptor(1, 50);
+
+		ClientHttpResponse first = interceptor.intercept(request, new byte[0], respondWith(HttpStatus.OK));
+		assertThat(interceptor.getStats().get(HOST).getInFlight()).isEqualTo(1);
+
+		// Limite de 1 em andamento: a segunda espera a vaga e desiste
+		assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], respondWith(HttpStatus.OK)))
+				.isInstanceOf(ResourceAccessException.class);
+
+		// Fechar a resposta devolve a vaga (uma vez só)
+		first.close();
+		first.close();
+		interceptor.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+
+		UpstreamHttpInterceptor.HostStats stats = interceptor.getStats().get(HOST);
+		assertThat(stats.getMaxInFlight()).isEqualTo(1);
+		assertThat(stats.getInFlight()).isZero();
+		assertThat(stats.getWaiting()).isZero();
+		assertThat(stats.getRejected()).isEqualTo(1);
+		assertThat(stats.getRequests()).isEqualTo(2);
+	}
+
+	@Test
+	void gzipBodyIsDecompressed() throws Exception {
+		UpstreamHttpInterceptor interceptor = new UpstreamHttpInterceptor(4, 50);
+		byte[] json = "{\"response\":{\"game_count\":0}}".getBytes(StandardCharsets.UTF_8);
+		byte[] compressed = gzip(json);
+
+		ClientHttpResponse response = interceptor.intercept(request, new byte[0], (request, body) -> {
+			MockClientHttpResponse gzipped = new MockClientHttpResponse(compressed, HttpStatus.OK);
+			gzipped.getHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+			gzipped.getHeaders().setContentLength(compressed.length);
+			return gzipped;
+		});
+
+		assertThat(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING)).isEqualTo("gzip");
+		assertThat(response.getBody().readAllBytes()).isEqualTo(json);
+		// O corpo entregue não está mais comprimido
+		assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH)).isFalse();
+		response.close();
+
+		// Sem gzip, o corpo e os cabeçalhos passam como vieram
+		ClientHttpResponse plain = interceptor.intercept(request, new byte[0], (request, body) -> {
+			MockClientHttpResponse identity = new MockClientHttpResponse(json, HttpStatus.OK);
+			identity.getHeaders().setContentLength(json.length);
+			return identity;
+		});
+		assertThat(plain.getBody().readAllBytes()).isEqualTo(json);
+		assertThat(plain.getHeaders().getContentLength()).isEqualTo(json.length);
+		plain.close();
+	}
+
+	@Test
+	void countsErrorsAndTimeouts() throws Exception {
+		UpstreamHttpInterceptor interceptor = new UpstreamHttpInterceptor(4, 50);
+
+		interceptor.intercept(request, new byte[0], respondWith(HttpStatus.OK)).close();
+		interceptor.intercept(request, new byte[0], respondWith(HttpStatus.BAD_GATEWAY)).close();
+		assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], (request, body) -> {
+			throw new HttpTimeoutException("request timed out");
+		})).isInstanceOf(HttpTimeoutException.class);
+		assertThatThrownBy(() -> interceptor.intercept(request, new byte[0], (request, body) -> {
+			throw new IOException("Connection reset");
+		})).isInstanceOf(IOException.class);
+
+		UpstreamHttpInterceptor.HostStats stats = interceptor.getStats().get(HOST);
+		assertThat(stats.getRequests()).isEqualTo(4);
+		assertThat(stats.getErrors()).isEqualTo(2);
+		assertThat(stats.getTimeouts()).isEqualTo(1);
+		assertThat(stats.getRejected()).isZero();
+		assertThat(stats.getInFlight()).isZero();
+		assertThat(stats.getAverageMillis()).isGreaterThanOrEqualTo(0.0);
+	}
+
+	private static byte[] gzip(byte[] data) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(data);
+		}
+		return out.toByteArray();
+	}
+}
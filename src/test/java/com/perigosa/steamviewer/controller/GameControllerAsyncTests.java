@@ -0,0 +1,152 @@
+package com.perigosa.steamviewer.controller;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.service.CachedLibrary;
+import com.perigosa.steamviewer.service.LibraryBatchService;
+import com.perigosa.steamviewer.service.LibraryCache;
+import com.perigosa.steamviewer.service.LibraryResult;
+import com.perigosa.steamviewer.service.SortKey;
+import com.perigosa.steamviewer.service.SteamService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Modo de execução assíncrono: o SteamService é um mock, mas as buscas passam por um
+ * LibraryCache de verdade, para conferir o cancelamento das cargas compartilhadas
+ */
+@WebMvcTest(GameController.class)
+@TestPropertySource(properties = {
+		"steam.execution.mode=async",
+		"steam.execution.request-timeout-ms=60000"
+})
+class GameControllerAsyncTests {
+
+	private static final String STEAM_ID = "76561198000000000";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private SteamService steamService;
+
+	@MockitoBean
+	private LibraryBatchService libraryBatchService;
+
+	private final LibraryCache libraryCache = new LibraryCache(300, 1000);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final CountDownLatch loadStarted = new CountDownLatch(1);
+	private final CountDownLatch steamResponds = new CountDownLatch(1);
+	private final CountDownLatch loadInterrupted = new CountDownLatch(1);
+	private final AtomicInteger loads = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		// Mesmo encadeamento do SteamService: cancelar a resposta libera o interesse na carga
+		when(steamService.getLibraryResultAsync(anyString())).thenAnswer(call -> {
+			CompletableFuture<CachedLibrary> load = libraryCache.getAsync(call.getArgument(0), (id, stale) -> {
+				loads.incrementAndGet();
+				loadStarted.countDown();
+				try {
+					steamResponds.await();
+				} catch (InterruptedException e) {
+					loadInterrupted.countDown();
+					throw new IllegalStateException("Carga cancelada", e);
+				}
+				return new CachedLibrary(GameLibrary.builder(1, "").add(10, "Game", 60, null).build(),
+						System.currentTimeMillis());
+			}, executor);
+			CompletableFuture<LibraryResult> result = load.thenApply(LibraryResult::of);
+			result.whenComplete((value, error) -> {
+				if (result.isCancelled()) {
+					load.cancel(true);
+				}
+			});
+			return result;
+		});
+		when(steamService.sortGames(any(CachedLibrary.class), any(String.class)))
+				.thenAnswer(call -> call.<CachedLibrary>getArgument(0).sorted(SortKey.PLAYTIME));
+	}
+
+	@AfterEach
+	void tearDown() {
+		steamResponds.countDown();
+		executor.shutdownNow();
+		libraryCache.shutdown();
+	}
+
+	@Test
+	void timedOutRequestCancelsItsLoad() throws Exception {
+		MvcResult pending = mockMvc.perform(get("/api/games/" + STEAM_ID))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		timeOut(pending);
+
+		mockMvc.perform(asyncDispatch(pending))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+		// Ninguém mais espera pela biblioteca: a chamada para a Steam é interrompida
+		assertThat(loadInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(libraryCache.getStats().getCancelledLoads()).isEqualTo(1);
+	}
+
+	@Test
+	void sharedLoadSurvivesWhileOtherRequestsWait() throws Exception {
+		MvcResult first = mockMvc.perform(get("/api/games/" + STEAM_ID))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		MvcResult second = mockMvc.perform(get("/api/games/" + STEAM_ID))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(loadStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+		timeOut(first);
+		mockMvc.perform(asyncDispatch(first)).andExpect(status().isServiceUnavailable());
+
+		// A segunda requisição continua esperando a mesma carga, que não é cancelada
+		steamResponds.countDown();
+		mockMvc.perform(asyncDispatch(second)).andExpect(status().isOk());
+		assertThat(loadInterrupted.getCount()).isEqualTo(1);
+		assertThat(loads).hasValue(1);
+		assertThat(libraryCache.getStats().getCancelledLoads()).isZero();
+	}
+
+	/**
+	 * Simula o servlet container esgotando o tempo da requisição assíncrona
+	 */
+	private static void timeOut(MvcResult result) throws Exception {
+		MockAsyncContext context = (MockAsyncContext) result.getRequest().getAsyncContext();
+		for (AsyncListener listener : context.getListeners()) {
+			listener.onTimeout(new AsyncEvent(context));
+		}
+	}
+}
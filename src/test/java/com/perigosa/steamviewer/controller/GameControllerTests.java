@@ -0,0 +1,127 @@
+package com.perigosa.steamviewer.controller;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.service.CachedLibrary;
+import com.perigosa.steamviewer.service.LibraryBatchService;
+import com.perigosa.steamviewer.service.LibraryResult;
+import com.perigosa.steamviewer.service.SortKey;
+import com.perigosa.steamviewer.service.SteamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(GameController.class)
+class GameControllerTests {
+
+	private static final String STEAM_ID = "76561198000000000";
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoBean
+	private SteamService steamService;
+
+	@MockitoBean
+	private LibraryBatchService libraryBatchService;
+
+	private CachedLibrary library;
+
+	@BeforeEach
+	void setUp() {
+		GameLibrary.Builder builder = GameLibrary.builder(3, "");
+		for (int i = 0; i < 3; i++) {
+			builder.add(i, "Game " + i, i * 60, null);
+		}
+		library = new CachedLibrary(builder.build(), 1_700_000_000_000L);
+		when(steamService.getLibraryResult(STEAM_ID)).thenReturn(LibraryResult.of(library));
+	}
+
+	@Test
+	void listReturns304WhenEtagMatches() throws Exception {
+		when(steamService.sortGames(any(CachedLibrary.class), any(String.class)))
+				.thenReturn(library.sorted(SortKey.NAME));
+
+		String etag = mockMvc.perform(get("/api/games/" + STEAM_ID).param("sortBy", "name"))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, must-revalidate, private"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).startsWith("\"" + library.version());
+
+		mockMvc.perform(get("/api/games/" + STEAM_ID).param("sortBy", "name")
+						.header(HttpHeaders.IF_NONE_MATCH, "W/" + etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().string(""));
+
+		// Outra ordenação é outra resposta
+		mockMvc.perform(get("/api/games/" + STEAM_ID).param("sortBy", "appid")
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void dashboardReturns304WithoutComputing() throws Exception {
+		when(steamService.calculateDashboard(library)).thenReturn(new GameController.DashboardData(
+				3, 180, 3.0, List.of(), null, "2023-11-14T22:13:20"));
+
+		String etag = mockMvc.perform(get("/api/games/" + STEAM_ID + "/dashboard"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("\"generated_at\":\"2023-11-14T22:13:20\"")))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		clearInvocations(steamService);
+		mockMvc.perform(get("/api/games/" + STEAM_ID + "/dashboard").header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified());
+		verify(steamService, never()).calculateDashboard(any(CachedLibrary.class));
+	}
+
+	@Test
+	void dashboardIsSerializedOnceWhileLibraryIsUnchanged() throws Exception {
+		when(steamService.calculateDashboard(library)).thenReturn(new GameController.DashboardData(
+				3, 180, 3.0, List.of(), null, "2023-11-14T22:13:20"));
+
+		String first = mockMvc.perform(get("/api/games/" + STEAM_ID + "/dashboard"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(content().string(containsString("\"total_games\":3")))
+				.andReturn().getResponse().getContentAsString();
+		String second = mockMvc.perform(get("/api/games/" + STEAM_ID + "/dashboard"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(second).isEqualTo(first);
+		verify(steamService, times(1)).calculateDashboard(any(CachedLibrary.class));
+	}
+
+	@Test
+	void unavailableUpstreamReturns503WithRetryAfter() throws Exception {
+		when(steamService.getLibraryResult(STEAM_ID)).thenReturn(LibraryResult.throttled(7));
+
+		mockMvc.perform(get("/api/games/" + STEAM_ID))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+		mockMvc.perform(get("/api/games/" + STEAM_ID + "/dashboard"))
+				.andExpect(status().isServiceUnavailable())
+				.andExpect(header().string(HttpHeaders.RETRY_AFTER, "7"));
+	}
+}
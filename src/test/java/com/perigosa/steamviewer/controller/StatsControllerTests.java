@@ -0,0 +1,83 @@
+package com.perigosa.steamviewer.controller;
+
+import com.perigosa.steamviewer.config.UpstreamGuard;
+import com.perigosa.steamviewer.config.UpstreamHttpInterceptor;
+import com.perigosa.steamviewer.service.IconCache;
+import com.perigosa.steamviewer.service.LibraryCache;
+import com.perigosa.steamviewer.service.LibrarySnapshotStore;
+import com.perigosa.steamviewer.service.PlaytimeHistoryStore;
+import com.perigosa.steamviewer.service.SteamIdResolver;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.URI;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StatsController.class)
+@Import(StatsControllerTests.InterceptorConfig.class)
+class StatsControllerTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UpstreamHttpInterceptor upstreamHttpInterceptor;
+
+	@MockitoBean
+	private LibraryCache libraryCache;
+
+	@MockitoBean
+	private LibrarySnapshotStore snapshotStore;
+
+	@MockitoBean
+	private PlaytimeHistoryStore historyStore;
+
+	@MockitoBean
+	private SteamIdResolver steamIdResolver;
+
+	@MockitoBean
+	private IconCache iconCache;
+
+	@MockitoBean
+	private UpstreamGuard upstreamGuard;
+
+	@TestConfiguration
+	static class InterceptorConfig {
+		@Bean
+		UpstreamHttpInterceptor upstreamHttpInterceptor() {
+			return new UpstreamHttpInterceptor(8, 50);
+		}
+	}
+
+	@Test
+	void upstreamStatsShowCountersPerHost() throws Exception {
+		MockClientHttpRequest request =
+				new MockClientHttpRequest(HttpMethod.GET, URI.create("https://api.steampowered.com/test"));
+		upstreamHttpInterceptor.intercept(request, new byte[0],
+				(r, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.OK)).close();
+		upstreamHttpInterceptor.intercept(request, new byte[0],
+				(r, body) -> new MockClientHttpResponse(new byte[0], HttpStatus.SERVICE_UNAVAILABLE)).close();
+
+		mockMvc.perform(get("/api/stats/upstream"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$['api.steampowered.com'].max_in_flight").value(8))
+				.andExpect(jsonPath("$['api.steampowered.com'].in_flight").value(0))
+				.andExpect(jsonPath("$['api.steampowered.com'].requests").value(2))
+				.andExpect(jsonPath("$['api.steampowered.com'].errors").value(1))
+				.andExpect(jsonPath("$['api.steampowered.com'].timeouts").value(0))
+				.andExpect(jsonPath("$['api.steampowered.com'].rejected").value(0));
+	}
+}
@@ -0,0 +1,225 @@
+package com.perigosa.steamviewer.loadtest;
+
+import com.perigosa.steamviewer.SteamGameViewerApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Teste de carga de ponta a ponta dos endpoints /api/games/**
+ *
+ * Por padrão sobe tudo na mesma máquina, sem rede: o SteamApiStub no lugar da Steam API
+ * e a aplicação apontando para ele (steam.api.base-url). Depois dispara as requisições
+ * em taxa fixa (open loop: cada requisição tem um horário marcado e a latência é contada
+ * a partir dele, então uma aplicação lenta não "freia" o teste) e mostra p50/p90/p99 e vazão.
+ *
+ * Uso:
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--rps=300 --duration-s=30 --games=1000"
+ *
+ * Opções (--nome=valor):
+ * - rps, duration-s, warmup-s, users (SteamIDs diferentes), seed
+ * - paths: endpoints separados por vírgula, {id} vira o SteamID
+ * - target: URL de uma aplicação já rodando (não sobe stub nem aplicação)
+ * - opções do stub: games, latency-ms, jitter-ms, error-rate, private-rate
+ * - app.*: propriedades repassadas para a aplicação (ex: --app.steam.cache.ttl-seconds=5)
+ */
+public final class LoadTest {
+
+    private static final long BASE_STEAM_ID = 76561198000000000L;
+
+    private static final String DEFAULT_PATHS =
+            "/api/games/{id},/api/games/{id}/dashboard,/api/games/{id}/overview?includeGames=false";
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        int rps = Integer.parseInt(options.getOrDefault("rps", "200"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration-s", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup-s", "5"));
+        int users = Integer.parseInt(options.getOrDefault("users", "1000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        List<String> paths = Arrays.asList(options.getOrDefault("paths", DEFAULT_PATHS).split(","));
+
+        SteamApiStub stub = null;
+        ConfigurableApplicationContext application = null;
+        String target = options.get("target");
+        try {
+            if (target == null) {
+                Map<String, String> stubOptions = new HashMap<>(options);
+                stubOptions.put("port", "0");
+                stub = SteamApiStub.start(SteamApiStub.Options.parse(stubOptions));
+                application = startApplication(stub.baseUrl(), options);
+                target = "http://127.0.0.1:" + ((WebServerApplicationContext) application).getWebServer().getPort();
+            }
+
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+
+            System.out.printf("Alvo %s, %d req/s, %d SteamIDs, endpoints %s%n", target, rps, users, paths);
+            if (warmupSeconds > 0) {
+                System.out.printf("Aquecimento: %ds%n", warmupSeconds);
+                run(client, target, paths, users, rps, warmupSeconds, seed + 1);
+            }
+            System.out.printf("Medição: %ds%n", durationSeconds);
+            Result result = run(client, target, paths, users, rps, durationSeconds, seed);
+            result.print(paths);
+
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+
+    /**
+     * Sobe a aplicação em uma porta livre, apontando para o stub
+     */
+    private static ConfigurableApplicationContext startApplication(String steamBaseUrl, Map<String, String> options) {
+        // O devtools reiniciaria a aplicação em outra thread/classloader
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--steam.api.base-url=" + steamBaseUrl,
+                "--steam.api.key=loadtest",
+                "--steam.snapshot.enabled=false"));
+        // O stub não tem cota: sem isso o limite de taxa da chave vira o gargalo do teste
+        // (para medir o próprio limite, passe --app.steam.guard.rate-per-second=...)
+        if (!options.containsKey("app.steam.guard.rate-per-second")) {
+            args.add("--steam.guard.rate-per-second=100000");
+            args.add("--steam.guard.burst=100000");
+        }
+        options.forEach((name, value) -> {
+            if (name.startsWith("app.")) {
+                args.add("--" + name.substring("app.".length()) + "=" + value);
+            }
+        });
+        return new SpringApplicationBuilder(SteamGameViewerApplication.class).run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Dispara rps requisições por segundo durante o tempo informado e espera todas terminarem
+     */
+    static Result run(HttpClient client, String target, List<String> paths, int users, int rps,
+                      int seconds, long seed) throws InterruptedException {
+        int total = rps * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+        long[] latencies = new long[total];
+        int[] pathIndexes = new int[total];
+        LongAdder errors = new LongAdder();
+        CountDownLatch done = new CountDownLatch(total);
+        Random random = new Random(seed);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            int pathIndex = i % paths.size();
+            String path = paths.get(pathIndex).replace("{id}", String.valueOf(BASE_STEAM_ID + random.nextInt(users)));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+
+            int index = i;
+            pathIndexes[index] = pathIndex;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        // Latência a partir do horário marcado, não do envio real
+                        latencies[index] = System.nanoTime() - scheduled;
+                        if (error != null || response.statusCode() >= 400) {
+                            errors.increment();
+                        }
+                        done.countDown();
+                    });
+        }
+
+        done.await(5, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+        return new Result(latencies, pathIndexes, total - (int) done.getCount(), errors.sum(), elapsed);
+    }
+
+    /**
+     * Lê argumentos no formato --nome=valor (ou --nome, que vira "true")
+     */
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Argumento inválido: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Resultado de uma execução
+     */
+    record Result(long[] latencies, int[] pathIndexes, int completed, long errors, long elapsedNanos) {
+
+        void print(List<String> paths) {
+            System.out.printf(Locale.ROOT, "%nRequisições: %d concluídas, %d erros, %.1f s%n",
+                    completed, errors, elapsedNanos / 1e9);
+            System.out.printf(Locale.ROOT, "Vazão: %.1f req/s%n", completed / (elapsedNanos / 1e9));
+            printLine("todos", latencies);
+            for (int p = 0; p < paths.size(); p++) {
+                int path = p;
+                long[] pathLatencies = IntStream.range(0, latencies.length)
+                        .filter(i -> pathIndexes[i] == path)
+                        .mapToLong(i -> latencies[i])
+                        .toArray();
+                printLine(paths.get(p), pathLatencies);
+            }
+        }
+
+        private static void printLine(String label, long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            System.out.printf(Locale.ROOT, "%-60s p50 %8.2f ms  p90 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                    label, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                    percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
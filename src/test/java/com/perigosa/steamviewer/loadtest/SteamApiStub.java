@@ -0,0 +1,287 @@
+package com.perigosa.steamviewer.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stub local do api.steampowered.com para testes de carga (sem rede)
+ *
+ * Responde o IPlayerService/GetOwnedGames com bibliotecas geradas (semente fixa),
+ * com latência, taxa de erro e tamanho de resposta configuráveis, e o
+ * IPlayerService/GetRecentlyPlayedGames sem jogos recentes. Também serve os ícones
+ * dos jogos em /icons/{appid}/{hash}.jpg (origem do cache de ícones).
+ * O mesmo SteamID recebe sempre a mesma biblioteca; os tamanhos variam entre
+ * metade e 1,5x de "games" para os SteamIDs não serem todos iguais.
+ *
+ * Uso isolado (a aplicação aponta para ele com steam.api.base-url):
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.perigosa.steamviewer.loadtest.SteamApiStub
+ *     -Dloadtest.args="--port=8099 --games=1000 --latency-ms=80 --error-rate=0.01"
+ */
+public final class SteamApiStub implements AutoCloseable {
+
+    // Caminho atendido (o mesmo da Steam API)
+    static final String OWNED_GAMES_PATH = "/IPlayerService/GetOwnedGames/v0001/";
+
+    // Jogos recentes (atualização parcial da biblioteca): nenhum jogo novo nas últimas duas semanas
+    static final String RECENTLY_PLAYED_PATH = "/IPlayerService/GetRecentlyPlayedGames/v0001/";
+    private static final byte[] RECENTLY_PLAYED_JSON =
+            "{\"response\":{\"total_count\":0}}".getBytes(StandardCharsets.UTF_8);
+
+    // Ícones dos jogos (origem do cache de ícones, steam.icons.origin-url={baseUrl}/icons/):
+    // qualquer {appid}/{hash}.jpg recebe a mesma imagem de 4 KB
+    static final String ICONS_PATH = "/icons/";
+    private static final byte[] ICON_JPEG = iconJpeg(4096);
+
+    // Quantidade de bibliotecas diferentes geradas (cada SteamID usa uma delas)
+    private static final int VARIANTS = 8;
+
+    private static final long SEED = 42L;
+
+    private static final String[] WORDS = {
+            "Counter", "Strike", "Dota", "Portal", "Half", "Life", "Team", "Fortress", "Left", "Dead",
+            "Souls", "Ring", "Witcher", "Cyber", "Punk", "Star", "Valley", "Hollow", "Knight", "Terra"
+    };
+
+    static {
+        // Sem isso o HttpServer do JDK sofre com o atraso do algoritmo de Nagle (~40 ms por resposta)
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // Respostas prontas (JSON e JSON em gzip) de cada variante
+    private final byte[][] fixtures = new byte[VARIANTS][];
+    private final byte[][] gzipFixtures = new byte[VARIANTS][];
+
+    private SteamApiStub(Options options) throws IOException {
+        this.options = options;
+        for (int i = 0; i < VARIANTS; i++) {
+            int size = Math.max(0, options.games() / 2 + (int) ((long) options.games() * i / VARIANTS));
+            fixtures[i] = ownedGamesJson(size, SEED + i);
+            gzipFixtures[i] = gzip(fixtures[i]);
+        }
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port()), 1024);
+        executor = Executors.newFixedThreadPool(options.threads());
+        server.setExecutor(executor);
+        server.createContext(OWNED_GAMES_PATH, this::handle);
+        server.createContext(RECENTLY_PLAYED_PATH, this::handleRecentlyPlayed);
+        server.createContext(ICONS_PATH, this::handleIcon);
+    }
+
+    /**
+     * Sobe o stub (porta 0 = escolhe uma porta livre)
+     */
+    public static SteamApiStub start(Options options) throws IOException {
+        SteamApiStub stub = new SteamApiStub(options);
+        stub.server.start();
+        return stub;
+    }
+
+    /**
+     * URL base para o steam.api.base-url
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sleep(options.latencyMillis(), options.jitterMillis());
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < options.errorRate()) {
+                exchange.sendResponseHeaders(500, -1);
+                return;
+            }
+
+            byte[] body;
+            boolean gzip;
+            if (random.nextDouble() < options.privateRate()) {
+                // Perfil privado: "response" vazio
+                body = "{\"response\":{}}".getBytes(StandardCharsets.UTF_8);
+                gzip = false;
+            } else {
+                int variant = Math.floorMod(steamId(exchange.getRequestURI()).hashCode(), VARIANTS);
+                gzip = acceptsGzip(exchange);
+                body = gzip ? gzipFixtures[variant] : fixtures[variant];
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void handleRecentlyPlayed(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sleep(options.latencyMillis(), options.jitterMillis());
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, RECENTLY_PLAYED_JSON.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(RECENTLY_PLAYED_JSON);
+            }
+        }
+    }
+
+    private void handleIcon(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sleep(options.latencyMillis(), options.jitterMillis());
+            if (!exchange.getRequestURI().getPath().endsWith(".jpg")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "image/jpeg");
+            exchange.sendResponseHeaders(200, ICON_JPEG.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(ICON_JPEG);
+            }
+        }
+    }
+
+    /**
+     * Bytes com cabeçalho e final de JPEG (o conteúdo não importa para o cache)
+     */
+    private static byte[] iconJpeg(int size) {
+        byte[] jpeg = new byte[size];
+        new Random(SEED).nextBytes(jpeg);
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[size - 2] = (byte) 0xFF;
+        jpeg[size - 1] = (byte) 0xD9;
+        return jpeg;
+    }
+
+    private static String steamId(URI uri) {
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("steamid=")) {
+                    return parameter.substring("steamid=".length());
+                }
+            }
+        }
+        return "";
+    }
+
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        return encoding != null && encoding.contains("gzip");
+    }
+
+    private static void sleep(long latencyMillis, long jitterMillis) {
+        long millis = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+        if (millis > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Resposta do GetOwnedGames com a quantidade de jogos pedida (mesmos campos da Steam API)
+     */
+    static byte[] ownedGamesJson(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(size * 220 + 64);
+        json.append("{\"response\":{\"game_count\":").append(size).append(",\"games\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            // ~40% nunca jogados, o resto com cauda longa
+            int playtime = random.nextInt(10) < 4 ? 0 : (int) Math.min(200_000, Math.exp(random.nextDouble() * 11));
+            json.append("{\"appid\":").append(10 + i * 10)
+                    .append(",\"name\":\"").append(WORDS[random.nextInt(WORDS.length)])
+                    .append(' ').append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(i).append('"')
+                    .append(",\"playtime_forever\":").append(playtime)
+                    .append(",\"img_icon_url\":\"");
+            for (int h = 0; h < 40; h++) {
+                json.append(Character.forDigit(random.nextInt(16), 16));
+            }
+            json.append("\",\"has_community_visible_stats\":true")
+                    .append(",\"playtime_windows_forever\":").append(playtime)
+                    .append(",\"playtime_mac_forever\":0,\"playtime_linux_forever\":0,\"playtime_deck_forever\":0")
+                    .append(",\"rtime_last_played\":").append(1_600_000_000 + random.nextInt(100_000_000))
+                    .append(",\"content_descriptorids\":[2,5]")
+                    .append(",\"playtime_disconnected\":0}");
+        }
+        json.append("]}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Configuração do stub
+     * @param port Porta (0 = qualquer porta livre)
+     * @param games Tamanho médio das bibliotecas
+     * @param latencyMillis Latência fixa de cada resposta
+     * @param jitterMillis Latência extra aleatória (de 0 até este valor)
+     * @param errorRate Fração das respostas com status 500
+     * @param privateRate Fração das respostas de perfil privado
+     * @param threads Threads atendendo requisições
+     */
+    public record Options(int port, int games, long latencyMillis, long jitterMillis,
+                          double errorRate, double privateRate, int threads) {
+
+        /**
+         * Lê as opções no formato --nome=valor (as que não aparecem ficam com o padrão)
+         */
+        public static Options parse(Map<String, String> args) {
+            return new Options(
+                    Integer.parseInt(args.getOrDefault("port", "8099")),
+                    Integer.parseInt(args.getOrDefault("games", "500")),
+                    Long.parseLong(args.getOrDefault("latency-ms", "50")),
+                    Long.parseLong(args.getOrDefault("jitter-ms", "20")),
+                    Double.parseDouble(args.getOrDefault("error-rate", "0")),
+                    Double.parseDouble(args.getOrDefault("private-rate", "0")),
+                    Integer.parseInt(args.getOrDefault("stub-threads", "64")));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = Options.parse(LoadTest.parseArgs(args));
+        SteamApiStub stub = start(options);
+        System.out.println("Stub da Steam API em " + stub.baseUrl() + " " + options);
+        System.out.println("Inicie a aplicação com --steam.api.base-url=" + stub.baseUrl());
+    }
+}
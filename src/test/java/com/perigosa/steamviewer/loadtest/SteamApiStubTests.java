@@ -0,0 +1,56 @@
+package com.perigosa.steamviewer.loadtest;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.service.OwnedGamesParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SteamApiStubTests {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+
+	@Test
+	void servesSameLibraryForSameSteamId() throws Exception {
+		try (SteamApiStub stub = SteamApiStub.start(options("0"))) {
+			GameLibrary first = fetch(stub, "76561198000000001");
+			GameLibrary again = fetch(stub, "76561198000000001");
+
+			assertThat(first.size()).isBetween(50, 150);
+			assertThat(again.contentHash()).isEqualTo(first.contentHash());
+		}
+	}
+
+	@Test
+	void injectsErrors() throws Exception {
+		try (SteamApiStub stub = SteamApiStub.start(options("1"))) {
+			HttpResponse<Void> response = client.send(request(stub, "76561198000000001"),
+					HttpResponse.BodyHandlers.discarding());
+
+			assertThat(response.statusCode()).isEqualTo(500);
+		}
+	}
+
+	private GameLibrary fetch(SteamApiStub stub, String steamId) throws Exception {
+		HttpResponse<byte[]> response = client.send(request(stub, steamId), HttpResponse.BodyHandlers.ofByteArray());
+		assertThat(response.statusCode()).isEqualTo(200);
+		return OwnedGamesParser.parse(new ByteArrayInputStream(response.body()), "");
+	}
+
+	private static HttpRequest request(SteamApiStub stub, String steamId) {
+		return HttpRequest.newBuilder(URI.create(stub.baseUrl() + SteamApiStub.OWNED_GAMES_PATH
+				+ "?key=x&steamid=" + steamId + "&include_appinfo=true&format=json")).build();
+	}
+
+	private static SteamApiStub.Options options(String errorRate) {
+		return SteamApiStub.Options.parse(Map.of("port", "0", "games", "100", "latency-ms", "0",
+				"jitter-ms", "0", "error-rate", errorRate));
+	}
+}
@@ -0,0 +1,103 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.controller.GameController.OverviewData;
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachedLibraryTests {
+
+	private final CachedLibrary library = new CachedLibrary(GameLibrary.builder(5, "")
+			.add(400, "Zelda", 0, null)
+			.add(200, "Ágata", 300, null)
+			.add(100, "apple", 0, null)
+			.add(500, "Éclair", 900, null)
+			.add(300, "banana", 300, null)
+			.build(), 0);
+
+	@Test
+	void sortsNamesWithCollator() {
+		assertThat(names(library.sorted(SortKey.NAME)))
+				.containsExactly("Ágata", "apple", "banana", "Éclair", "Zelda");
+	}
+
+	@Test
+	void sortsByOtherKeys() {
+		assertThat(names(library.sorted(SortKey.PLAYTIME)))
+				.containsExactly("Éclair", "Ágata", "banana", "Zelda", "apple");
+		assertThat(names(library.sorted(SortKey.APPID)))
+				.containsExactly("apple", "Ágata", "banana", "Zelda", "Éclair");
+		assertThat(names(library.sorted(SortKey.NEVER_PLAYED_FIRST)))
+				.containsExactly("Zelda", "apple", "Éclair", "Ágata", "banana");
+	}
+
+	@Test
+	void reusesComputedOrder() {
+		assertThat(library.sortOrder(SortKey.NAME)).isSameAs(library.sortOrder(SortKey.NAME));
+		assertThat(SortKey.fromParameter("NAME")).isEqualTo(SortKey.NAME);
+		assertThat(SortKey.fromParameter("neverplayed")).isEqualTo(SortKey.NEVER_PLAYED_FIRST);
+		assertThat(SortKey.fromParameter("desconhecido")).isEqualTo(SortKey.PLAYTIME);
+	}
+
+	@Test
+	void overviewSharesOneSummary() {
+		OverviewData overview = new SteamService(null, new SimpleMeterRegistry()).getOverview(library, "name", true, false, true, true);
+
+		assertThat(library.summary()).isSameAs(library.summary());
+		assertThat(names(overview.getGames())).containsExactly("Ágata", "apple", "banana", "Éclair", "Zelda");
+		assertThat(overview.getDashboard()).isNull();
+		assertThat(overview.getStats()).containsEntry("totalGames", 5).containsEntry("gamesNeverPlayed", 2);
+		assertThat(names(overview.getCategories().get("regular"))).containsExactlyInAnyOrder("Ágata", "banana", "Éclair");
+	}
+
+	@Test
+	void playtimeUpdateKeepsOnlyPlaytimeIndependentOrders() {
+		int[] nameOrder = library.sortOrder(SortKey.NAME);
+		int[] playtimeOrder = library.sortOrder(SortKey.PLAYTIME);
+		String version = library.version();
+
+		// Nada mudou: reaproveita tudo, só o momento da atualização é novo
+		CachedLibrary unchanged = library.withPlaytimes(library.library(), 10);
+		assertThat(unchanged.loadedAt()).isEqualTo(10);
+		assertThat(unchanged.fullLoadedAt()).isEqualTo(0);
+		assertThat(unchanged.sortOrder(SortKey.PLAYTIME)).isSameAs(playtimeOrder);
+		assertThat(unchanged.version()).isEqualTo(version);
+
+		int[] playtimes = library.library().copyPlaytimes();
+		playtimes[2] = 5000;
+		CachedLibrary updated = library.withPlaytimes(library.library().withPlaytimes(playtimes), 20);
+		assertThat(updated.sortOrder(SortKey.NAME)).isSameAs(nameOrder);
+		assertThat(names(updated.sorted(SortKey.PLAYTIME)).get(0)).isEqualTo("apple");
+		assertThat(updated.version()).isNotEqualTo(version);
+		assertThat(updated.summary().getTotalMinutes()).isEqualTo(6500);
+	}
+
+	@Test
+	void serializedResponsesSurviveOnlyUnchangedRefreshes() {
+		byte[] body = "[]".getBytes();
+		library.storeSerializedResponse("list.playtime", "\"v1\"", body);
+		assertThat(library.serializedResponse("list.playtime", "\"v1\"")).isSameAs(body);
+		assertThat(library.serializedResponse("list.playtime", "\"v2\"")).isNull();
+		assertThat(library.serializedResponse("dashboard", "\"v1\"")).isNull();
+
+		// Nada mudou: mesmos bytes e mesmo momento do conteúdo (generated_at)
+		CachedLibrary unchanged = library.withPlaytimes(library.library(), 10);
+		assertThat(unchanged.computedAt()).isEqualTo(library.computedAt());
+		assertThat(unchanged.serializedResponse("list.playtime", "\"v1\"")).isSameAs(body);
+
+		int[] playtimes = library.library().copyPlaytimes();
+		playtimes[0] += 1;
+		CachedLibrary updated = library.withPlaytimes(library.library().withPlaytimes(playtimes), 20);
+		assertThat(updated.computedAt()).isEqualTo(20);
+		assertThat(updated.serializedResponse("list.playtime", "\"v1\"")).isNull();
+	}
+
+	private static List<String> names(List<Game> games) {
+		return games.stream().map(Game::getName).toList();
+	}
+}
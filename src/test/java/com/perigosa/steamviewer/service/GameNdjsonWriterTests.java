@@ -0,0 +1,64 @@
+package com.perigosa.steamviewer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.perigosa.steamviewer.model.GameField;
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameNdjsonWriterTests {
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void writesOneGamePerLineInSortOrder() throws Exception {
+		CachedLibrary library = library(600);
+		int[] order = library.sortOrder(SortKey.NAME);
+
+		List<String> lines = write(library.library(), order, null);
+
+		assertThat(lines).hasSize(600);
+		for (int i = 0; i < lines.size(); i++) {
+			JsonNode node = mapper.readTree(lines.get(i));
+			assertThat(node.get("app_id").asText()).isEqualTo(library.sorted(SortKey.NAME).get(i).getAppId());
+			assertThat(node.has("playtime_hours")).isTrue();
+		}
+		// Sem nome: o campo não aparece
+		assertThat(mapper.readTree(lines.get(599)).has("name")).isFalse();
+	}
+
+	@Test
+	void writesOnlyRequestedFields() throws Exception {
+		CachedLibrary library = library(3);
+
+		List<String> lines = write(library.library(), library.sortOrder(SortKey.APPID), GameField.parse("appid,hours"));
+
+		assertThat(lines).containsExactly(
+				"{\"app_id\":\"0\",\"playtime_hours\":0.0}",
+				"{\"app_id\":\"1\",\"playtime_hours\":1.0}",
+				"{\"app_id\":\"2\",\"playtime_hours\":2.0}");
+	}
+
+	private static List<String> write(GameLibrary library, int[] order, Set<GameField> fields) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GameNdjsonWriter.write(library, order, fields, out);
+		String text = out.toString(StandardCharsets.UTF_8);
+		assertThat(text).endsWith("\n");
+		return text.lines().toList();
+	}
+
+	private static CachedLibrary library(int size) {
+		GameLibrary.Builder builder = GameLibrary.builder(size, "");
+		for (int i = 0; i < size; i++) {
+			builder.add(i, i == size - 1 ? null : "Jogo \"" + i + "\"", i * 60, null);
+		}
+		return new CachedLibrary(builder.build(), System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,73 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.controller.GameController.GamePage;
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameField;
+import com.perigosa.steamviewer.model.GameLibrary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GamePageTests {
+
+	private final SteamService steamService = new SteamService(null, new SimpleMeterRegistry());
+
+	@Test
+	void cursorWalksThroughWholeSortedLibrary() {
+		CachedLibrary library = library(25);
+		List<String> seen = new ArrayList<>();
+
+		GamePage page = steamService.getPage(library, SortKey.PLAYTIME, 0, 10, null);
+		while (true) {
+			assertThat(page.getTotalCount()).isEqualTo(25);
+			for (Object item : page.getItems()) {
+				seen.add(((Game) item).getAppId());
+			}
+			if (page.getNextCursor() == null) {
+				break;
+			}
+			PageCursor cursor = PageCursor.decode(page.getNextCursor());
+			assertThat(cursor.version()).isEqualTo(library.version());
+			page = steamService.getPage(library, cursor.sortKey(), cursor.offset(), 10, null);
+		}
+
+		assertThat(seen).containsExactlyElementsOf(
+				library.sorted(SortKey.PLAYTIME).stream().map(Game::getAppId).toList());
+	}
+
+	@Test
+	void projectsOnlyRequestedFields() {
+		GamePage page = steamService.getPage(library(3), SortKey.APPID, 1, 5,
+				GameField.parse("appid,playtime_forever"));
+
+		assertThat(page.getItems()).hasSize(2);
+		assertThat(page.getNextCursor()).isNull();
+		@SuppressWarnings("unchecked")
+		Map<String, Object> first = (Map<String, Object>) page.getItems().get(0);
+		assertThat(first)
+				.containsOnlyKeys("app_id", "playtime_forever")
+				.containsEntry("app_id", "1");
+		assertThatThrownBy(() -> GameField.parse("app_id,senha")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void versionDependsOnlyOnContent() {
+		assertThat(library(5).version()).isEqualTo(library(5).version());
+		assertThat(library(5).version()).isNotEqualTo(library(6).version());
+		assertThatThrownBy(() -> PageCursor.decode("nao-e-um-cursor")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static CachedLibrary library(int size) {
+		GameLibrary.Builder builder = GameLibrary.builder(size, "");
+		for (int i = 0; i < size; i++) {
+			builder.add(i, "Game " + i, (i * 37) % 11 * 60, null);
+		}
+		return new CachedLibrary(builder.build(), System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,102 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GamePopularityIndexTests {
+
+	private final GamePopularityIndex index = new GamePopularityIndex(100);
+
+	private static GameLibrary library(int... appIdsAndPlaytimes) {
+		GameLibrary.Builder builder = GameLibrary.builder(appIdsAndPlaytimes.length / 2, "");
+		for (int i = 0; i < appIdsAndPlaytimes.length; i += 2) {
+			builder.add(appIdsAndPlaytimes[i], "Game " + appIdsAndPlaytimes[i], appIdsAndPlaytimes[i + 1], null);
+		}
+		return builder.build();
+	}
+
+	@Test
+	void ranksByOwnersAndByPlaytime() {
+		index.record("a", library(10, 100, 20, 5));
+		index.record("b", library(20, 10, 30, 1000));
+		index.record("c", library(20, 0));
+
+		GamePopularityIndex.TopGames byOwners = index.top(GamePopularityIndex.Ranking.OWNERS, 2);
+		assertThat(byOwners.getTrackedUsers()).isEqualTo(3);
+		assertThat(byOwners.getGames()).extracting(GamePopularityIndex.PopularGame::getAppId).containsExactly(20, 30);
+		assertThat(byOwners.getGames().get(0).getOwners()).isEqualTo(3);
+		assertThat(byOwners.getGames().get(0).getTotalMinutes()).isEqualTo(15);
+		assertThat(byOwners.getGames().get(0).getName()).isEqualTo("Game 20");
+
+		List<GamePopularityIndex.PopularGame> byPlaytime = index.top(GamePopularityIndex.Ranking.PLAYTIME, 10).getGames();
+		assertThat(byPlaytime).extracting(GamePopularityIndex.PopularGame::getAppId).containsExactly(30, 10, 20);
+	}
+
+	@Test
+	void refreshAppliesOnlyTheDifference() {
+		index.record("a", library(10, 100, 20, 5));
+		index.record("a", library(10, 100, 20, 5));
+		index.record("a", library(10, 160, 30, 7));
+
+		List<GamePopularityIndex.PopularGame> games = index.top(GamePopularityIndex.Ranking.OWNERS, 10).getGames();
+		assertThat(games).extracting(GamePopularityIndex.PopularGame::getAppId).containsExactly(10, 30);
+		assertThat(games).extracting(GamePopularityIndex.PopularGame::getOwners).containsExactly(1L, 1L);
+		assertThat(games.get(0).getTotalMinutes()).isEqualTo(160);
+
+		// Perfil ficou privado: o usuário sai do índice
+		index.record("a", GameLibrary.empty());
+		assertThat(index.top(GamePopularityIndex.Ranking.OWNERS, 10).getGames()).isEmpty();
+		assertThat(index.top(GamePopularityIndex.Ranking.OWNERS, 10).getTrackedUsers()).isZero();
+	}
+
+	@Test
+	void evictsLeastRecentlyRecordedUserAndItsGames() {
+		GamePopularityIndex bounded = new GamePopularityIndex(2);
+		bounded.record("a", library(10, 100, 20, 5));
+		bounded.record("b", library(20, 10));
+		bounded.record("a", library(10, 100, 20, 5));
+		bounded.record("c", library(30, 7));
+
+		// "b" foi o contado há mais tempo: sai junto com o tempo dele no jogo 20
+		GamePopularityIndex.TopGames top = bounded.top(GamePopularityIndex.Ranking.OWNERS, 10);
+		assertThat(top.getTrackedUsers()).isEqualTo(2);
+		assertThat(top.getGames()).extracting(GamePopularityIndex.PopularGame::getAppId).containsExactly(10, 30, 20);
+		assertThat(top.getGames()).extracting(GamePopularityIndex.PopularGame::getOwners).containsExactly(1L, 1L, 1L);
+		assertThat(top.getGames().get(2).getTotalMinutes()).isEqualTo(5);
+	}
+
+	@Test
+	void concurrentRefreshesDoNotDoubleCount() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int user = 0; user < 50; user++) {
+				String steamId = "user" + user;
+				for (int repeat = 0; repeat < 4; repeat++) {
+					futures.add(executor.submit(() -> index.record(steamId, library(730, 60, 570, 30))));
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		GamePopularityIndex.PopularGame top = index.top(GamePopularityIndex.Ranking.OWNERS, 1).getGames().get(0);
+		assertThat(top.getAppId()).isEqualTo(730);
+		assertThat(top.getOwners()).isEqualTo(50);
+		assertThat(top.getTotalMinutes()).isEqualTo(50 * 60);
+		assertThatThrownBy(() -> GamePopularityIndex.Ranking.fromParameter("hours"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
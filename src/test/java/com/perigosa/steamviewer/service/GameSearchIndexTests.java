@@ -0,0 +1,63 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameSearchIndexTests {
+
+	private final GameLibrary library = GameLibrary.builder(6, "")
+			.add(292030, "The Witcher® 3: Wild Hunt", 3000, null)
+			.add(20920, "The Witcher 2: Assassins of Kings", 100, null)
+			.add(730, "Counter-Strike 2", 90000, null)
+			.add(240, "Counter-Strike: Source", 10, null)
+			.add(1145360, "Hades", 500, null)
+			.add(427520, "Factorio", 0, null)
+			.build();
+
+	private final GameSearchIndex index = GameSearchIndex.build(library);
+
+	private List<String> search(String query) {
+		return library.asList(index.search(library, query, 10)).stream().map(Game::getName).toList();
+	}
+
+	@Test
+	void matchesWordPrefixesOrderedByPlaytime() {
+		assertThat(search("witch")).containsExactly("The Witcher® 3: Wild Hunt", "The Witcher 2: Assassins of Kings");
+		assertThat(search("counter str")).containsExactly("Counter-Strike 2", "Counter-Strike: Source");
+		assertThat(search("COUNTER-STRIKE: so")).containsExactly("Counter-Strike: Source");
+		// Nome começando com a busca vem antes de mais tempo jogado
+		assertThat(search("the wi").get(0)).startsWith("The Witcher");
+		assertThat(search("xyz")).isEmpty();
+		assertThat(search("  ")).isEmpty();
+	}
+
+	@Test
+	void toleratesTypos() {
+		assertThat(search("wicther")).containsExactly("The Witcher® 3: Wild Hunt", "The Witcher 2: Assassins of Kings");
+		assertThat(search("factroio")).containsExactly("Factorio");
+		assertThat(search("hadse")).containsExactly("Hades");
+		// Palavras curtas precisam casar exatamente
+		assertThat(search("hqd")).isEmpty();
+		// Prefixo com erro de digitação
+		assertThat(search("facotr")).containsExactly("Factorio");
+	}
+
+	@Test
+	void exactMatchesComeBeforeTypos() {
+		GameLibrary games = GameLibrary.builder(2, "")
+				.add(1, "Portal", 0, null)
+				.add(2, "Portla Knights", 1000, null)
+				.build();
+		GameSearchIndex gamesIndex = GameSearchIndex.build(games);
+
+		assertThat(games.asList(gamesIndex.search(games, "portal", 10)))
+				.extracting(Game::getName).containsExactly("Portal", "Portla Knights");
+		assertThat(GameSearchIndex.prefixDistance("wicther", "witcher", 2)).isEqualTo(1);
+		assertThat(GameSearchIndex.prefixDistance("witc", "witcher", 1)).isZero();
+	}
+}
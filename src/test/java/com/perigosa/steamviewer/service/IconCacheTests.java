@@ -0,0 +1,182 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.config.UpstreamGuard;
+import com.perigosa.steamviewer.config.UpstreamThrottledException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IconCacheTests {
+
+	private static final byte[] ICON = new byte[1000];
+
+	@TempDir
+	Path dir;
+
+	private final AtomicInteger originHits = new AtomicInteger();
+
+	private HttpServer origin;
+
+	@BeforeEach
+	void startOrigin() throws IOException {
+		Arrays.fill(ICON, (byte) 7);
+		origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		origin.createContext("/icons/", this::serveIcon);
+		origin.start();
+	}
+
+	@AfterEach
+	void stopOrigin() {
+		origin.stop(0);
+	}
+
+	private void serveIcon(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			originHits.incrementAndGet();
+			String path = exchange.getRequestURI().getPath();
+			int status = path.contains("missing") ? 404 : path.contains("broken") ? 500 : 200;
+			if (status != 200) {
+				exchange.sendResponseHeaders(status, -1);
+				return;
+			}
+			exchange.sendResponseHeaders(200, ICON.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(ICON);
+			}
+		}
+	}
+
+	private IconCache cache(long maxBytes) {
+		return cache(maxBytes, guard(1000, 1000));
+	}
+
+	private IconCache cache(long maxBytes, UpstreamGuard guard) {
+		String originUrl = "http://127.0.0.1:" + origin.getAddress().getPort() + "/icons/";
+		return new IconCache(HttpClient.newHttpClient(), guard, true, dir.toString(), maxBytes, originUrl, 2000, 300);
+	}
+
+	private static UpstreamGuard guard(double ratePerSecond, int burst) {
+		return new UpstreamGuard(new UpstreamGuard.Settings(ratePerSecond, burst, 0, 0, 5, 30, 8, 8, 2000));
+	}
+
+	@Test
+	void downloadsEachIconOnceAndServesItFromDisk() throws Exception {
+		IconCache cache = cache(10_000);
+
+		Path first = cache.get(730, "abc123");
+		Path again = cache.get(730, "abc123");
+
+		assertThat(first).isEqualTo(dir.resolve("730/abc123.jpg")).isEqualTo(again);
+		assertThat(Files.readAllBytes(first)).isEqualTo(ICON);
+		assertThat(originHits).hasValue(1);
+		assertThat(cache.getStats().getHits()).isEqualTo(1);
+		assertThat(cache.getIconBaseUrl()).isEqualTo(IconCache.ICON_PATH);
+
+		// Outra instância (restart) reaproveita os arquivos já baixados
+		assertThat(cache(10_000).get(730, "abc123")).isEqualTo(first);
+		assertThat(originHits).hasValue(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedIconsWhenOverBudget() throws Exception {
+		IconCache cache = cache(2_500);
+		ReflectionTestUtils.setField(cache, "deleteGraceMillis", 0L);
+
+		Path a = cache.get(10, "aaa");
+		Path b = cache.get(20, "bbb");
+		cache.get(10, "aaa");
+		Path c = cache.get(30, "ccc");
+
+		// Cabem dois ícones: "bbb" era o menos usado
+		assertThat(Files.exists(a)).isTrue();
+		assertThat(Files.exists(b)).isFalse();
+		assertThat(Files.exists(c)).isTrue();
+		assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+		assertThat(cache.getStats().getTotalBytes()).isEqualTo(2 * ICON.length);
+	}
+
+	@Test
+	void evictedIconStaysOnDiskForTheGracePeriod() throws Exception {
+		IconCache cache = cache(1_500);
+
+		// Quem recebeu o caminho de "aaa" (ex: o Tomcat com sendfile) ainda consegue abrir o arquivo
+		Path a = cache.get(10, "aaa");
+		cache.get(20, "bbb");
+
+		assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+		assertThat(cache.getStats().getSize()).isEqualTo(1);
+		assertThat(Files.readAllBytes(a)).isEqualTo(ICON);
+	}
+
+	@Test
+	void forgottenIconIsDownloadedAgain() throws Exception {
+		IconCache cache = cache(10_000);
+		Path file = cache.get(730, "abc123");
+
+		// O índice não olha o disco: o arquivo apagado por fora só é notado por quem vai abri-lo
+		Files.delete(file);
+		assertThat(cache.get(730, "abc123")).isEqualTo(file);
+		assertThat(originHits).hasValue(1);
+
+		cache.forget(730, "abc123");
+		assertThat(cache.get(730, "abc123")).isEqualTo(file);
+		assertThat(Files.readAllBytes(file)).isEqualTo(ICON);
+		assertThat(originHits).hasValue(2);
+	}
+
+	@Test
+	void missingIconsReturnNullAndOriginErrorsAreNotCached() throws Exception {
+		IconCache cache = cache(10_000);
+
+		assertThat(cache.get(10, "missing")).isNull();
+		assertThat(cache.get(10, "../../etc")).isNull();
+		assertThatThrownBy(() -> cache.get(10, "broken")).isInstanceOf(IOException.class);
+		assertThatThrownBy(() -> cache.get(10, "broken")).isInstanceOf(IOException.class);
+
+		assertThat(originHits).hasValue(3);
+		assertThat(cache.getStats().getSize()).isZero();
+		assertThat(dir.resolve("10")).doesNotExist();
+	}
+
+	@Test
+	void notFoundIsRememberedForAWhile() throws Exception {
+		IconCache cache = cache(10_000);
+
+		assertThat(cache.get(10, "missing")).isNull();
+		assertThat(cache.get(10, "missing")).isNull();
+		assertThat(cache.get(10, "missing2")).isNull();
+
+		assertThat(originHits).hasValue(2);
+		assertThat(cache.getStats().getNotFound()).isEqualTo(2);
+		assertThat(cache.getStats().getNotFoundHits()).isEqualTo(1);
+	}
+
+	@Test
+	void downloadsShareTheSteamRateLimit() throws Exception {
+		// Um token e nenhum reabastecimento relevante: o segundo download é recusado sem chamar a origem
+		IconCache cache = cache(10_000, guard(0.001, 1));
+
+		assertThat(cache.get(10, "aaa")).isNotNull();
+		assertThatThrownBy(() -> cache.get(20, "bbb")).isInstanceOf(UpstreamThrottledException.class);
+		assertThat(originHits).hasValue(1);
+
+		// Ícones já baixados continuam saindo do disco
+		assertThat(cache.get(10, "aaa")).isNotNull();
+	}
+}
@@ -0,0 +1,81 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.Game;
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.LibrarySummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibraryAnalyticsTests {
+
+	@Test
+	void matchesMultiPassAggregations() {
+		Random random = new Random(7);
+		for (int round = 0; round < 50; round++) {
+			List<Game> games = new ArrayList<>();
+			int size = random.nextInt(300);
+			for (int i = 0; i < size; i++) {
+				// Poucos valores distintos para forçar empates no top 5 e no maior appId
+				int playtime = random.nextInt(3) == 0 ? 0 : random.nextInt(40) * 50;
+				games.add(new Game(String.valueOf(random.nextInt(500)), "Game " + i, playtime, ""));
+			}
+
+			LibrarySummary summary = LibraryAnalytics.summarize(games);
+
+			List<Game> expectedTop = games.stream()
+					.filter(game -> game.getPlaytimeForever() > 0)
+					.sorted(Comparator.comparingInt(Game::getPlaytimeForever).reversed())
+					.limit(5)
+					.collect(Collectors.toList());
+			Game expectedMostRecent = games.stream()
+					.max(Comparator.comparing(game -> Long.parseLong(game.getAppId())))
+					.orElse(null);
+
+			assertThat(summary.getTopPlayed()).containsExactlyElementsOf(expectedTop);
+			assertThat(summary.getMostRecentGame()).isSameAs(expectedMostRecent);
+			assertThat(summary.getLongestSession()).isSameAs(expectedTop.isEmpty() ? null : expectedTop.get(0));
+			assertThat(summary.getTotalMinutes())
+					.isEqualTo(games.stream().mapToLong(Game::getPlaytimeForever).sum());
+			assertThat(summary.getNeverPlayed())
+					.containsExactlyElementsOf(games.stream().filter(g -> g.getPlaytimeForever() == 0).toList());
+			assertThat(summary.getHardcore())
+					.containsExactlyElementsOf(games.stream().filter(g -> g.getPlaytimeForever() > 1200).toList());
+			assertThat(summary.getPlayedGames() + summary.getNeverPlayedGames()).isEqualTo(size);
+		}
+	}
+
+	@Test
+	void compactLibraryMatchesListSummary() {
+		Random random = new Random(11);
+		GameLibrary.Builder builder = GameLibrary.builder(0, SteamService.STEAM_MEDIA_URL);
+		for (int i = 0; i < 500; i++) {
+			int playtime = random.nextInt(3) == 0 ? 0 : random.nextInt(40) * 50;
+			builder.add(random.nextInt(1000), "Game " + i, playtime, i % 2 == 0 ? null : "0123456789abcdef0123456789abcdef01234567");
+		}
+		GameLibrary library = builder.build();
+		List<Game> games = new ArrayList<>(library.asList());
+
+		LibrarySummary fromLibrary = LibraryAnalytics.summarize(library);
+		LibrarySummary fromList = LibraryAnalytics.summarize(games);
+
+		assertThat(appIds(fromLibrary.getTopPlayed())).isEqualTo(appIds(fromList.getTopPlayed()));
+		assertThat(fromLibrary.getMostRecentGame().getAppId()).isEqualTo(fromList.getMostRecentGame().getAppId());
+		assertThat(fromLibrary.getTotalMinutes()).isEqualTo(fromList.getTotalMinutes());
+		assertThat(appIds(fromLibrary.getCasual())).isEqualTo(appIds(fromList.getCasual()));
+		assertThat(appIds(fromLibrary.getRegular())).isEqualTo(appIds(fromList.getRegular()));
+		assertThat(appIds(fromLibrary.getHardcore())).isEqualTo(appIds(fromList.getHardcore()));
+		assertThat(fromLibrary.getHardcore().get(0).getImgIconUrl()).isEqualTo(
+				games.stream().filter(g -> g.getPlaytimeForever() > 1200).findFirst().orElseThrow().getImgIconUrl());
+	}
+
+	private static List<String> appIds(List<Game> games) {
+		return games.stream().map(Game::getAppId).toList();
+	}
+}
@@ -0,0 +1,110 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.config.UpstreamUnavailableException;
+import com.perigosa.steamviewer.controller.GameController.BatchResult;
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LibraryBatchServiceTests {
+
+	private final SteamService steamService = mock(SteamService.class);
+
+	@Test
+	void resultsKeepTheRequestOrderWithoutDuplicates() {
+		when(steamService.resolveSteamId(anyString())).thenAnswer(call -> call.getArgument(0));
+		when(steamService.getCachedLibraryOrThrow("a")).thenAnswer(call -> {
+			// O primeiro termina por último
+			Thread.sleep(100);
+			return library(1);
+		});
+		when(steamService.getCachedLibraryOrThrow("b")).thenReturn(library(2));
+		when(steamService.getCachedLibraryOrThrow("c")).thenReturn(library(3));
+
+		List<BatchResult> results = newService(60, 4).getLibraries(List.of("a", "b", "a", "c", "b"), false, false, null);
+
+		assertThat(results).extracting(BatchResult::getSteamId).containsExactly("a", "b", "c");
+		assertThat(results).extracting(BatchResult::getGameCount).containsExactly(1, 2, 3);
+		verify(steamService, times(1)).getCachedLibraryOrThrow("a");
+		verify(steamService, times(1)).getCachedLibraryOrThrow("b");
+	}
+
+	@Test
+	void errorsStayInTheirOwnItem() {
+		when(steamService.resolveSteamId("ok")).thenReturn("76561197960287930");
+		when(steamService.resolveSteamId("ghost")).thenReturn(null);
+		when(steamService.resolveSteamId("down")).thenReturn("76561197960287931");
+		when(steamService.getCachedLibraryOrThrow("76561197960287930")).thenReturn(library(2));
+		when(steamService.getCachedLibraryOrThrow("76561197960287931"))
+				.thenThrow(new UpstreamUnavailableException("circuito aberto", 30));
+
+		List<BatchResult> results = newService(60, 4).getLibraries(List.of("ok", "ghost", "down"), false, false, null);
+
+		assertThat(results).extracting(BatchResult::getStatus).containsExactly("ok", "error", "error");
+		assertThat(results.get(0).getSteamId()).isEqualTo("ok");
+		assertThat(results.get(0).getGameCount()).isEqualTo(2);
+		// Nome customizado inexistente não vira "ok com 0 jogos"
+		assertThat(results.get(1).getError()).isEqualTo("Usuário não encontrado na Steam");
+		assertThat(results.get(2).getError()).isEqualTo("Steam API indisponível, tente novamente em 30s");
+		verify(steamService, never()).getCachedLibraryOrThrow("ghost");
+	}
+
+	@Test
+	void deadlineCancelsRunningLoadsAndSkipsQueuedOnes() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		when(steamService.resolveSteamId(anyString())).thenAnswer(call -> call.getArgument(0));
+		// Qualquer um dos dois pode pegar a vaga primeiro: os dois demoram mais que o prazo
+		when(steamService.getCachedLibraryOrThrow(anyString())).thenAnswer(call -> {
+			try {
+				Thread.sleep(10_000);
+			} catch (InterruptedException e) {
+				interrupted.countDown();
+				throw e;
+			}
+			return library(1);
+		});
+
+		// Uma vaga só: o segundo espera a vaga do primeiro e o prazo acaba antes
+		long start = System.nanoTime();
+		List<BatchResult> results = newService(1, 1).getLibraries(List.of("slow", "queued"), false, false, null);
+		long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(elapsedMs).isLessThan(5_000);
+		assertThat(results).extracting(BatchResult::getError).containsExactly("Tempo esgotado", "Tempo esgotado");
+		assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		// A vaga liberada pelo cancelamento chega depois do prazo: o segundo não chama a Steam API
+		Thread.sleep(200);
+		verify(steamService, times(1)).getCachedLibraryOrThrow(anyString());
+	}
+
+	private LibraryBatchService newService(long timeoutSeconds, int concurrency) {
+		LibraryBatchService service = new LibraryBatchService();
+		ReflectionTestUtils.setField(service, "steamService", steamService);
+		ReflectionTestUtils.setField(service, "steamFanOutExecutor", new SimpleAsyncTaskExecutor("batch-test-"));
+		ReflectionTestUtils.setField(service, "timeoutSeconds", timeoutSeconds);
+		ReflectionTestUtils.setField(service, "concurrency", concurrency);
+		service.init();
+		return service;
+	}
+
+	private static CachedLibrary library(int games) {
+		GameLibrary.Builder builder = GameLibrary.builder(games, SteamService.STEAM_MEDIA_URL);
+		for (int i = 0; i < games; i++) {
+			builder.add(i + 1, "Game " + i, i * 10, null);
+		}
+		return new CachedLibrary(builder.build(), System.currentTimeMillis());
+	}
+}
@@ -0,0 +1,242 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LibraryCacheTests {
+
+	@Test
+	void concurrentMissesShareOneLoad() throws Exception {
+		LibraryCache cache = new LibraryCache(300, 1000);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<CachedLibrary>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> cache.get("1", id -> {
+					loads.incrementAndGet();
+					await(release);
+					return games(3);
+				})));
+			}
+			Thread.sleep(100);
+			release.countDown();
+
+			for (Future<CachedLibrary> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS).size()).isEqualTo(3);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(loads.get()).isEqualTo(1);
+		assertThat(cache.getStats().getLoads()).isEqualTo(1);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedWhenOverWeight() {
+		LibraryCache cache = new LibraryCache(300, 10);
+		cache.put("a", games(4));
+		cache.put("b", games(4));
+		cache.getIfPresent("a");
+		cache.put("c", games(4));
+
+		assertThat(cache.getIfPresent("a")).isNotNull();
+		assertThat(cache.getIfPresent("b")).isNull();
+		assertThat(cache.getIfPresent("c")).isNotNull();
+		assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+		assertThat(cache.getStats().getWeight()).isEqualTo(8);
+	}
+
+	@Test
+	void expiredEntriesAreReloaded() {
+		LibraryCache cache = new LibraryCache(0, 1000);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get("1", id -> { loads.incrementAndGet(); return games(1); });
+		sleep(5);
+		cache.get("1", id -> { loads.incrementAndGet(); return games(1); });
+
+		assertThat(loads.get()).isEqualTo(2);
+		assertThat(cache.getStats().getExpirations()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredEntryIsHandedToRefresher() {
+		LibraryCache cache = new LibraryCache(0, 1000);
+		CachedLibrary first = cache.get("1", (id, stale) -> {
+			assertThat(stale).isNull();
+			return new CachedLibrary(games(2), System.currentTimeMillis());
+		});
+		sleep(5);
+
+		CachedLibrary second = cache.get("1", (id, stale) -> {
+			assertThat(stale).isSameAs(first);
+			return stale.withPlaytimes(stale.library(), System.currentTimeMillis());
+		});
+		assertThat(second.library()).isSameAs(first.library());
+		assertThat(second.fullLoadedAt()).isEqualTo(first.fullLoadedAt());
+	}
+
+	@Test
+	void failedLoadsAreNotCached() {
+		LibraryCache cache = new LibraryCache(300, 1000);
+		assertThatThrownBy(() -> cache.get("1", id -> { throw new IllegalStateException("falhou"); }))
+				.isInstanceOf(IllegalStateException.class);
+
+		assertThat(cache.get("1", id -> games(2)).size()).isEqualTo(2);
+		assertThat(cache.getStats().getLoadFailures()).isEqualTo(1);
+	}
+
+	@Test
+	void asyncLoadIsSharedAndServedFromCache() throws Exception {
+		LibraryCache cache = new LibraryCache(300, 1000);
+		AtomicInteger loads = new AtomicInteger();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			LibraryCache.Refresher refresher = (id, stale) -> {
+				loads.incrementAndGet();
+				sleep(50);
+				return new CachedLibrary(games(3), System.currentTimeMillis());
+			};
+			CompletableFuture<CachedLibrary> first = cache.getAsync("1", refresher, executor);
+			CompletableFuture<CachedLibrary> second = cache.getAsync("1", refresher, executor);
+			assertThat(first.get(5, TimeUnit.SECONDS).size()).isEqualTo(3);
+			assertThat(second.get(5, TimeUnit.SECONDS).size()).isEqualTo(3);
+
+			// No cache: future já completo, sem passar pelo executor
+			CompletableFuture<CachedLibrary> hit = cache.getAsync("1", refresher, executor);
+			assertThat(hit.isDone()).isTrue();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(loads.get()).isEqualTo(1);
+	}
+
+	@Test
+	void asyncLoadIsCancelledWhenLastWaiterGivesUp() throws Exception {
+		LibraryCache cache = new LibraryCache(300, 1000);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch interrupted = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			LibraryCache.Refresher refresher = (id, stale) -> {
+				started.countDown();
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+					throw new IllegalStateException("cancelada");
+				}
+				return new CachedLibrary(games(1), System.currentTimeMillis());
+			};
+			CompletableFuture<CachedLibrary> first = cache.getAsync("1", refresher, executor);
+			CompletableFuture<CachedLibrary> second = cache.getAsync("1", refresher, executor);
+			assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// Ainda há um interessado: a carga continua
+			first.cancel(true);
+			assertThat(interrupted.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+			// O último desistiu: a thread da carga é interrompida
+			second.cancel(true);
+			assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertThat(cache.getStats().getCancelledLoads()).isEqualTo(1);
+		assertThat(cache.getStats().getInFlightLoads()).isZero();
+		assertThat(cache.getIfPresent("1")).isNull();
+	}
+
+	@Test
+	void refreshScheduledFromInsideTheLoaderRunsAfterItFinishes() throws Exception {
+		LibraryCache cache = new LibraryCache(300, 1000);
+		CountDownLatch refreshed = new CountDownLatch(1);
+		try {
+			CachedLibrary first = cache.get("1", id -> {
+				// Ex: entrada montada a partir do snapshot, que agenda a busca de verdade
+				cache.refreshAfterLoad(id, refreshId -> {
+					refreshed.countDown();
+					return games(5);
+				});
+				return games(2);
+			});
+			assertThat(first.size()).isEqualTo(2);
+
+			assertThat(refreshed.await(5, TimeUnit.SECONDS)).isTrue();
+			for (int i = 0; i < 500 && cache.getIfPresent("1").size() != 5; i++) {
+				sleep(10);
+			}
+			assertThat(cache.getIfPresent("1").size()).isEqualTo(5);
+			assertThat(cache.getStats().getBackgroundRefreshes()).isEqualTo(1);
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	void serializedResponsesCountInTheWeight() {
+		LibraryCache cache = new LibraryCache(300, 100);
+		try {
+			CachedLibrary first = cache.put("1", games(10));
+			cache.put("2", games(10));
+			assertThat(cache.getStats().getWeight()).isEqualTo(20);
+
+			// 85 * 128 bytes = 85 de peso: passa do máximo e a menos usada das outras sai
+			first.storeSerializedResponse("list.playtime", "\"v1\"", new byte[85 * (int) LibraryCache.BYTES_PER_WEIGHT]);
+			assertThat(cache.getStats().getWeight()).isEqualTo(95);
+			assertThat(cache.getIfPresent("1")).isSameAs(first);
+			assertThat(cache.getIfPresent("2")).isNull();
+
+			// Entrada que já saiu do cache não mexe mais no peso
+			CachedLibrary replaced = cache.put("1", games(3));
+			first.storeSerializedResponse("dashboard", "\"v1\"", new byte[1024]);
+			assertThat(cache.getStats().getWeight()).isEqualTo(3);
+			replaced.storeSerializedResponse("dashboard", "\"v2\"", new byte[256]);
+			assertThat(cache.getStats().getWeight()).isEqualTo(5);
+		} finally {
+			cache.shutdown();
+		}
+	}
+
+	private static GameLibrary games(int count) {
+		GameLibrary.Builder games = GameLibrary.builder(count, "");
+		for (int i = 0; i < count; i++) {
+			games.add(i, "Game " + i, i * 10, null);
+		}
+		return games.build();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
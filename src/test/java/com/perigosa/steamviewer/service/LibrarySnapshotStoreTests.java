@@ -0,0 +1,115 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LibrarySnapshotStoreTests {
+
+	private static final String HASH = "0123456789abcdef0123456789abcdef01234567";
+
+	@TempDir
+	Path dir;
+
+	private LibrarySnapshotStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = newStore();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		store.close();
+	}
+
+	@Test
+	void roundTripsLibraryAfterRestart() throws IOException {
+		GameLibrary games = GameLibrary.builder(3, SteamService.STEAM_MEDIA_URL)
+				.add(730, "Counter-Strike 2", 1234, HASH)
+				.add(570, "Dota 2", 0, "")
+				.add(440, "Team Fortress 2", 10, "not-a-sha1")
+				.build();
+		store.save("1", games);
+		store.close();
+
+		store = newStore();
+		LibrarySnapshotStore.Snapshot snapshot = store.find("1");
+
+		assertThat(snapshot).isNotNull();
+		assertThat(snapshot.library().size()).isEqualTo(3);
+		assertThat(snapshot.library().iconUrlAt(0)).isEqualTo(SteamService.buildImageUrl(730, HASH));
+		assertThat(snapshot.library().playtimeAt(0)).isEqualTo(1234);
+		assertThat(snapshot.library().nameAt(1)).isEqualTo("Dota 2");
+		assertThat(snapshot.library().iconUrlAt(1)).isEmpty();
+		assertThat(snapshot.library().iconUrlAt(2)).isEqualTo(SteamService.buildImageUrl(440, "not-a-sha1"));
+	}
+
+	@Test
+	void compactionKeepsOnlyLatestRecord() throws IOException {
+		for (int i = 0; i < 5; i++) {
+			store.save("1", library(i));
+		}
+		long before = store.getStats().getFileBytes();
+		store.compact();
+
+		assertThat(store.getStats().getFileBytes()).isLessThan(before);
+		assertThat(store.find("1").library().playtimeAt(0)).isEqualTo(4);
+	}
+
+	@Test
+	void saveCompactsInTheBackground() throws Exception {
+		ReflectionTestUtils.setField(store, "compactMinBytes", 1L);
+		Object compactionLock = ReflectionTestUtils.getField(store, "compactionLock");
+
+		// Com a compactação travada, gravações e leituras continuam sem esperar por ela
+		synchronized (compactionLock) {
+			for (int i = 0; i < 5; i++) {
+				store.save("1", library(i));
+			}
+			assertThat(store.find("1").library().playtimeAt(0)).isEqualTo(4);
+		}
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (store.getStats().getFileBytes() > store.getStats().getLiveBytes()
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(store.getStats().getFileBytes()).isEqualTo(store.getStats().getLiveBytes());
+		assertThat(store.find("1").library().playtimeAt(0)).isEqualTo(4);
+	}
+
+	@Test
+	void ignoresTruncatedTail() throws IOException {
+		store.save("1", library(1));
+		store.close();
+		Files.write(dir.resolve("snapshots.bin"), new byte[] {0, 0, 0, 50, 1, 2}, StandardOpenOption.APPEND);
+
+		store = newStore();
+		assertThat(store.find("1")).isNotNull();
+		assertThat(store.getStats().getLibraries()).isEqualTo(1);
+	}
+
+	private static GameLibrary library(int playtime) {
+		return GameLibrary.builder(1, SteamService.STEAM_MEDIA_URL).add(10, "Game", playtime, null).build();
+	}
+
+	private LibrarySnapshotStore newStore() {
+		LibrarySnapshotStore snapshotStore = new LibrarySnapshotStore();
+		ReflectionTestUtils.setField(snapshotStore, "enabled", true);
+		ReflectionTestUtils.setField(snapshotStore, "filePath", dir.resolve("snapshots.bin").toString());
+		ReflectionTestUtils.setField(snapshotStore, "maxAgeHours", 24L);
+		ReflectionTestUtils.setField(snapshotStore, "compactMinBytes", Long.MAX_VALUE);
+		return snapshotStore;
+	}
+}
@@ -0,0 +1,55 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnedGamesParserTests {
+
+	@Test
+	void parsesGamesAndSkipsUnusedFields() throws IOException {
+		GameLibrary games = parse("""
+				{"response":{"game_count":2,"games":[
+				  {"appid":730,"name":"Counter-Strike 2","playtime_forever":1234,
+				   "img_icon_url":"8dbc71957312bbd3baea65848b545be9eae2a355",
+				   "content_descriptorids":[2,5],"playtime_windows_forever":1234},
+				  {"appid":570,"name":"Dota 2","playtime_forever":0,"img_icon_url":""}
+				]}}""");
+
+		assertThat(games.size()).isEqualTo(2);
+		assertThat(games.appIdAt(0)).isEqualTo(730);
+		assertThat(games.iconHashAt(0)).isEqualTo("8dbc71957312bbd3baea65848b545be9eae2a355");
+		assertThat(games.hasIcon(1)).isFalse();
+		assertThat(games.toGame(0).getAppId()).isEqualTo("730");
+		assertThat(games.nameAt(0)).isEqualTo("Counter-Strike 2");
+		assertThat(games.playtimeAt(0)).isEqualTo(1234);
+		assertThat(games.iconUrlAt(0)).isEqualTo(
+				"https://media.steampowered.com/steamcommunity/public/images/apps/730/8dbc71957312bbd3baea65848b545be9eae2a355.jpg");
+		assertThat(games.iconUrlAt(1)).isEmpty();
+	}
+
+	@Test
+	void returnsEmptyListForPrivateProfile() throws IOException {
+		assertThat(parse("{\"response\":{}}").isEmpty()).isTrue();
+		assertThat(parse("{\"response\":{\"game_count\":0}}").isEmpty()).isTrue();
+
+		// Perfil privado: sem game_count; perfil sem jogos: game_count = 0
+		assertThat(read("{\"response\":{}}").visible()).isFalse();
+		assertThat(read("{\"response\":{\"game_count\":0}}").visible()).isTrue();
+	}
+
+	private static GameLibrary parse(String json) throws IOException {
+		return OwnedGamesParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+				SteamService.STEAM_MEDIA_URL);
+	}
+
+	private static OwnedGamesParser.Result read(String json) throws IOException {
+		return OwnedGamesParser.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+				SteamService.STEAM_MEDIA_URL);
+	}
+}
@@ -0,0 +1,143 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlaytimeHistoryStoreTests {
+
+	private static final String STEAM_ID = "76561198000000000";
+	private static final long DAY = 86_400;
+
+	@TempDir
+	Path dir;
+
+	private PlaytimeHistoryStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = newStore(16_777_216);
+	}
+
+	@AfterEach
+	void tearDown() {
+		store.close();
+	}
+
+	@Test
+	void writesOnlyIncreasesAndSurvivesRestart() {
+		long now = System.currentTimeMillis() / 1000;
+		store.record(STEAM_ID, library(730, 100, 570, 0), now - 3600);
+		store.record(STEAM_ID, library(730, 100, 570, 0), now - 1800);
+		store.record(STEAM_ID, library(730, 160, 570, 30), now - 600);
+		// Dado antigo (ex: snapshot em disco) não volta o tempo para trás
+		store.record(STEAM_ID, library(730, 100, 570, 30), now - 300);
+		store.close();
+
+		store = newStore(16_777_216);
+		List<PlaytimeHistoryStore.Sample> samples = store.samples(STEAM_ID, null, 0, now, 100);
+		assertThat(samples).extracting(PlaytimeHistoryStore.Sample::playtimeForever).containsExactly(100, 30, 160);
+		assertThat(store.samples(STEAM_ID, 730, 0, now, 100))
+				.extracting(PlaytimeHistoryStore.Sample::timestamp).containsExactly(now - 3600, now - 600);
+		assertThat(store.samples(STEAM_ID, 730, now - 1000, now, 100)).hasSize(1);
+		assertThat(store.getStats().getUsers()).isEqualTo(1);
+		// Amostras: início do acompanhamento + 730 (100) + 570 (30) + 730 (160)
+		assertThat(store.getStats().getSamples()).isEqualTo(4);
+	}
+
+	@Test
+	void gainedSinceCountsFromWindowStartOrTrackingStart() {
+		long now = System.currentTimeMillis() / 1000;
+		store.record(STEAM_ID, library(730, 1000, 570, 50, 440, 0), now - 30 * DAY);
+		store.record(STEAM_ID, library(730, 1100, 570, 50, 440, 0), now - 20 * DAY);
+		store.record(STEAM_ID, library(730, 1300, 570, 50, 440, 90), now - 2 * DAY);
+
+		Map<Integer, Integer> lastWeek = store.gainedSince(STEAM_ID, now - 7 * DAY).minutesByAppId();
+		assertThat(lastWeek).containsOnly(Map.entry(730, 200), Map.entry(440, 90));
+
+		// Janela maior que o histórico: conta a partir da primeira carga (a base não é "tempo ganho")
+		PlaytimeHistoryStore.PlaytimeGain all = store.gainedSince(STEAM_ID, now - 365 * DAY);
+		assertThat(all.windowStart()).isEqualTo(now - 30 * DAY);
+		assertThat(all.minutesByAppId()).containsOnly(Map.entry(730, 300), Map.entry(440, 90));
+
+		assertThat(store.gainedSince("76561198000000001", now - 7 * DAY)).isNull();
+	}
+
+	@Test
+	void segmentRollDownsamplesOldSamplesToOnePerDay() throws IOException {
+		// Segmentos com espaço para 4 amostras: a troca de segmento compacta os anteriores
+		store.close();
+		store = newStore(16 + 4 * PlaytimeHistoryStore.RECORD_SIZE);
+		long oldDay = (System.currentTimeMillis() / 1000 - 60 * DAY) / DAY * DAY;
+		for (int i = 1; i <= 6; i++) {
+			store.record(STEAM_ID, library(730, i * 10), oldDay + i * 600);
+		}
+		long recent = System.currentTimeMillis() / 1000 - 3600;
+		store.record(STEAM_ID, library(730, 70), recent);
+		store.record(STEAM_ID, library(730, 80), recent + 60);
+		store.compact();
+
+		List<PlaytimeHistoryStore.Sample> samples = store.samples(STEAM_ID, 730, 0, Long.MAX_VALUE, 100);
+		// Do dia antigo fica só a última amostra; as recentes ficam todas
+		assertThat(samples).extracting(PlaytimeHistoryStore.Sample::playtimeForever).containsExactly(60, 70, 80);
+		assertThat(store.gainedSince(STEAM_ID, recent - 1).minutesByAppId()).containsOnly(Map.entry(730, 20));
+
+		// O último tempo continua valendo depois da compactação (sem amostra repetida)
+		store.record(STEAM_ID, library(730, 80), recent + 120);
+		assertThat(store.samples(STEAM_ID, 730, 0, Long.MAX_VALUE, 100)).hasSize(3);
+	}
+
+	@Test
+	void segmentRollCompactsInTheBackground() throws Exception {
+		store.close();
+		store = newStore(16 + 4 * PlaytimeHistoryStore.RECORD_SIZE);
+		long oldDay = (System.currentTimeMillis() / 1000 - 60 * DAY) / DAY * DAY;
+		long recent = System.currentTimeMillis() / 1000 - 3600;
+
+		// Com a compactação travada, as gravações que trocam de segmento não esperam por ela
+		synchronized (ReflectionTestUtils.getField(store, "compactionLock")) {
+			for (int i = 1; i <= 6; i++) {
+				store.record(STEAM_ID, library(730, i * 10), oldDay + i * 600);
+			}
+			store.record(STEAM_ID, library(730, 70), recent);
+			store.record(STEAM_ID, library(730, 80), recent + 60);
+			assertThat(store.getStats().getSamples()).isEqualTo(9);
+			assertThat(store.getStats().getSegments()).isEqualTo(3);
+		}
+
+		// Liberada, a thread de segundo plano compacta os segmentos fechados
+		for (int i = 0; i < 500 && store.samples(STEAM_ID, 730, 0, Long.MAX_VALUE, 100).size() != 3; i++) {
+			Thread.sleep(10);
+		}
+		assertThat(store.samples(STEAM_ID, 730, 0, Long.MAX_VALUE, 100))
+				.extracting(PlaytimeHistoryStore.Sample::playtimeForever).containsExactly(60, 70, 80);
+	}
+
+	private static GameLibrary library(int... appIdsAndPlaytimes) {
+		GameLibrary.Builder builder = GameLibrary.builder(appIdsAndPlaytimes.length / 2, "");
+		for (int i = 0; i < appIdsAndPlaytimes.length; i += 2) {
+			builder.add(appIdsAndPlaytimes[i], "Game " + appIdsAndPlaytimes[i], appIdsAndPlaytimes[i + 1], null);
+		}
+		return builder.build();
+	}
+
+	private PlaytimeHistoryStore newStore(int segmentBytes) {
+		PlaytimeHistoryStore historyStore = new PlaytimeHistoryStore();
+		ReflectionTestUtils.setField(historyStore, "enabled", true);
+		ReflectionTestUtils.setField(historyStore, "dirPath", dir.resolve("history").toString());
+		ReflectionTestUtils.setField(historyStore, "segmentBytes", segmentBytes);
+		ReflectionTestUtils.setField(historyStore, "rawDays", 30);
+		ReflectionTestUtils.setField(historyStore, "dashboardDays", 14);
+		return historyStore;
+	}
+}
@@ -0,0 +1,117 @@
+package com.perigosa.steamviewer.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class SteamIdResolverTests {
+
+	private static final String BASE_URL = "http://steam.test";
+	private static final String STEAM_ID = "76561197960287930";
+
+	private final RestTemplate restTemplate = new RestTemplate();
+	private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+
+	private SteamIdResolver resolver(long negativeTtlSeconds) {
+		return new SteamIdResolver(restTemplate, BASE_URL, "key", 24, negativeTtlSeconds, 100);
+	}
+
+	@Test
+	void steamIdsAndProfileLinksSkipTheApi() {
+		SteamIdResolver resolver = resolver(300);
+
+		assertThat(resolver.resolve(STEAM_ID)).isEqualTo(STEAM_ID);
+		assertThat(resolver.resolve("https://steamcommunity.com/profiles/" + STEAM_ID + "/")).isEqualTo(STEAM_ID);
+		assertThat(resolver.resolve("nome com espaço")).isNull();
+		server.verify();
+	}
+
+	@Test
+	void resolvedNamesAreCached() {
+		server.expect(once(), requestTo(startsWith(BASE_URL + "/ISteamUser/ResolveVanityURL/v0001/")))
+				.andExpect(queryParam("vanityurl", "gaben"))
+				.andRespond(withSuccess("{\"response\":{\"steamid\":\"" + STEAM_ID + "\",\"success\":1}}",
+						MediaType.APPLICATION_JSON));
+		SteamIdResolver resolver = resolver(300);
+
+		assertThat(resolver.resolve("gaben")).isEqualTo(STEAM_ID);
+		assertThat(resolver.resolve("GabeN")).isEqualTo(STEAM_ID);
+		assertThat(resolver.resolve("https://steamcommunity.com/id/gaben")).isEqualTo(STEAM_ID);
+
+		server.verify();
+		assertThat(resolver.getStats().getHits()).isEqualTo(2);
+		assertThat(resolver.getStats().getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void concurrentLookupsOfTheSameNameMakeOneCall() throws Exception {
+		server.expect(once(), requestTo(startsWith(BASE_URL)))
+				.andRespond(request -> {
+					// Resposta lenta: os outros pedidos chegam enquanto a primeira consulta está em andamento
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					return withSuccess("{\"response\":{\"steamid\":\"" + STEAM_ID + "\",\"success\":1}}",
+							MediaType.APPLICATION_JSON).createResponse(request);
+				});
+		SteamIdResolver resolver = resolver(300);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					return resolver.resolve("gaben");
+				}));
+			}
+			start.countDown();
+			for (Future<String> result : results) {
+				assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(STEAM_ID);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		server.verify();
+		assertThat(resolver.getStats().getMisses()).isEqualTo(1);
+	}
+
+	@Test
+	void unknownNamesAreCachedNegativelyUntilTheShortTtlExpires() {
+		server.expect(times(2), requestTo(startsWith(BASE_URL)))
+				.andRespond(withSuccess("{\"response\":{\"success\":42,\"message\":\"No match\"}}",
+						MediaType.APPLICATION_JSON));
+
+		SteamIdResolver cached = resolver(300);
+		assertThat(cached.resolve("ninguem")).isNull();
+		assertThat(cached.resolve("ninguem")).isNull();
+		assertThat(cached.getStats().getNegativeHits()).isEqualTo(1);
+
+		// TTL negativo zerado: cada busca pergunta de novo
+		SteamIdResolver uncached = resolver(0);
+		assertThat(uncached.resolve("ninguem")).isNull();
+
+		server.verify();
+	}
+}
@@ -0,0 +1,279 @@
+package com.perigosa.steamviewer.service;
+
+import com.perigosa.steamviewer.model.GameLibrary;
+import com.perigosa.steamviewer.model.LibrarySummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.test.web.client.ResponseCreator;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.ExpectedCount.once;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class SteamServiceTests {
+
+	private static final String BASE_URL = "http://steam.test";
+	private static final String STEAM_ID = "76561197960287930";
+	private static final String OWNED_GAMES = BASE_URL + "/IPlayerService/GetOwnedGames/v0001/";
+	private static final String RECENTLY_PLAYED = BASE_URL + "/IPlayerService/GetRecentlyPlayedGames/v0001/";
+
+	@TempDir
+	Path dir;
+
+	private final RestTemplate restTemplate = new RestTemplate();
+	private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LibraryCache libraryCache = new LibraryCache(300, 100_000);
+	private final LibrarySnapshotStore snapshotStore = new LibrarySnapshotStore();
+	private SteamService service;
+
+	@BeforeEach
+	void setUp() {
+		service = newService();
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		libraryCache.shutdown();
+		snapshotStore.close();
+	}
+
+	@Test
+	void snapshotHitIsRefreshedFromTheApiRightAway() throws Exception {
+		ReflectionTestUtils.setField(snapshotStore, "enabled", true);
+		ReflectionTestUtils.setField(snapshotStore, "filePath", dir.resolve("snapshots.bin").toString());
+		ReflectionTestUtils.setField(snapshotStore, "maxAgeHours", 24L);
+		ReflectionTestUtils.setField(snapshotStore, "compactMinBytes", Long.MAX_VALUE);
+		snapshotStore.save(STEAM_ID, library(730, 10));
+		Thread.sleep(5);
+
+		server.expect(once(), requestTo(startsWith(OWNED_GAMES))).andRespond(ownedGames(730, 99));
+
+		// Responde na hora com o snapshot, sem fingir que foi uma carga completa
+		CachedLibrary fromSnapshot = service.getCachedLibraryOrThrow(STEAM_ID);
+		assertThat(fromSnapshot.library().playtimeAt(0)).isEqualTo(10);
+		assertThat(fromSnapshot.fullLoadedAt()).isLessThan(fromSnapshot.loadedAt());
+
+		// ... e busca a biblioteca de verdade em segundo plano
+		server.verify(Duration.ofSeconds(5));
+		CachedLibrary refreshed = awaitPlaytime(730, 99);
+		assertThat(refreshed.fullLoadedAt()).isEqualTo(refreshed.loadedAt());
+		assertThat(libraryCache.getStats().getBackgroundRefreshes()).isEqualTo(1);
+		assertThat(meterRegistry.counter("steam.library.refresh", "type", "snapshot").count()).isEqualTo(1);
+		assertThat(refreshCount("full")).isZero();
+	}
+
+	@Test
+	void unchangedRecentPlaytimesKeepComputedData() {
+		CachedLibrary stale = putExpired(library(730, 100, 570, 50), 10);
+		LibrarySummary summary = stale.summary();
+		String version = stale.version();
+		int[] byPlaytime = stale.sortOrder(SortKey.PLAYTIME);
+
+		server.expect(once(), requestTo(startsWith(RECENTLY_PLAYED))).andRespond(recentlyPlayed(730, 100));
+
+		CachedLibrary refreshed = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(refreshed).isNotSameAs(stale);
+		assertThat(refreshed.loadedAt()).isGreaterThan(stale.loadedAt());
+		// Mesmo conteúdo: nada é recalculado e as respostas continuam com o mesmo ETag/generated_at
+		assertThat(refreshed.library()).isSameAs(stale.library());
+		assertThat(refreshed.summary()).isSameAs(summary);
+		assertThat(refreshed.version()).isEqualTo(version);
+		assertThat(refreshed.sortOrder(SortKey.PLAYTIME)).isSameAs(byPlaytime);
+		assertThat(refreshed.computedAt()).isEqualTo(stale.computedAt());
+		assertThat(refreshed.fullLoadedAt()).isEqualTo(stale.fullLoadedAt());
+		assertThat(refreshCount("unchanged")).isEqualTo(1);
+	}
+
+	@Test
+	void changedRecentPlaytimesArePatchedIn() {
+		CachedLibrary stale = putExpired(library(730, 100, 570, 50), 10);
+		int[] byName = stale.sortOrder(SortKey.NAME);
+
+		server.expect(once(), requestTo(startsWith(RECENTLY_PLAYED))).andRespond(recentlyPlayed(730, 160));
+
+		CachedLibrary refreshed = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(playtimeOf(refreshed, 730)).isEqualTo(160);
+		assertThat(playtimeOf(refreshed, 570)).isEqualTo(50);
+		assertThat(refreshed.version()).isNotEqualTo(stale.version());
+		assertThat(refreshed.computedAt()).isGreaterThan(stale.computedAt());
+		// Atualização parcial: não conta como carga completa e mantém o que não depende do tempo de jogo
+		assertThat(refreshed.fullLoadedAt()).isEqualTo(stale.fullLoadedAt());
+		assertThat(refreshed.sortOrder(SortKey.NAME)).isSameAs(byName);
+		assertThat(refreshCount("incremental")).isEqualTo(1);
+	}
+
+	@Test
+	void unknownRecentGameTriggersFullLoadAndIsThenIgnored() {
+		putExpired(library(730, 100, 570, 50), 10);
+
+		// 440 foi jogado mas não está na biblioteca: carga completa, e ele continua de fora (jogo gratuito)
+		server.expect(once(), requestTo(startsWith(RECENTLY_PLAYED))).andRespond(recentlyPlayed(730, 100, 440, 30));
+		server.expect(once(), requestTo(startsWith(OWNED_GAMES))).andRespond(ownedGames(730, 100, 570, 50, 10, 5));
+
+		CachedLibrary full = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(full.size()).isEqualTo(3);
+		assertThat(full.untrackedAppIds()).containsExactly(440);
+		assertThat(refreshCount("full")).isEqualTo(1);
+
+		// Na próxima atualização o 440 não força outra carga completa
+		server.reset();
+		putExpired(full.library(), Set.of(440), 10);
+		server.expect(once(), requestTo(startsWith(RECENTLY_PLAYED))).andRespond(recentlyPlayed(730, 120, 440, 45));
+
+		CachedLibrary patched = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(playtimeOf(patched, 730)).isEqualTo(120);
+		assertThat(patched.untrackedAppIds()).containsExactly(440);
+		assertThat(refreshCount("full")).isEqualTo(1);
+		assertThat(refreshCount("incremental")).isEqualTo(1);
+	}
+
+	@Test
+	void privateRecentGamesFallBackToFullLoad() {
+		putExpired(library(730, 100), 10);
+
+		// Sem total_count: a Steam não mostra os jogos recentes (perfil privado)
+		server.expect(once(), requestTo(startsWith(RECENTLY_PLAYED)))
+				.andRespond(withSuccess("{\"response\":{}}", MediaType.APPLICATION_JSON));
+		server.expect(once(), requestTo(startsWith(OWNED_GAMES))).andRespond(ownedGames(730, 110));
+
+		CachedLibrary refreshed = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(playtimeOf(refreshed, 730)).isEqualTo(110);
+		assertThat(refreshed.fullLoadedAt()).isEqualTo(refreshed.loadedAt());
+		assertThat(refreshCount("full")).isEqualTo(1);
+	}
+
+	@Test
+	void fullLoadAfterFullRefreshInterval() {
+		// Última carga completa há mais de steam.refresh.full-interval-minutes (60)
+		putExpired(library(730, 100), 61);
+
+		server.expect(once(), requestTo(startsWith(OWNED_GAMES))).andRespond(ownedGames(730, 100, 570, 0));
+
+		CachedLibrary refreshed = service.getCachedLibraryOrThrow(STEAM_ID);
+		server.verify();
+		assertThat(refreshed.size()).isEqualTo(2);
+		assertThat(refreshed.fullLoadedAt()).isEqualTo(refreshed.loadedAt());
+		assertThat(refreshCount("full")).isEqualTo(1);
+		assertThat(refreshCount("incremental")).isZero();
+	}
+
+	private SteamService newService() {
+		SteamService steamService = new SteamService(restTemplate, meterRegistry);
+		ReflectionTestUtils.setField(steamService, "steamApiKey", "key");
+		ReflectionTestUtils.setField(steamService, "steamApiBaseUrl", BASE_URL);
+		ReflectionTestUtils.setField(steamService, "incrementalRefreshEnabled", true);
+		ReflectionTestUtils.setField(steamService, "fullRefreshIntervalMinutes", 60L);
+		ReflectionTestUtils.setField(steamService, "libraryCache", libraryCache);
+		ReflectionTestUtils.setField(steamService, "steamIdResolver",
+				new SteamIdResolver(restTemplate, BASE_URL, "key", 24, 300, 100));
+		ReflectionTestUtils.setField(steamService, "snapshotStore", snapshotStore);
+		ReflectionTestUtils.setField(steamService, "popularityIndex", new GamePopularityIndex(1000));
+		ReflectionTestUtils.setField(steamService, "historyStore", new PlaytimeHistoryStore());
+		ReflectionTestUtils.setField(steamService, "iconCache",
+				new IconCache(null, null, false, dir.resolve("icons").toString(), 0, SteamService.STEAM_MEDIA_URL, 1000, 300));
+		ReflectionTestUtils.setField(steamService, "steamRequestExecutor", new SyncTaskExecutor());
+		return steamService;
+	}
+
+	/**
+	 * Coloca no cache uma entrada carregada há "minutesAgo" minutos (já expirada pelo TTL de 5 minutos)
+	 */
+	private CachedLibrary putExpired(GameLibrary library, long minutesAgo) {
+		return putExpired(library, Set.of(), minutesAgo);
+	}
+
+	private CachedLibrary putExpired(GameLibrary library, Set<Integer> untrackedAppIds, long minutesAgo) {
+		CachedLibrary entry = new CachedLibrary(library, System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutesAgo));
+		return libraryCache.put(STEAM_ID, untrackedAppIds.isEmpty() ? entry : entry.withUntrackedAppIds(untrackedAppIds));
+	}
+
+	private double refreshCount(String type) {
+		return meterRegistry.counter("steam.library.refresh", "type", type).count();
+	}
+
+	private static int playtimeOf(CachedLibrary library, int appId) {
+		GameLibrary games = library.library();
+		for (int i = 0; i < games.size(); i++) {
+			if (games.appIdAt(i) == appId) {
+				return games.playtimeAt(i);
+			}
+		}
+		throw new AssertionError("Jogo " + appId + " não está na biblioteca");
+	}
+
+	/**
+	 * Biblioteca com os pares (appId, tempo de jogo) informados
+	 */
+	private static GameLibrary library(int... appIdsAndPlaytimes) {
+		GameLibrary.Builder builder = GameLibrary.builder(appIdsAndPlaytimes.length / 2, SteamService.STEAM_MEDIA_URL);
+		for (int i = 0; i < appIdsAndPlaytimes.length; i += 2) {
+			builder.add(appIdsAndPlaytimes[i], "Game " + appIdsAndPlaytimes[i], appIdsAndPlaytimes[i + 1], null);
+		}
+		return builder.build();
+	}
+
+	private CachedLibrary awaitPlaytime(int appId, int playtime) throws InterruptedException {
+		for (int i = 0; i < 500; i++) {
+			CachedLibrary library = libraryCache.getIfPresent(STEAM_ID);
+			GameLibrary games = library != null ? library.library() : null;
+			for (int g = 0; games != null && g < games.size(); g++) {
+				if (games.appIdAt(g) == appId && games.playtimeAt(g) == playtime) {
+					return library;
+				}
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Biblioteca não foi atualizada");
+	}
+
+	/**
+	 * Resposta do GetOwnedGames com os pares (appId, tempo de jogo) informados
+	 */
+	private static ResponseCreator ownedGames(int... appIdsAndPlaytimes) {
+		return withSuccess("{\"response\":{\"game_count\":" + appIdsAndPlaytimes.length / 2
+				+ ",\"games\":[" + gamesJson(appIdsAndPlaytimes) + "]}}", MediaType.APPLICATION_JSON);
+	}
+
+	/**
+	 * Resposta do GetRecentlyPlayedGames com os pares (appId, tempo total de jogo) informados
+	 */
+	private static ResponseCreator recentlyPlayed(int... appIdsAndPlaytimes) {
+		return withSuccess("{\"response\":{\"total_count\":" + appIdsAndPlaytimes.length / 2
+				+ ",\"games\":[" + gamesJson(appIdsAndPlaytimes) + "]}}", MediaType.APPLICATION_JSON);
+	}
+
+	private static String gamesJson(int... appIdsAndPlaytimes) {
+		StringBuilder games = new StringBuilder();
+		for (int i = 0; i < appIdsAndPlaytimes.length; i += 2) {
+			if (games.length() > 0) {
+				games.append(',');
+			}
+			games.append("{\"appid\":").append(appIdsAndPlaytimes[i])
+					.append(",\"name\":\"Game ").append(appIdsAndPlaytimes[i])
+					.append("\",\"playtime_forever\":").append(appIdsAndPlaytimes[i + 1]).append('}');
+		}
+		return games.toString();
+	}
+}